@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Compara vazão e latência (p50/p99) entre o modelo atual (pool de threads do Tomcat)
+# e o perfil virtual-threads, com clientes lentos simultâneos.
+#
+# Requisitos: Java 21, PostgreSQL com a base configurada em application.properties e o
+# gerador de carga "hey" (https://github.com/rakyll/hey) no PATH.
+#
+# Uso: ./carga/comparar-threads.sh [concorrencia] [duracao] [usuarioId]
+#   ex.: ./carga/comparar-threads.sh 2000 60s 1
+#
+# Os resultados de cada modo ficam em target/carga/<modo>.txt.
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+CONCORRENCIA=${1:-2000}
+DURACAO=${2:-60s}
+USUARIO=${3:-1}
+PORTA=8080
+SAIDA=target/carga
+mkdir -p "$SAIDA"
+
+./mvnw -B -q package -DskipTests
+JAR=$(ls target/agendavac-*.jar | grep -v original | head -1)
+
+executar() {
+  local modo=$1 perfil=$2
+
+  java -jar "$JAR" --server.port=$PORTA ${perfil:+--spring.profiles.active=$perfil} \
+    --spring.jpa.show-sql=false > "$SAIDA/$modo.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null" EXIT
+
+  until curl -sf "http://localhost:$PORTA/vacinas" > /dev/null; do sleep 1; done
+
+  # aquecimento
+  hey -z 15s -c 50 "http://localhost:$PORTA/agendas/usuario/$USUARIO" > /dev/null
+
+  {
+    echo "### $modo - GET /agendas/usuario/$USUARIO"
+    hey -z "$DURACAO" -c "$CONCORRENCIA" "http://localhost:$PORTA/agendas/usuario/$USUARIO"
+    echo "### $modo - GET /agendas/pagina?tamanho=50"
+    hey -z "$DURACAO" -c "$CONCORRENCIA" "http://localhost:$PORTA/agendas/pagina?tamanho=50"
+  } | tee "$SAIDA/$modo.txt"
+
+  kill $pid; wait $pid 2>/dev/null || true
+  trap - EXIT
+}
+
+executar plataforma ""
+executar virtual virtual-threads
+
+resumo() {
+  awk -v modo="$1" '
+    /^###/ { endpoint = $0; sub(/^### [^ ]+ - /, "", endpoint) }
+    /Requests\/sec/ { rps = $2 }
+    /99% in/ { printf "%-12s %-32s %10s req/s  p99 %ss\n", modo, endpoint, rps, $3 }
+  ' "$SAIDA/$1.txt"
+}
+
+echo
+resumo plataforma
+resumo virtual
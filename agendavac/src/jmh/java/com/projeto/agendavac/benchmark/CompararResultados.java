@@ -0,0 +1,69 @@
+package com.projeto.agendavac.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Compara dois resultados JSON do JMH (por exemplo, target/jmh-<versão>.json de duas versões).
+ * Uso: java ... com.projeto.agendavac.benchmark.CompararResultados base.json novo.json
+ * Para benchmarks de tempo médio, variação positiva significa que a versão nova ficou mais lenta.
+ * */
+
+public class CompararResultados {
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 2) {
+            System.err.println("Uso: CompararResultados <base.json> <novo.json>");
+            System.exit(1);
+        }
+
+        Map<String, JsonNode> base = ler(new File(args[0]));
+        Map<String, JsonNode> novo = ler(new File(args[1]));
+
+        System.out.printf("%-90s %14s %14s %9s %s%n", "benchmark", "base", "novo", "variação", "unidade");
+
+        for (Map.Entry<String, JsonNode> entrada : novo.entrySet()) {
+            JsonNode metricaNova = entrada.getValue().get("primaryMetric");
+            JsonNode anterior = base.get(entrada.getKey());
+
+            double scoreNovo = metricaNova.get("score").asDouble();
+            String unidade = metricaNova.get("scoreUnit").asText();
+
+            if (anterior == null) {
+                System.out.printf("%-90s %14s %14.3f %9s %s%n", entrada.getKey(), "-", scoreNovo, "novo", unidade);
+                continue;
+            }
+
+            double scoreBase = anterior.get("primaryMetric").get("score").asDouble();
+            double variacao = (scoreNovo - scoreBase) / scoreBase * 100;
+
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%n", entrada.getKey(), scoreBase, scoreNovo, variacao, unidade);
+        }
+    }
+
+    // chave: nome do benchmark + parâmetros, por exemplo AgendarBenchmark.agendar{doses=3}
+    private static Map<String, JsonNode> ler(File arquivo) throws IOException {
+
+        Map<String, JsonNode> resultados = new LinkedHashMap<>();
+
+        for (JsonNode resultado : new ObjectMapper().readTree(arquivo)) {
+            StringBuilder chave = new StringBuilder(resultado.get("benchmark").asText()
+                    .replace("com.projeto.agendavac.", ""));
+
+            JsonNode parametros = resultado.get("params");
+            if (parametros != null) {
+                chave.append(parametros);
+            }
+
+            resultados.put(chave.toString(), resultado);
+        }
+
+        return resultados;
+    }
+}
@@ -0,0 +1,129 @@
+package com.projeto.agendavac.benchmark;
+
+import com.projeto.agendavac.entity.Agenda;
+import com.projeto.agendavac.entity.Usuario;
+import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.enums.Situacao;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Leitura de uma lista grande de agendas (com usuário e vacina) em uma transação readOnly e em uma transação comum,
+ * com o mesmo JpaTransactionManager dos serviços. Na readOnly o Hibernate carrega as entidades sem cópia de estado
+ * (snapshot) e não faz flush nem dirty checking no commit.
+ * Banco H2 em memória, para isolar o custo do lado da aplicação.
+ * Para ver a memória alocada por leitura: -Djmh.args="LeituraTransacional -prof gc" (gc.alloc.rate.norm).
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LeituraTransacionalBenchmark {
+
+    private static final String CONSULTA = "select a from Agenda a join fetch a.usuario join fetch a.vacina";
+
+    @Param({"1000", "10000"})
+    private int quantidade;
+
+    private LocalContainerEntityManagerFactoryBean fabrica;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate leitura;
+    private TransactionTemplate escrita;
+
+    @Setup
+    public void preparar() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:leitura;DB_CLOSE_DELAY=-1");
+
+        fabrica = new LocalContainerEntityManagerFactoryBean();
+        fabrica.setDataSource(dataSource);
+        fabrica.setPackagesToScan("com.projeto.agendavac.entity");
+        fabrica.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        fabrica.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.cache.use_second_level_cache", "false",
+                "hibernate.default_batch_fetch_size", "100",
+                "hibernate.jdbc.batch_size", "500"));
+        fabrica.afterPropertiesSet();
+        entityManagerFactory = fabrica.getObject();
+
+        JpaTransactionManager transacoes = new JpaTransactionManager(entityManagerFactory);
+        escrita = new TransactionTemplate(transacoes);
+        leitura = new TransactionTemplate(transacoes);
+        leitura.setReadOnly(true);
+
+        escrita.executeWithoutResult(status -> popular(entityManager()));
+    }
+
+    @TearDown
+    public void encerrar() {
+        fabrica.destroy();
+    }
+
+    @Benchmark
+    public int leituraReadOnly() {
+        return leitura.execute(status -> listar().size());
+    }
+
+    @Benchmark
+    public int leituraEmTransacaoComum() {
+        return escrita.execute(status -> listar().size());
+    }
+
+    private List<Agenda> listar() {
+        return entityManager().createQuery(CONSULTA, Agenda.class).getResultList();
+    }
+
+    private EntityManager entityManager() {
+        return EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+    }
+
+    private void popular(EntityManager entityManager) {
+
+        Vacina vacina = new Vacina();
+        vacina.setTitulo("Influenza");
+        vacina.setDescricao("Vacina contra a gripe, aplicada anualmente nas campanhas.");
+        vacina.setDoses(1);
+        entityManager.persist(vacina);
+
+        // 10 agendas por usuário
+        Usuario usuario = null;
+
+        for (int i = 0; i < quantidade; i++) {
+            if (i % 10 == 0) {
+                usuario = new Usuario();
+                usuario.setNome("Usuário " + i);
+                usuario.setDataNascimento(LocalDate.of(1960, 1, 1).plusDays(i % 20000));
+                usuario.setSexo(i % 20 == 0 ? "F" : "M");
+                usuario.setLogradouro("Rua " + (i % 500));
+                usuario.setSetor("Setor " + (i % 50));
+                usuario.setCidade("Goiânia");
+                usuario.setUf("GO");
+                entityManager.persist(usuario);
+            }
+
+            Agenda agenda = new Agenda();
+            agenda.setData(LocalDate.of(2024, 3, 1).plusDays(i % 90));
+            agenda.setHora(LocalTime.of(8, 0).plusMinutes(15L * (i % 32)));
+            agenda.setSituacao(Situacao.AGENDADO);
+            agenda.setUsuario(usuario);
+            agenda.setVacina(vacina);
+            entityManager.persist(agenda);
+        }
+    }
+}
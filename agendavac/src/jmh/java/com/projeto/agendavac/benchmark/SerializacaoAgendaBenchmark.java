@@ -0,0 +1,87 @@
+package com.projeto.agendavac.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.entity.Agenda;
+import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.entity.Componente;
+import com.projeto.agendavac.entity.Usuario;
+import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.enums.Situacao;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Serialização com Jackson de listas de agendas, com o ObjectMapper configurado como no Spring Boot.
+ * A saída é descartada para medir apenas a serialização.
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SerializacaoAgendaBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int quantidade;
+
+    private ObjectMapper objectMapper;
+    private List<Agenda> agendas;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Alergia alergia = new Alergia();
+        alergia.setNome("Látex");
+
+        Componente componente = new Componente();
+        componente.setNome("Gelatina");
+
+        Vacina vacina = new Vacina();
+        vacina.setId(1L);
+        vacina.setTitulo("Influenza");
+        vacina.setDescricao("Vacina contra a gripe, aplicada anualmente nas campanhas.");
+        vacina.setDoses(1);
+        vacina.setComponentes(List.of(componente));
+
+        agendas = new ArrayList<>(quantidade);
+
+        for (int i = 0; i < quantidade; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setId((long) i);
+            usuario.setNome("Usuário " + i);
+            usuario.setDataNascimento(LocalDate.of(1960, 1, 1).plusDays(i % 20000));
+            usuario.setSexo(i % 2 == 0 ? "F" : "M");
+            usuario.setLogradouro("Rua " + (i % 500));
+            usuario.setSetor("Setor " + (i % 50));
+            usuario.setCidade("Goiânia");
+            usuario.setUf("GO");
+            usuario.setAlergias(i % 10 == 0 ? List.of(alergia) : List.of());
+
+            Agenda agenda = new Agenda();
+            agenda.setId((long) i);
+            agenda.setData(LocalDate.of(2024, 3, 1).plusDays(i % 90));
+            agenda.setHora(LocalTime.of(8, 0).plusMinutes(15L * (i % 32)));
+            agenda.setSituacao(Situacao.AGENDADO);
+            agenda.setUsuario(usuario);
+            agenda.setVacina(vacina);
+            agenda.setReacoes(List.of());
+            agendas.add(agenda);
+        }
+    }
+
+    @Benchmark
+    public void serializar() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), agendas);
+    }
+}
@@ -0,0 +1,36 @@
+package com.projeto.agendavac.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * Implementações mínimas de interfaces (repositórios) para os benchmarks, sem banco e sem Mockito.
+ * Cada método responde com a função registrada pelo nome; os demais lançam UnsupportedOperationException.
+ * */
+
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T de(Class<T> tipo, Map<String, Function<Object[], Object>> respostas) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+
+            if (metodo.getDeclaringClass() == Object.class) {
+                return switch (metodo.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "Stub de " + tipo.getSimpleName();
+                };
+            }
+
+            Function<Object[], Object> resposta = respostas.get(metodo.getName());
+            if (resposta == null)
+                throw new UnsupportedOperationException(tipo.getSimpleName() + "." + metodo.getName());
+
+            return resposta.apply(args);
+        });
+    }
+}
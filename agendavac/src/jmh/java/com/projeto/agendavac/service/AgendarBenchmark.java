@@ -0,0 +1,105 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.benchmark.Stubs;
+import com.projeto.agendavac.entity.Agenda;
+import com.projeto.agendavac.entity.Usuario;
+import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.repository.AgendaRepository;
+import com.projeto.agendavac.repository.EstatisticaAgendaRepository;
+import com.projeto.agendavac.repository.UsuarioRepository;
+import com.projeto.agendavac.repository.VagaHorarioRepository;
+import com.projeto.agendavac.repository.VacinaRepository;
+import com.projeto.agendavac.repository.VersaoCatalogoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * AgendaService.agendar com os repositórios substituídos por stubs: mede somente o custo da regra
+ * de negócio (verificação de alergias, cálculo das doses, reserva das vagas e contadores), sem banco de dados.
+ * Fora de uma transação o @Transactional não tem efeito, pois o serviço não é um proxy do Spring.
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgendarBenchmark {
+
+    private static final LocalDate DATA_INICIAL = LocalDate.of(2024, 3, 1);
+    private static final LocalTime HORA = LocalTime.of(8, 30);
+
+    @Param({"1", "3", "5"})
+    private int doses;
+
+    private AgendaService agendaService;
+
+    @Setup
+    public void preparar() {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+
+        Vacina vacina = new Vacina();
+        vacina.setId(1L);
+        vacina.setDoses(doses);
+        if (doses > 1) {
+            vacina.setPeriodicidade(3);
+            vacina.setIntervalo(2);
+        }
+
+        IndiceConflitoAlergia indice = new IndiceConflitoAlergia();
+        ReflectionTestUtils.setField(indice, "vacinaRepository", Stubs.de(VacinaRepository.class, Map.of(
+                "buscarNomesComponentes", args -> List.of("Gelatina", "Albumina", "Timerosal"))));
+        ReflectionTestUtils.setField(indice, "usuarioRepository", Stubs.de(UsuarioRepository.class, Map.of(
+                "buscarNomesAlergias", args -> List.of("Látex", "Ovo"))));
+        CatalogosEmCache catalogosEmCache = new CatalogosEmCache();
+        ReflectionTestUtils.setField(catalogosEmCache, "versaoCatalogoRepository", Stubs.de(VersaoCatalogoRepository.class, Map.of(
+                "buscarVersoes", args -> List.of())));
+        // sem cache de segundo nível nos benchmarks
+        ReflectionTestUtils.setField(catalogosEmCache, "cacheService", new CacheService() {
+            @Override
+            public void descartar(Catalogo catalogo) {
+            }
+        });
+        ReflectionTestUtils.setField(indice, "catalogosEmCache", catalogosEmCache);
+
+        agendaService = new AgendaService();
+        ReflectionTestUtils.setField(agendaService, "agendaRepository", Stubs.de(AgendaRepository.class, Map.of(
+                "saveAll", args -> args[0])));
+        ReflectionTestUtils.setField(agendaService, "usuarioRepository", Stubs.de(UsuarioRepository.class, Map.of(
+                "findById", args -> Optional.of(usuario))));
+        ReflectionTestUtils.setField(agendaService, "vacinaRepository", Stubs.de(VacinaRepository.class, Map.of(
+                "findById", args -> Optional.of(vacina))));
+        ReflectionTestUtils.setField(agendaService, "indiceConflitoAlergia", indice);
+
+        // toda reserva de vaga é aceita na primeira tentativa
+        VagaService vagaService = new VagaService();
+        ReflectionTestUtils.setField(vagaService, "vagaHorarioRepository", Stubs.de(VagaHorarioRepository.class, Map.of(
+                "ocupar", args -> 1)));
+        ReflectionTestUtils.setField(agendaService, "vagaService", vagaService);
+
+        MetricasAgenda metricasAgenda = new MetricasAgenda();
+        ReflectionTestUtils.setField(metricasAgenda, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(agendaService, "metricasAgenda", metricasAgenda);
+
+        EstatisticaAgendaService estatisticaAgendaService = new EstatisticaAgendaService();
+        ReflectionTestUtils.setField(estatisticaAgendaService, "estatisticaAgendaRepository", Stubs.de(EstatisticaAgendaRepository.class, Map.of(
+                "somar", args -> 1)));
+        ReflectionTestUtils.setField(agendaService, "estatisticaAgendaService", estatisticaAgendaService);
+    }
+
+    @Benchmark
+    public List<Agenda> agendar() {
+        return agendaService.agendar(1L, 1L, DATA_INICIAL, HORA, "Campanha");
+    }
+}
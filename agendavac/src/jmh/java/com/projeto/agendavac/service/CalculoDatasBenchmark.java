@@ -0,0 +1,32 @@
+package com.projeto.agendavac.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * AgendaService.calcularProximaData para cada periodicidade (1 - dias, 2 - semanas, 3 - meses, 4 - anos).
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculoDatasBenchmark {
+
+    @Param({"1", "2", "3", "4"})
+    private int periodicidade;
+
+    private final AgendaService agendaService = new AgendaService();
+
+    // fora do estado final para o JIT não tratar a data como constante
+    private LocalDate data = LocalDate.of(2024, 1, 31);
+
+    @Benchmark
+    public LocalDate calcularProximaData() {
+        return agendaService.calcularProximaData(data, 3, periodicidade);
+    }
+}
@@ -0,0 +1,98 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.benchmark.Stubs;
+import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.entity.Componente;
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.repository.UsuarioRepository;
+import com.projeto.agendavac.repository.VacinaRepository;
+import com.projeto.agendavac.repository.VersaoCatalogoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Verificação de alergias com listas grandes e sem nenhum nome em comum (pior caso):
+ * o laço aninhado com equalsIgnoreCase usado antes do índice, o índice já carregado
+ * e o índice sendo montado a cada chamada.
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConflitoAlergiaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int tamanho;
+
+    private List<Componente> componentes;
+    private List<Alergia> alergias;
+    private IndiceConflitoAlergia indice;
+
+    // versão de VACINAS devolvida pelo banco simulado
+    private final AtomicLong versaoVacinas = new AtomicLong();
+
+    @Setup
+    public void preparar() {
+        componentes = new ArrayList<>();
+        alergias = new ArrayList<>();
+        List<String> nomesComponentes = new ArrayList<>();
+        List<String> nomesAlergias = new ArrayList<>();
+
+        for (int i = 0; i < tamanho; i++) {
+            Componente componente = new Componente();
+            componente.setNome("Componente " + i);
+            componentes.add(componente);
+            nomesComponentes.add(componente.getNome());
+
+            Alergia alergia = new Alergia();
+            alergia.setNome("Alergia " + i);
+            alergias.add(alergia);
+            nomesAlergias.add(alergia.getNome());
+        }
+
+        indice = new IndiceConflitoAlergia();
+        ReflectionTestUtils.setField(indice, "vacinaRepository", Stubs.de(VacinaRepository.class, Map.of(
+                "buscarNomesComponentes", args -> nomesComponentes)));
+        ReflectionTestUtils.setField(indice, "usuarioRepository", Stubs.de(UsuarioRepository.class, Map.of(
+                "buscarNomesAlergias", args -> nomesAlergias)));
+
+        CatalogosEmCache catalogosEmCache = new CatalogosEmCache();
+        ReflectionTestUtils.setField(catalogosEmCache, "versaoCatalogoRepository", Stubs.de(VersaoCatalogoRepository.class, Map.of(
+                "buscarVersoes", args -> List.<Object[]>of(new Object[]{Catalogo.VACINAS, versaoVacinas.get()}))));
+        // sem cache de segundo nível nos benchmarks
+        ReflectionTestUtils.setField(catalogosEmCache, "cacheService", new CacheService() {
+            @Override
+            public void descartar(Catalogo catalogo) {
+            }
+        });
+        ReflectionTestUtils.setField(indice, "catalogosEmCache", catalogosEmCache);
+    }
+
+    @Benchmark
+    public boolean lacoAninhado() {
+        return componentes.stream()
+                .anyMatch(componente -> alergias.stream()
+                        .anyMatch(alergia -> alergia.getNome().equalsIgnoreCase(componente.getNome())));
+    }
+
+    @Benchmark
+    public boolean indiceCarregado() {
+        return indice.possuiConflito(1L, 1L);
+    }
+
+    @Benchmark
+    public boolean indiceMontadoACadaChamada() {
+        versaoVacinas.incrementAndGet();
+        indice.invalidarUsuario(1L);
+        return indice.possuiConflito(1L, 1L);
+    }
+}
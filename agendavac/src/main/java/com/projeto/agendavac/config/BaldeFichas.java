@@ -0,0 +1,46 @@
+package com.projeto.agendavac.config;
+
+/*
+ * Balde de fichas (token bucket): começa cheio, com capacidade fichas, e recebe fichasPorSegundo fichas até
+ * encher de novo. Cada requisição consome uma ficha; com o balde vazio a requisição é recusada.
+ * A reposição é calculada no momento do consumo, sem tarefa em segundo plano.
+ * */
+
+class BaldeFichas {
+
+    private final double capacidade;
+    private final double fichasPorNano;
+
+    private double fichas;
+    private long ultimaReposicao;
+
+    BaldeFichas(int capacidade, double fichasPorSegundo, long agora) {
+        this.capacidade = capacidade;
+        this.fichasPorNano = fichasPorSegundo / 1_000_000_000d;
+        this.fichas = capacidade;
+        this.ultimaReposicao = agora;
+    }
+
+    // 0 quando a ficha foi consumida; senão, nanossegundos até a próxima ficha
+    synchronized long consumir(long agora) {
+
+        repor(agora);
+
+        if (fichas >= 1) {
+            fichas -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - fichas) / fichasPorNano);
+    }
+
+    // um balde cheio se comporta como um novo e pode ser descartado
+    synchronized boolean cheio(long agora) {
+        repor(agora);
+        return fichas >= capacidade;
+    }
+
+    private void repor(long agora) {
+        fichas = Math.min(capacidade, fichas + (agora - ultimaReposicao) * fichasPorNano);
+        ultimaReposicao = agora;
+    }
+}
@@ -0,0 +1,99 @@
+package com.projeto.agendavac.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Limita quantas conexões podem estar em uso ao mesmo tempo com um semáforo justo do tamanho do pool.
+ * Com threads virtuais, milhares de requisições podem pedir conexão ao mesmo tempo: elas aguardam aqui,
+ * em ordem de chegada e sem prender a thread portadora, em vez de disputarem o pool do Hikari.
+ * A permissão é devolvida quando a conexão é fechada (devolvida ao pool).
+ * */
+
+public class ConexoesLimitadasDataSource extends DelegatingDataSource {
+
+    private final Semaphore permissoes;
+    private final long esperaMs;
+
+    public ConexoesLimitadasDataSource(DataSource dataSource, long esperaMs) {
+        super(dataSource);
+        this.permissoes = new Semaphore(tamanhoDoPool(dataSource), true);
+        this.esperaMs = esperaMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return limitar(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return limitar(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    public int getPermissoesDisponiveis() {
+        return permissoes.availablePermits();
+    }
+
+    public int getThreadsAguardando() {
+        return permissoes.getQueueLength();
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permissoes.tryAcquire(esperaMs, TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException("Nenhuma conexão disponível após " + esperaMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrompido aguardando conexão", e);
+        }
+    }
+
+    // devolve a permissão uma única vez, mesmo que close seja chamado repetidamente
+    private Connection limitar(Connection conexao) {
+        AtomicBoolean devolvida = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    try {
+                        return metodo.invoke(conexao, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if (metodo.getName().equals("close") && devolvida.compareAndSet(false, true)) {
+                            permissoes.release();
+                        }
+                    }
+                });
+    }
+
+    private static int tamanhoDoPool(DataSource dataSource) {
+        // o Hikari só aplica o padrão (10) ao iniciar o pool; antes disso o valor não configurado é -1
+        if (dataSource instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() > 0) {
+            return hikari.getMaximumPoolSize();
+        }
+        return 10;
+    }
+}
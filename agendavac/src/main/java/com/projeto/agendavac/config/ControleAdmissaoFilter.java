@@ -0,0 +1,295 @@
+package com.projeto.agendavac.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Controle de admissão na frente dos controllers, para que um cliente ou um tipo de consulta não esgote o pool
+ * de conexões. Cada requisição é classificada (ClasseEndpoint) e passa por dois limites antes de chegar ao banco:
+ *  - taxa: um BaldeFichas por cliente (endereço de origem) e classe, com por-segundo e rajada de cada classe;
+ *  - concorrência: no máximo concorrencia-maxima requisições em andamento, das quais reservadas-agendamento só
+ *    podem ser ocupadas por agendamentos e baixas. Listagens e relatórios são recusados antes, e o agendamento
+ *    continua com vaga mesmo com o resto da aplicação sob carga.
+ * Requisição recusada: 429 com Retry-After, sem executar nada. A concorrência máxima é, por padrão, o tamanho do
+ * pool do Hikari (spring.datasource.hikari.maximum-pool-size) e não pode passar dele: acima, as requisições
+ * admitidas esperariam por conexão e as vagas reservadas não garantiriam uma conexão ao agendamento. As reservadas
+ * saem desse total. Respostas assíncronas (exportações) ocupam a vaga até o fim da escrita.
+ * Os baldes são por endereço de origem, então o mapa é limitado (max-baldes): no limite, os baldes cheios são
+ * descartados na hora e, se ainda não houver espaço, os clientes novos dividem um balde por classe até a limpeza.
+ * Atrás de um proxy, o endereço de origem depende de server.forward-headers-strategy.
+ *
+ * Métricas: agendavac.admissao.aceitas{classe}, agendavac.admissao.recusadas{classe, motivo=taxa|concorrencia},
+ * agendavac.admissao.em-andamento e agendavac.admissao.baldes (clientes com balde ativo).
+ * */
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "agendavac.admissao.habilitada", havingValue = "true", matchIfMissing = true)
+public class ControleAdmissaoFilter extends OncePerRequestFilter {
+
+    enum ClasseEndpoint {
+        AGENDAMENTO, CADASTRO, CONSULTA, RELATORIO
+    }
+
+    // cliente dos baldes compartilhados quando o mapa está no limite
+    private static final String EXCEDENTE = "";
+
+    private static final long INTERVALO_DESCARTE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int tamanhoPool;
+
+    @Value("${agendavac.admissao.concorrencia-maxima:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int concorrenciaMaxima;
+
+    @Value("${agendavac.admissao.reservadas-agendamento:3}")
+    private int reservadasAgendamento;
+
+    @Value("${agendavac.admissao.max-baldes:10000}")
+    private int maxBaldes;
+
+    @Value("${agendavac.admissao.agendamento.por-segundo:5}")
+    private double agendamentoPorSegundo;
+
+    @Value("${agendavac.admissao.agendamento.rajada:20}")
+    private int agendamentoRajada;
+
+    @Value("${agendavac.admissao.cadastro.por-segundo:5}")
+    private double cadastroPorSegundo;
+
+    @Value("${agendavac.admissao.cadastro.rajada:20}")
+    private int cadastroRajada;
+
+    @Value("${agendavac.admissao.consulta.por-segundo:20}")
+    private double consultaPorSegundo;
+
+    @Value("${agendavac.admissao.consulta.rajada:50}")
+    private int consultaRajada;
+
+    @Value("${agendavac.admissao.relatorio.por-segundo:0.2}")
+    private double relatorioPorSegundo;
+
+    @Value("${agendavac.admissao.relatorio.rajada:3}")
+    private int relatorioRajada;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final Map<ChaveBalde, BaldeFichas> baldes = new ConcurrentHashMap<>();
+    private final Map<ClasseEndpoint, LimiteTaxa> limites = new EnumMap<>(ClasseEndpoint.class);
+    private final AtomicLong ultimoDescarte = new AtomicLong(System.nanoTime());
+
+    @PostConstruct
+    void iniciar() {
+        if (concorrenciaMaxima > tamanhoPool)
+            throw new IllegalStateException("agendavac.admissao.concorrencia-maxima (" + concorrenciaMaxima
+                    + ") não pode passar do pool de conexões (" + tamanhoPool + ")");
+        if (reservadasAgendamento < 0 || reservadasAgendamento >= concorrenciaMaxima)
+            throw new IllegalStateException("agendavac.admissao.reservadas-agendamento (" + reservadasAgendamento
+                    + ") deve ficar entre 0 e a concorrência máxima (" + concorrenciaMaxima + ")");
+
+        limites.put(ClasseEndpoint.AGENDAMENTO, new LimiteTaxa(agendamentoPorSegundo, agendamentoRajada));
+        limites.put(ClasseEndpoint.CADASTRO, new LimiteTaxa(cadastroPorSegundo, cadastroRajada));
+        limites.put(ClasseEndpoint.CONSULTA, new LimiteTaxa(consultaPorSegundo, consultaRajada));
+        limites.put(ClasseEndpoint.RELATORIO, new LimiteTaxa(relatorioPorSegundo, relatorioRajada));
+
+        Gauge.builder("agendavac.admissao.em-andamento", emAndamento, AtomicInteger::get)
+                .description("Requisições admitidas em andamento")
+                .register(registry);
+        Gauge.builder("agendavac.admissao.baldes", baldes, Map::size)
+                .description("Baldes de fichas ativos (cliente e classe)")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String caminho = caminho(request);
+
+        return "OPTIONS".equals(request.getMethod()) || caminho.startsWith("/actuator")
+                || caminho.startsWith("/swagger-ui") || caminho.startsWith("/v3/api-docs");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        ClasseEndpoint classe = classificar(request.getMethod(), caminho(request));
+
+        long agora = System.nanoTime();
+        long esperaNanos = balde(request.getRemoteAddr(), classe, agora).consumir(agora);
+
+        if (esperaNanos > 0) {
+            recusar(response, classe, "taxa", TimeUnit.NANOSECONDS.toSeconds(esperaNanos) + 1,
+                    "Limite de requisições excedido. Tente novamente após o tempo indicado em Retry-After.");
+            return;
+        }
+
+        if (!ocupar(classe)) {
+            recusar(response, classe, "concorrencia", 1,
+                    "Servidor sobrecarregado. Tente novamente após o tempo indicado em Retry-After.");
+            return;
+        }
+
+        contar("agendavac.admissao.aceitas", classe, null);
+
+        AtomicBoolean liberada = new AtomicBoolean();
+        Runnable liberar = () -> {
+            if (liberada.compareAndSet(false, true)) emAndamento.decrementAndGet();
+        };
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // resposta assíncrona: a vaga é devolvida quando a escrita terminar
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new LiberarAoConcluir(liberar));
+            } else {
+                liberar.run();
+            }
+        }
+    }
+
+    // clientes sem requisições recentes têm o balde cheio e são esquecidos
+    @Scheduled(fixedDelayString = "${agendavac.admissao.limpeza-ms:60000}")
+    public void descartarBaldesCheios() {
+        long agora = System.nanoTime();
+        ultimoDescarte.set(agora);
+        baldes.values().removeIf(balde -> balde.cheio(agora));
+    }
+
+    private BaldeFichas balde(String cliente, ClasseEndpoint classe, long agora) {
+
+        ChaveBalde chave = new ChaveBalde(cliente, classe);
+
+        BaldeFichas balde = baldes.get(chave);
+        if (balde != null)
+            return balde;
+
+        // no limite, descarta os cheios (no máximo uma varredura por segundo, para que uma enxurrada de endereços
+        // novos não percorra o mapa a cada requisição); sem espaço, o cliente novo usa o balde compartilhado
+        if (baldes.size() >= maxBaldes) {
+            long ultimo = ultimoDescarte.get();
+            if (agora - ultimo >= INTERVALO_DESCARTE_NANOS && ultimoDescarte.compareAndSet(ultimo, agora))
+                baldes.values().removeIf(cheio -> cheio.cheio(agora));
+
+            if (baldes.size() >= maxBaldes)
+                chave = new ChaveBalde(EXCEDENTE, classe);
+        }
+
+        LimiteTaxa limite = limites.get(classe);
+        return baldes.computeIfAbsent(chave, c -> new BaldeFichas(limite.rajada(), limite.porSegundo(), agora));
+    }
+
+    static ClasseEndpoint classificar(String metodo, String caminho) {
+
+        if (caminho.startsWith("/exportacoes") || caminho.startsWith("/estatisticas"))
+            return ClasseEndpoint.RELATORIO;
+
+        if ("GET".equals(metodo) || "HEAD".equals(metodo))
+            return ClasseEndpoint.CONSULTA;
+
+        // agendar, agendar em lote, dar baixa (comparecimento) e excluir agenda
+        if (caminho.equals("/agendas") || caminho.startsWith("/agendas/"))
+            return ClasseEndpoint.AGENDAMENTO;
+
+        return ClasseEndpoint.CADASTRO;
+    }
+
+    // as reservadas ficam de fora do limite das demais classes
+    private boolean ocupar(ClasseEndpoint classe) {
+
+        int limite = classe == ClasseEndpoint.AGENDAMENTO ? concorrenciaMaxima : concorrenciaMaxima - reservadasAgendamento;
+
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual >= limite) return false;
+            if (emAndamento.compareAndSet(atual, atual + 1)) return true;
+        }
+    }
+
+    private void recusar(HttpServletResponse response, ClasseEndpoint classe, String motivo, long retryAfterSegundos,
+                         String mensagem) throws IOException {
+
+        contar("agendavac.admissao.recusadas", classe, motivo);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSegundos));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(mensagem);
+    }
+
+    private void contar(String nome, ClasseEndpoint classe, String motivo) {
+        Counter.Builder contador = Counter.builder(nome).tag("classe", classe.name().toLowerCase());
+
+        if (motivo != null) contador.tag("motivo", motivo);
+
+        contador.register(registry).increment();
+    }
+
+    private String caminho(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private record ChaveBalde(String cliente, ClasseEndpoint classe) {
+    }
+
+    private record LimiteTaxa(double porSegundo, int rajada) {
+    }
+
+    private static class LiberarAoConcluir implements AsyncListener {
+
+        private final Runnable liberar;
+
+        LiberarAoConcluir(Runnable liberar) {
+            this.liberar = liberar;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar.run();
+        }
+
+        // um novo ciclo assíncrono descarta os listeners registrados
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
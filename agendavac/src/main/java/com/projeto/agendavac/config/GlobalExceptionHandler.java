@@ -1,6 +1,10 @@
 package com.projeto.agendavac.config;
 
 import com.projeto.agendavac.exception.AlergiaException;
+import com.projeto.agendavac.exception.ChaveIdempotenciaException;
+import com.projeto.agendavac.exception.FilaCheiaException;
+import com.projeto.agendavac.exception.VagaIndisponivelException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -57,4 +61,19 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleAlergiaException(AlergiaException e) {
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
     }
+
+    @ExceptionHandler(VagaIndisponivelException.class)
+    public ResponseEntity<String> handleVagaIndisponivelException(VagaIndisponivelException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(FilaCheiaException.class)
+    public ResponseEntity<String> handleFilaCheiaException(FilaCheiaException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(e.getMessage());
+    }
+
+    @ExceptionHandler(ChaveIdempotenciaException.class)
+    public ResponseEntity<String> handleChaveIdempotenciaException(ChaveIdempotenciaException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+    }
 }
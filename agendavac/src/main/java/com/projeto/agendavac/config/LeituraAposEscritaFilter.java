@@ -0,0 +1,82 @@
+package com.projeto.agendavac.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+ * Leitura após escrita com réplicas (perfil "replicas").
+ * Requisições que gravam (POST, PUT, PATCH, DELETE: agendar, darBaixa, ...) rodam inteiras no primário e devolvem
+ * o cookie agendavac-primario-ate; enquanto ele não vence (janela-apos-escrita-ms), as leituras do mesmo cliente
+ * também vão para o primário, o que cobre o atraso de replicação. Com janela 0 o cookie não é enviado e as
+ * leituras seguintes podem não ver a gravação.
+ * */
+
+@Component
+@Profile("replicas")
+public class LeituraAposEscritaFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "agendavac-primario-ate";
+
+    @Value("${agendavac.replicas.janela-apos-escrita-ms:5000}")
+    private long janelaAposEscritaMs;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        long agora = System.currentTimeMillis();
+        boolean escrita = !isLeitura(request.getMethod());
+
+        // o cookie vai antes do corpo; se a gravação falhar, o cliente só lê do primário por alguns segundos
+        if (escrita && janelaAposEscritaMs > 0) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(agora + janelaAposEscritaMs));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.ceil(janelaAposEscritaMs / 1000.0));
+            response.addCookie(cookie);
+        }
+
+        if (!escrita && !dentroDaJanela(request, agora)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RoteamentoDataSource.fixarPrimario();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoteamentoDataSource.liberarPrimario();
+        }
+    }
+
+    private boolean isLeitura(String metodo) {
+        return "GET".equals(metodo) || "HEAD".equals(metodo) || "OPTIONS".equals(metodo);
+    }
+
+    private boolean dentroDaJanela(HttpServletRequest request, long agora) {
+
+        if (request.getCookies() == null) return false;
+
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    // um valor além da janela não foi emitido aqui e não fixa o cliente no primário
+                    long primarioAte = Long.parseLong(cookie.getValue());
+                    return primarioAte > agora && primarioAte <= agora + janelaAposEscritaMs;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package com.projeto.agendavac.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Métricas expostas pelo Actuator em /actuator/prometheus:
+ *  - http.server.requests: latência por endpoint (Spring Boot);
+ *  - spring.data.repository.invocations: tempo e quantidade por método dos repositórios Spring Data (Spring Boot);
+ *  - hibernate.*: estatísticas de sessão, consultas e cache de segundo nível (hibernate-micrometer);
+ *  - agendavac.servico e agendavac.jdbc: métodos dos serviços e repositórios JDBC anotados com @Timed;
+ *  - agendavac.agendas.*, agendavac.agendamentos.recusados e agendavac.doses: ver MetricasAgenda.
+ * Os histogramas são ligados em application.properties (management.metrics.distribution.percentiles-histogram).
+ * */
+
+@Configuration
+public class MetricasConfig {
+
+    // necessário para que @Timed funcione fora dos controllers
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
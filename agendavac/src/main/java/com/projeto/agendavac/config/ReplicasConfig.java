@@ -0,0 +1,82 @@
+package com.projeto.agendavac.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Perfil "replicas": leituras em transações readOnly vão para as réplicas de agendavac.replicas.urls e as
+ * gravações (e tudo que roda fora de transação readOnly, como o Flyway) para o primário de spring.datasource.
+ * O DataSource usado pelo JPA e pelo JdbcTemplate é RoteamentoDataSource atrás de um LazyConnectionDataSourceProxy.
+ * A leitura após escrita é tratada por LeituraAposEscritaFilter; a fixação no primário segue para as threads das
+ * respostas assíncronas pelo TaskDecorator propagarPrimario.
+ *
+ * Cada réplica tem o seu pool (hikaricp.*{pool=replica-N}), criado e fechado junto com o RoteamentoDataSource.
+ * Com o perfil virtual-threads, o semáforo de conexões vale só para o primário; nas réplicas a espera é a do
+ * próprio Hikari (connection-timeout).
+ * Para testar em uma máquina: dois PostgreSQL (o segundo como réplica em streaming, porta 5433) e
+ * --spring.profiles.active=replicas; RoteamentoDataSourceTest faz o mesmo com dois bancos H2.
+ * */
+
+@Configuration
+@Profile("replicas")
+public class ReplicasConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource primario = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName("primario");
+        return primario;
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                                     @Value("${agendavac.replicas.urls}") List<String> urls,
+                                                     @Value("${agendavac.replicas.username}") String usuario,
+                                                     @Value("${agendavac.replicas.password}") String senha,
+                                                     @Value("${agendavac.replicas.maximo-conexoes:10}") int maximoConexoes,
+                                                     MeterRegistry registry) {
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url);
+            replica.setUsername(usuario);
+            replica.setPassword(senha);
+            replica.setMaximumPoolSize(maximoConexoes);
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(registry);
+            replicas.add(replica);
+        }
+
+        return new RoteamentoDataSource(primario, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+    }
+
+    // aplicado pelo Spring Boot ao applicationTaskExecutor (e pelo perfil virtual-threads ao executor dele), que
+    // escreve as respostas em fluxo: GET /agendas e as exportações continuam no primário dentro da janela
+    @Bean
+    public TaskDecorator propagarPrimario() {
+        return RoteamentoDataSource::propagarPrimario;
+    }
+}
@@ -0,0 +1,91 @@
+package com.projeto.agendavac.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Escolhe o banco de cada conexão: transações readOnly vão para as réplicas (em rodízio), todo o resto para o primário.
+ * Precisa estar atrás de um LazyConnectionDataSourceProxy: a conexão só é obtida no primeiro comando, quando
+ * a transação já foi marcada como readOnly (ver ReplicasConfig).
+ * Uma requisição pode ser fixada no primário (LeituraAposEscritaFilter) para ler o que acabou de gravar.
+ * */
+
+public class RoteamentoDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARIO = "primario";
+
+    private static final ThreadLocal<Boolean> primarioFixado = new ThreadLocal<>();
+
+    private final List<String> replicas = new ArrayList<>();
+    private final List<DataSource> dataSourcesReplicas;
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    public RoteamentoDataSource(DataSource primario, List<DataSource> replicas) {
+        this.dataSourcesReplicas = List.copyOf(replicas);
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+
+        for (int i = 0; i < replicas.size(); i++) {
+            String chave = "replica-" + i;
+            destinos.put(chave, replicas.get(i));
+            this.replicas.add(chave);
+        }
+
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    // vale para a thread atual até liberarPrimario
+    public static void fixarPrimario() {
+        primarioFixado.set(Boolean.TRUE);
+    }
+
+    public static void liberarPrimario() {
+        primarioFixado.remove();
+    }
+
+    // leva a fixação da thread que agenda a tarefa para a thread que a executa (StreamingResponseBody e outras
+    // respostas assíncronas do Spring MVC; ver ReplicasConfig.propagarPrimario)
+    public static Runnable propagarPrimario(Runnable tarefa) {
+
+        if (primarioFixado.get() == null) return tarefa;
+
+        return () -> {
+            fixarPrimario();
+            try {
+                tarefa.run();
+            } finally {
+                liberarPrimario();
+            }
+        };
+    }
+
+    // o primário é um bean próprio; as réplicas pertencem a este DataSource
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : dataSourcesReplicas) {
+            if (replica instanceof AutoCloseable fechavel)
+                fechavel.close();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        if (replicas.isEmpty() || primarioFixado.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return PRIMARIO;
+
+        return replicas.get(Math.floorMod(proxima.getAndIncrement(), replicas.size()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.projeto.agendavac.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class TarefasConfig {
+}
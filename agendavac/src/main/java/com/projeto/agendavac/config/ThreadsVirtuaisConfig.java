@@ -0,0 +1,75 @@
+package com.projeto.agendavac.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Perfil "virtual-threads": as requisições do Tomcat e as respostas assíncronas (StreamingResponseBody)
+ * passam a rodar em threads virtuais, uma por tarefa. Exige Java 21 em tempo de execução; o projeto
+ * continua compilando em Java 17, por isso o executor é obtido por reflexão.
+ *
+ * Como o número de threads deixa de limitar a concorrência, o acesso ao banco passa a ser limitado por
+ * um semáforo do tamanho do pool do Hikari (ConexoesLimitadasDataSource).
+ * */
+
+@Configuration
+@Profile("virtual-threads")
+public class ThreadsVirtuaisConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService executorThreadsVirtuais() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("O perfil virtual-threads exige Java 21 ou superior (executando em Java "
+                    + Runtime.version().feature() + ")");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Não foi possível criar o executor de threads virtuais", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> threadsVirtuaisTomcat(ExecutorService executorThreadsVirtuais) {
+        return protocolHandler -> protocolHandler.setExecutor(executorThreadsVirtuais);
+    }
+
+    // mesmo nome do executor padrão do Spring Boot, usado pelo Spring MVC nas requisições assíncronas
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService executorThreadsVirtuais,
+                                                     ObjectProvider<TaskDecorator> taskDecorator) {
+        TaskExecutorAdapter executor = new TaskExecutorAdapter(executorThreadsVirtuais);
+        // como o Spring Boot faz no executor padrão (com o perfil replicas, ReplicasConfig.propagarPrimario)
+        taskDecorator.ifUnique(executor::setTaskDecorator);
+        return executor;
+    }
+
+    @Bean
+    public static BeanPostProcessor limitarConexoes(
+            @Value("${agendavac.virtual-threads.espera-conexao-ms:30000}") long esperaConexaoMs) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // só os pools; os DataSources que apenas repassam (perfil replicas) já chegam a um pool limitado
+                if (bean instanceof HikariDataSource dataSource) {
+                    return new ConexoesLimitadasDataSource(dataSource, esperaConexaoMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,20 +1,37 @@
 package com.projeto.agendavac.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.projeto.agendavac.dto.AgendaResumo;
+import com.projeto.agendavac.dto.AgendamentoLoteItem;
+import com.projeto.agendavac.dto.PaginaAgendas;
+import com.projeto.agendavac.dto.ResultadoBaixa;
+import com.projeto.agendavac.dto.ResultadoLote;
 import com.projeto.agendavac.entity.Agenda;
 import com.projeto.agendavac.enums.Situacao;
 import com.projeto.agendavac.service.AgendaService;
+import com.projeto.agendavac.service.AgendamentoLoteService;
+import com.projeto.agendavac.service.IdempotenciaService;
+import com.projeto.agendavac.service.IdempotenciaService.RespostaIdempotente;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -27,28 +44,66 @@ public class AgendaController {
     @Autowired
     private AgendaService agendaService;
 
+    @Autowired
+    private AgendamentoLoteService agendamentoLoteService;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
-    @Operation(summary = "Agendar vacinação", description = "Cria agendas para uma vacinação considerando doses, periodicidade e intervalo da vacina.")
+    @Operation(summary = "Agendar vacinação", description = "Cria agendas para uma vacinação considerando doses, periodicidade e intervalo da vacina. Com o cabeçalho Idempotency-Key, a repetição da requisição devolve as agendas já criadas em vez de criar outras.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Agenda(s) criada(s) com sucesso."),
             @ApiResponse(responseCode = "404", description = "Usuário ou vacina não encontrada."),
-            @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos para a agenda.")
+            @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos para a agenda."),
+            @ApiResponse(responseCode = "409", description = "Não há vagas disponíveis no horário de uma ou mais doses."),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key já usado com outros parâmetros.")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<List<Agenda>> agendar(
+    public ResponseEntity<?> agendar(
             @RequestParam Long usuarioId,
             @RequestParam Long vacinaId,
             @RequestParam LocalDate dataInicial,
             @RequestParam String horaString,
-            @RequestParam(required = false) String observacoes) {
+            @RequestParam(required = false) String observacoes,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
 
         // Conversão de String para LocalTime
         LocalTime hora;
         hora = LocalTime.parse(horaString);
 
-        List<Agenda> agendas = agendaService.agendar(usuarioId, vacinaId, dataInicial, hora, observacoes);
+        if (chaveIdempotencia == null) {
+            List<Agenda> agendas = agendaService.agendar(usuarioId, vacinaId, dataInicial, hora, observacoes);
 
-        return ResponseEntity.ok(agendas);
+            return ResponseEntity.ok(agendas);
+        }
+
+        // repetição da mesma chave: devolve as agendas criadas na primeira requisição
+        RespostaIdempotente resposta = idempotenciaService.executar("agendas", chaveIdempotencia,
+                Arrays.asList(usuarioId, vacinaId, dataInicial, hora, observacoes), HttpStatus.OK.value(),
+                () -> agendaService.agendar(usuarioId, vacinaId, dataInicial, hora, observacoes));
+
+        return ResponseEntity.status(resposta.status())
+                .header(IdempotenciaService.CABECALHO_REPETIDA, Boolean.toString(resposta.repetida()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(resposta.json());
+    }
+
+    @PostMapping("/lote")
+    @Operation(summary = "Agendar vacinação em lote", description = "Agenda vários usuários de uma vez (campanhas). Os itens que não puderem ser agendados são devolvidos na lista de falhas, com o motivo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado. Verifique a lista de falhas: um item sem vaga no horário de alguma dose fica nela, em vez de recusar o lote com 409."),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou maior que o permitido.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<ResultadoLote> agendarEmLote(@RequestBody List<AgendamentoLoteItem> itens) {
+
+        ResultadoLote resultado = agendamentoLoteService.agendar(itens);
+
+        return ResponseEntity.ok(resultado);
     }
 
     @PutMapping("/{agendaId}/baixa")
@@ -67,37 +122,84 @@ public class AgendaController {
         return ResponseEntity.ok(agendaAtualizada);
     }
 
+    @PutMapping("/baixa")
+    @Operation(summary = "Dar baixa em agendas em lote", description = "Atualiza a situação de várias agendas para 'Realizado' ou 'Cancelado' de uma vez. Retorna o resultado de cada agenda; as não encontradas são indicadas com o motivo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado. Verifique o resultado de cada agenda."),
+            @ApiResponse(responseCode = "400", description = "Situação inválida, lote vazio ou maior que o permitido.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<List<ResultadoBaixa>> darBaixaEmLote(@RequestBody List<Long> agendaIds, @RequestParam Situacao situacao) {
+
+        List<ResultadoBaixa> resultados = agendaService.darBaixaEmLote(agendaIds, situacao);
+
+        return ResponseEntity.ok(resultados);
+    }
+
     @GetMapping("/usuario/{usuarioId}")
-    @Operation(summary = "Listar agendas por usuário", description = "Retorna todas as agendas associadas a um usuário específico.")
+    @Operation(summary = "Listar agendas por usuário", description = "Retorna o resumo das agendas associadas a um usuário específico. Os detalhes de cada agenda ficam em /agendas/{id}.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Agendas retornadas com sucesso."),
             @ApiResponse(responseCode = "404", description = "Usuário ou agendas não encontradas.")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<List<Agenda>> listarPorUsuario(@PathVariable Long usuarioId) {
+    public ResponseEntity<List<AgendaResumo>> listarPorUsuario(@PathVariable Long usuarioId) {
 
-        List<Agenda> agendas = agendaService.listarPorUsuario(usuarioId);
+        List<AgendaResumo> agendas = agendaService.listarPorUsuario(usuarioId);
 
         return ResponseEntity.ok(agendas);
     }
 
     @GetMapping
-    @Operation(summary = "Buscar todas as agendas", description = "Retorna todas as agendas cadastradas")
+    @Operation(summary = "Buscar todas as agendas", description = "Retorna o resumo de todas as agendas cadastradas (os detalhes ficam em /agendas/{id}). A lista é enviada em fluxo, à medida que é lida do banco.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Agendas retornadas com sucesso"),
             @ApiResponse(responseCode = "404", description = "Nenhuma agenda encontrada")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<?> buscarTodas() {
+    public ResponseEntity<StreamingResponseBody> buscarTodas() {
 
-        try {
-            List<Agenda> agendas = agendaService.buscarTodas();
+        // o tipo declarado precisa ser StreamingResponseBody para o Spring escrever o corpo em fluxo;
+        // a lista vazia vira 404 pelo GlobalExceptionHandler
+        if (!agendaService.existeAgenda())
+            throw new NoSuchElementException("Nenhuma agenda encontrada.");
 
-            return ResponseEntity.ok(agendas);
+        // o array JSON é escrito agenda por agenda, sem montar a lista inteira em memória
+        StreamingResponseBody corpo = saida -> {
+            ObjectWriter escritor = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-        }
+            try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+                gerador.writeStartArray();
+
+                agendaService.percorrerTodas(agenda -> {
+                    try {
+                        escritor.writeValue(gerador, agenda);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+                gerador.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(corpo);
+    }
+
+    @GetMapping("/pagina")
+    @Operation(summary = "Buscar agendas paginadas", description = "Retorna uma página de agendas ordenadas por data e ID. Para a próxima página, informe o cursor retornado na página anterior.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor ou tamanho de página inválido")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<PaginaAgendas> buscarPagina(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int tamanho) {
+
+        PaginaAgendas pagina = agendaService.buscarPagina(cursor, tamanho);
+
+        return ResponseEntity.ok(pagina);
     }
 
     @GetMapping("/situacao/{situacao}")
@@ -111,7 +213,7 @@ public class AgendaController {
 
         try {
 
-            List<Agenda> agendas = agendaService.buscarPorSituacao(situacao);
+            List<AgendaResumo> agendas = agendaService.buscarPorSituacao(situacao);
 
             return ResponseEntity.ok(agendas);
 
@@ -1,17 +1,22 @@
 package com.projeto.agendavac.controller;
 
 import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.enums.Catalogo;
 import com.projeto.agendavac.service.AlergiaService;
+import com.projeto.agendavac.service.CatalogosEmCache;
+import com.projeto.agendavac.service.CatalogosEmCache.CorpoCatalogo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
 @RestController
@@ -22,6 +27,9 @@ public class AlergiaController {
     @Autowired
     private AlergiaService alergiaService;
 
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
     @PostMapping
     @Operation(summary = "Cadastrar nova alergia", description = "Cadastra uma nova alergia no sistema")
     @ApiResponses(value = {
@@ -41,21 +49,30 @@ public class AlergiaController {
     }
 
     @GetMapping
-    @Operation(summary = "Listar todas as alergias", description = "Retorna uma lista de todas as alergias cadastradas")
+    @Operation(summary = "Listar todas as alergias", description = "Retorna uma lista de todas as alergias cadastradas. A resposta traz um ETag; com If-None-Match igual a ele, a resposta é 304 sem corpo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de alergias retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Catálogo não mudou desde o ETag informado"),
             @ApiResponse(responseCode = "204", description = "Nenhuma alergia cadastrada")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<?> listarTodas() {
+    public ResponseEntity<?> listarTodas(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // o cliente já tem a versão atual: 304 sem consultar o catálogo
+        if (catalogosEmCache.naoModificado(Catalogo.ALERGIAS, ifNoneMatch))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalogosEmCache.etag(Catalogo.ALERGIAS)).build();
 
-        List<Alergia> alergias = alergiaService.listarTodas();
+        CorpoCatalogo corpo = catalogosEmCache.corpo(Catalogo.ALERGIAS, alergiaService::listarTodas);
 
-        if (alergias.isEmpty()) {
+        if (corpo == null) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Nenhuma alergia cadastrada.");
         }
 
-        return ResponseEntity.ok(alergias);
+        return ResponseEntity.ok()
+                .eTag(corpo.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo.json());
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,48 @@
+package com.projeto.agendavac.controller;
+
+import com.projeto.agendavac.dto.EstatisticaCache;
+import com.projeto.agendavac.service.CacheService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/cache")
+@Tag(name = "Cache", description = "Cache de segundo nível dos catálogos")
+public class CacheController {
+
+    @Autowired
+    private CacheService cacheService;
+
+    @GetMapping("/estatisticas")
+    @Operation(summary = "Estatísticas do cache", description = "Retorna acertos, falhas, inserções e elementos em memória de cada região do cache dos catálogos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<List<EstatisticaCache>> buscarEstatisticas() {
+
+        List<EstatisticaCache> estatisticas = cacheService.buscarEstatisticas();
+
+        return ResponseEntity.ok(estatisticas);
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Limpar cache", description = "Remove todas as entradas do cache de segundo nível.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache limpo com sucesso.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<String> limpar() {
+
+        cacheService.limpar();
+
+        return ResponseEntity.ok("Cache limpo com sucesso.");
+    }
+}
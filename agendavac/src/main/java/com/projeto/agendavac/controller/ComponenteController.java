@@ -1,6 +1,9 @@
 package com.projeto.agendavac.controller;
 
 import com.projeto.agendavac.entity.Componente;
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.service.CatalogosEmCache;
+import com.projeto.agendavac.service.CatalogosEmCache.CorpoCatalogo;
 import com.projeto.agendavac.service.ComponenteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -8,11 +11,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
 @RestController
@@ -23,6 +28,9 @@ public class ComponenteController {
     @Autowired
     private ComponenteService componenteService;
 
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
     @PostMapping
     @Operation(summary = "Cadastrar novo componente", description = "Cadastra um novo componente no sistema")
     @ApiResponses(value = {
@@ -44,21 +52,30 @@ public class ComponenteController {
     }
 
     @GetMapping
-    @Operation(summary = "Listar todos os componentes", description = "Retorna uma lista de todos os componentes cadastrados")
+    @Operation(summary = "Listar todos os componentes", description = "Retorna uma lista de todos os componentes cadastrados. A resposta traz um ETag; com If-None-Match igual a ele, a resposta é 304 sem corpo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de componentes retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Catálogo não mudou desde o ETag informado"),
             @ApiResponse(responseCode = "204", description = "Nenhum componente cadastrado")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<?> listarTodos() {
+    public ResponseEntity<?> listarTodos(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // o cliente já tem a versão atual: 304 sem consultar o catálogo
+        if (catalogosEmCache.naoModificado(Catalogo.COMPONENTES, ifNoneMatch))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalogosEmCache.etag(Catalogo.COMPONENTES)).build();
 
-        List<Componente> componentes = componenteService.listarTodos();
+        CorpoCatalogo corpo = catalogosEmCache.corpo(Catalogo.COMPONENTES, componenteService::listarTodos);
 
-        if (componentes.isEmpty()) {
+        if (corpo == null) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Nenhum componente cadastrado.");
         }
 
-        return ResponseEntity.ok(componentes);
+        return ResponseEntity.ok()
+                .eTag(corpo.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo.json());
     }
 
     @GetMapping("/{id}")
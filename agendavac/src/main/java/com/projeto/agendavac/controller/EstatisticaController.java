@@ -0,0 +1,90 @@
+package com.projeto.agendavac.controller;
+
+import com.projeto.agendavac.dto.EstatisticasAgendas;
+import com.projeto.agendavac.dto.TaxasReacoes;
+import com.projeto.agendavac.enums.AgrupamentoReacao;
+import com.projeto.agendavac.enums.PeriodoAgregacao;
+import com.projeto.agendavac.service.EstatisticaAgendaService;
+import com.projeto.agendavac.service.EstatisticaReacaoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/estatisticas")
+@Tag(name = "Estatísticas", description = "Contadores de agendas e taxas de reação para o painel")
+public class EstatisticaController {
+
+    @Autowired
+    private EstatisticaAgendaService estatisticaAgendaService;
+
+    @Autowired
+    private EstatisticaReacaoService estatisticaReacaoService;
+
+    @GetMapping("/agendas")
+    @Operation(summary = "Estatísticas de agendas", description = "Retorna os totais por situação e os contadores por dia, vacina e situação no período (data da dose). Os valores vêm dos contadores mantidos a cada alteração, sem consultar as agendas.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso."),
+            @ApiResponse(responseCode = "400", description = "Período inválido.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<EstatisticasAgendas> buscar(
+            @RequestParam LocalDate dataInicial,
+            @RequestParam LocalDate dataFinal,
+            @RequestParam(required = false) Long vacinaId) {
+
+        EstatisticasAgendas estatisticas = estatisticaAgendaService.buscar(dataInicial, dataFinal, vacinaId);
+
+        return ResponseEntity.ok(estatisticas);
+    }
+
+    @PostMapping("/agendas/reconstrucao")
+    @Operation(summary = "Reconstruir estatísticas", description = "Recalcula todos os contadores a partir das agendas, um período de dias por vez (agendavac.estatisticas.reconstrucao.dias-por-transacao). Também é executado diariamente (agendavac.estatisticas.reconstrucao-cron).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contadores recalculados.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<String> reconstruir() {
+
+        int contadores = estatisticaAgendaService.reconstruir();
+
+        return ResponseEntity.ok("Estatísticas reconstruídas: " + contadores + " contadores.");
+    }
+
+    @GetMapping("/reacoes")
+    @Operation(summary = "Taxas de reação", description = "Retorna reações, doses com reação e doses realizadas por vacina ou por componente, no período inteiro ou por dia, semana ou mês (data da dose). A taxa é a fração das doses realizadas que tiveram ao menos uma reação. O resumo é atualizado a cada poucos segundos (agendavac.reacoes.resumo.atualizacao-ms).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Taxas retornadas com sucesso."),
+            @ApiResponse(responseCode = "400", description = "Período inválido.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<TaxasReacoes> buscarTaxasReacoes(
+            @RequestParam LocalDate dataInicial,
+            @RequestParam LocalDate dataFinal,
+            @RequestParam(defaultValue = "VACINA") AgrupamentoReacao agrupamento,
+            @RequestParam(defaultValue = "TOTAL") PeriodoAgregacao periodo) {
+
+        TaxasReacoes taxas = estatisticaReacaoService.buscar(dataInicial, dataFinal, agrupamento, periodo);
+
+        return ResponseEntity.ok(taxas);
+    }
+
+    @PostMapping("/reacoes/reconstrucao")
+    @Operation(summary = "Reconstruir resumo de reações", description = "Recalcula todo o resumo de reações a partir das reações gravadas. Também é executado diariamente, junto com as estatísticas de agendas.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumo recalculado.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<String> reconstruirReacoes() {
+
+        int linhas = estatisticaReacaoService.reconstruir();
+
+        return ResponseEntity.ok("Resumo de reações reconstruído: " + linhas + " linhas.");
+    }
+}
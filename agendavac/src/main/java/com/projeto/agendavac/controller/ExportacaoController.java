@@ -0,0 +1,84 @@
+package com.projeto.agendavac.controller;
+
+import com.projeto.agendavac.dto.FiltroExportacao;
+import com.projeto.agendavac.enums.FormatoArquivo;
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.service.ExportacaoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/exportacoes")
+@Tag(name = "Exportações", description = "Exportação completa de agendas e reações em CSV ou NDJSON")
+public class ExportacaoController {
+
+    @Autowired
+    private ExportacaoService exportacaoService;
+
+    @GetMapping("/agendas")
+    @Operation(summary = "Exportar agendas", description = "Envia as agendas em fluxo, ordenadas por data e ID. O período é aplicado à data da agenda. Com compactar=true a saída é gzip.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportação enviada com sucesso."),
+            @ApiResponse(responseCode = "400", description = "Período ou parâmetros inválidos.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<StreamingResponseBody> exportarAgendas(
+            @RequestParam(defaultValue = "CSV") FormatoArquivo formato,
+            @RequestParam(required = false) LocalDate dataInicial,
+            @RequestParam(required = false) LocalDate dataFinal,
+            @RequestParam(required = false) Situacao situacao,
+            @RequestParam(defaultValue = "false") boolean compactar) {
+
+        FiltroExportacao filtro = new FiltroExportacao(dataInicial, dataFinal, situacao);
+
+        StreamingResponseBody corpo = saida -> exportacaoService.exportarAgendas(filtro, formato, compactar, saida);
+
+        return resposta("agendas", formato, compactar, corpo);
+    }
+
+    @GetMapping("/reacoes")
+    @Operation(summary = "Exportar reações", description = "Envia as reações em fluxo, ordenadas por data da reação e ID. O período é aplicado à data da reação e a situação à agenda da reação. Com compactar=true a saída é gzip.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportação enviada com sucesso."),
+            @ApiResponse(responseCode = "400", description = "Período ou parâmetros inválidos.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<StreamingResponseBody> exportarReacoes(
+            @RequestParam(defaultValue = "CSV") FormatoArquivo formato,
+            @RequestParam(required = false) LocalDate dataInicial,
+            @RequestParam(required = false) LocalDate dataFinal,
+            @RequestParam(required = false) Situacao situacao,
+            @RequestParam(defaultValue = "false") boolean compactar) {
+
+        FiltroExportacao filtro = new FiltroExportacao(dataInicial, dataFinal, situacao);
+
+        StreamingResponseBody corpo = saida -> exportacaoService.exportarReacoes(filtro, formato, compactar, saida);
+
+        return resposta("reacoes", formato, compactar, corpo);
+    }
+
+    private ResponseEntity<StreamingResponseBody> resposta(String nome, FormatoArquivo formato, boolean compactar,
+                                                           StreamingResponseBody corpo) {
+
+        String arquivo = nome + "." + formato.getExtensao() + (compactar ? ".gz" : "");
+        MediaType tipo = compactar
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(formato.getTipoConteudo() + ";charset=UTF-8");
+
+        return ResponseEntity.ok()
+                .contentType(tipo)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(arquivo).build().toString())
+                .body(corpo);
+    }
+}
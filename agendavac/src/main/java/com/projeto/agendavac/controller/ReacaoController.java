@@ -1,6 +1,12 @@
 package com.projeto.agendavac.controller;
 
+import com.projeto.agendavac.dto.NovaReacao;
+import com.projeto.agendavac.dto.ProtocoloReacao;
+import com.projeto.agendavac.dto.ReacaoResumo;
 import com.projeto.agendavac.entity.Reacao;
+import com.projeto.agendavac.service.IdempotenciaService;
+import com.projeto.agendavac.service.IdempotenciaService.RespostaIdempotente;
+import com.projeto.agendavac.service.IngestaoReacaoService;
 import com.projeto.agendavac.service.ReacaoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -8,6 +14,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,22 +30,85 @@ public class ReacaoController {
     @Autowired
     private ReacaoService reacaoService;
 
+    @Autowired
+    private IngestaoReacaoService ingestaoReacaoService;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
     @PostMapping
-    @Operation(summary = "Registrar reação", description = "Registra uma reação a uma vacina de uma agenda de um usuário.")
+    @Operation(summary = "Registrar reação", description = "Registra uma reação a uma vacina de uma agenda de um usuário. Com o cabeçalho Idempotency-Key, a repetição da requisição devolve a reação já registrada.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Reação registrada com sucesso."),
             @ApiResponse(responseCode = "404", description = "Usuário ou agenda não encontrados."),
-            @ApiResponse(responseCode = "400", description = "Não é possível inserir reação em uma agenda não realizada.")
+            @ApiResponse(responseCode = "400", description = "Não é possível inserir reação em uma agenda não realizada."),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key já usado com outros parâmetros.")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<Reacao> incluirReacao(
+    public ResponseEntity<?> incluirReacao(
+            @RequestParam Long agendaId,
+            @RequestParam String descricao,
+            @RequestParam LocalDate dataReacao,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+
+        if (chaveIdempotencia == null) {
+            Reacao reacao = reacaoService.incluirReacao(agendaId, descricao, dataReacao);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(reacao);
+        }
+
+        RespostaIdempotente resposta = idempotenciaService.executar("reacoes", chaveIdempotencia,
+                List.of(agendaId, descricao, dataReacao), HttpStatus.CREATED.value(),
+                () -> reacaoService.incluirReacao(agendaId, descricao, dataReacao));
+
+        return ResponseEntity.status(resposta.status())
+                .header(IdempotenciaService.CABECALHO_REPETIDA, Boolean.toString(resposta.repetida()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(resposta.json());
+    }
+
+    @PostMapping("/assincrona")
+    @Operation(summary = "Registrar reação de forma assíncrona", description = "Recebe a reação para gravação posterior e devolve um protocolo para acompanhamento. A agenda é verificada no momento da gravação.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reação recebida. Acompanhe pelo protocolo."),
+            @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos para a reação."),
+            @ApiResponse(responseCode = "503", description = "Fila de reações cheia. Tente novamente após o tempo indicado em Retry-After.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<ProtocoloReacao> incluirReacaoAssincrona(
             @RequestParam Long agendaId,
             @RequestParam String descricao,
             @RequestParam LocalDate dataReacao) {
 
-        Reacao reacao = reacaoService.incluirReacao(agendaId, descricao, dataReacao);
+        ProtocoloReacao protocolo = ingestaoReacaoService.enviar(new NovaReacao(agendaId, descricao, dataReacao));
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(protocolo);
+    }
+
+    @PostMapping("/lote")
+    @Operation(summary = "Registrar reações em lote", description = "Recebe várias reações para gravação assíncrona. Cada reação recebe um protocolo; as inválidas ou que não couberem na fila já voltam rejeitadas, com o motivo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Lote recebido. Verifique a situação de cada protocolo."),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou maior que o permitido.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<List<ProtocoloReacao>> incluirReacoesEmLote(@RequestBody List<NovaReacao> reacoes) {
+
+        List<ProtocoloReacao> protocolos = ingestaoReacaoService.enviar(reacoes);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(protocolos);
+    }
+
+    @GetMapping("/protocolos/{protocolo}")
+    @Operation(summary = "Consultar protocolo de reação", description = "Retorna a situação de uma reação enviada de forma assíncrona (pendente, gravada, rejeitada ou falha).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Protocolo encontrado."),
+            @ApiResponse(responseCode = "404", description = "Protocolo não encontrado ou já descartado.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<ProtocoloReacao> consultarProtocolo(@PathVariable String protocolo) {
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(reacao);
+        return ResponseEntity.ok(ingestaoReacaoService.consultar(protocolo));
     }
 
     @GetMapping
@@ -48,9 +118,9 @@ public class ReacaoController {
             @ApiResponse(responseCode = "404", description = "Nenhuma reação encontrada.")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<List<Reacao>> listarTodas() {
+    public ResponseEntity<List<ReacaoResumo>> listarTodas() {
 
-        List<Reacao> reacoes = reacaoService.listarTodas();
+        List<ReacaoResumo> reacoes = reacaoService.listarTodas();
 
         return ResponseEntity.ok(reacoes);
     }
@@ -62,9 +132,9 @@ public class ReacaoController {
             @ApiResponse(responseCode = "404", description = "Nenhuma reação encontrada para a agenda.")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<List<Reacao>> buscarPorAgenda(@PathVariable Long agendaId) {
+    public ResponseEntity<List<ReacaoResumo>> buscarPorAgenda(@PathVariable Long agendaId) {
 
-        List<Reacao> reacoes = reacaoService.buscarPorAgenda(agendaId);
+        List<ReacaoResumo> reacoes = reacaoService.buscarPorAgenda(agendaId);
 
         return ResponseEntity.ok(reacoes);
     }
@@ -76,9 +146,9 @@ public class ReacaoController {
             @ApiResponse(responseCode = "404", description = "Usuário ou reações não encontradas.")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<List<Reacao>> buscarPorUsuario(@PathVariable Long usuarioId) {
+    public ResponseEntity<List<ReacaoResumo>> buscarPorUsuario(@PathVariable Long usuarioId) {
 
-        List<Reacao> reacoes = reacaoService.buscarPorUsuario(usuarioId);
+        List<ReacaoResumo> reacoes = reacaoService.buscarPorUsuario(usuarioId);
 
         return ResponseEntity.ok(reacoes);
     }
@@ -1,7 +1,11 @@
 package com.projeto.agendavac.controller;
 
+import com.projeto.agendavac.dto.ResultadoImportacao;
+import com.projeto.agendavac.dto.UsuarioResumo;
 import com.projeto.agendavac.entity.Usuario;
 import com.projeto.agendavac.entity.UsuarioAlergia;
+import com.projeto.agendavac.enums.FormatoArquivo;
+import com.projeto.agendavac.service.ImportacaoUsuarioService;
 import com.projeto.agendavac.service.UsuarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -10,9 +14,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -24,6 +32,9 @@ public class UsuarioController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private ImportacaoUsuarioService importacaoUsuarioService;
+
     @PostMapping
     @Operation(summary = "Cadastrar novo usuário", description = "Cadastra um novo usuário no sistema, com ou sem alergias associadas")
     @ApiResponses(value = {
@@ -38,8 +49,31 @@ public class UsuarioController {
         return ResponseEntity.status(HttpStatus.CREATED).body(usuarioNovo);
     }
 
+    @PostMapping(value = "/importacao", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar usuários", description = "Importa um cadastro de usuários em CSV (com cabeçalho) ou NDJSON. Sem o formato, ele é deduzido da extensão do arquivo (.ndjson ou .jsonl; os demais são CSV). As linhas inválidas são devolvidas no relatório de rejeições.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Arquivo processado. Verifique o relatório de rejeições."),
+            @ApiResponse(responseCode = "400", description = "Arquivo vazio ou cabeçalho sem as colunas obrigatórias.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<ResultadoImportacao> importar(
+            @RequestParam MultipartFile arquivo,
+            @RequestParam(required = false) FormatoArquivo formato) throws IOException {
+
+        if (formato == null) {
+            String nome = arquivo.getOriginalFilename() == null ? "" : arquivo.getOriginalFilename().toLowerCase();
+            formato = nome.endsWith(".ndjson") || nome.endsWith(".jsonl") ? FormatoArquivo.NDJSON : FormatoArquivo.CSV;
+        }
+
+        try (InputStream conteudo = arquivo.getInputStream()) {
+            ResultadoImportacao resultado = importacaoUsuarioService.importar(conteudo, formato);
+
+            return ResponseEntity.ok(resultado);
+        }
+    }
+
     @GetMapping
-    @Operation(summary = "Listar todos os usuários", description = "Retorna uma lista de todos os usuários cadastrados no sistema")
+    @Operation(summary = "Listar todos os usuários", description = "Retorna uma lista resumida (sem endereço e alergias) de todos os usuários cadastrados no sistema. O cadastro completo fica em /usuarios/{id}.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Usuários listados com sucesso"),
             @ApiResponse(responseCode = "204", description = "Nenhum usuário encontrado")
@@ -48,7 +82,7 @@ public class UsuarioController {
     public ResponseEntity<?> listarTodos() {
 
         try {
-            List<Usuario> usuarios = usuarioService.listarTodos();
+            List<UsuarioResumo> usuarios = usuarioService.listarTodos();
 
             return ResponseEntity.ok(usuarios);
 
@@ -78,16 +112,40 @@ public class UsuarioController {
     }
 
     @GetMapping("/nome/{nome}")
-    @Operation(summary = "Buscar usuários por nome", description = "Retorna uma lista de usuários cujo nome contenha a sequência fornecida")
+    @Operation(summary = "Buscar usuários por nome", description = "Retorna os primeiros 100 usuários cujo nome contenha a sequência fornecida (mínimo de 3 caracteres), sem diferenciar maiúsculas e acentos, ordenados por relevância. Para as próximas páginas, use /usuarios/busca.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Usuários encontrados com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Nome com menos de 3 caracteres"),
             @ApiResponse(responseCode = "404", description = "Nenhum usuário encontrado com o nome fornecido")
     })
     @CrossOrigin(origins = "*")
     public ResponseEntity<?> buscarPorNome(@PathVariable String nome) {
 
         try {
-            List<Usuario> usuarios = usuarioService.buscarPorNome(nome);
+            List<UsuarioResumo> usuarios = usuarioService.buscarPorNome(nome);
+
+            return ResponseEntity.ok(usuarios);
+
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/busca")
+    @Operation(summary = "Buscar usuários por nome (paginado)", description = "Busca por parte do nome (mínimo de 3 caracteres), sem diferenciar maiúsculas e acentos. Nomes que começam com o termo vêm primeiro, depois os mais parecidos; empates saem em ordem de ID. A primeira página é 0 e só os primeiros " + UsuarioService.MAXIMO_RESULTADOS + " usuários encontrados podem ser paginados.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Usuários encontrados com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Termo curto demais, paginação inválida ou além dos primeiros resultados"),
+            @ApiResponse(responseCode = "404", description = "Nenhum usuário encontrado na página")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<?> buscar(
+            @RequestParam String nome,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamanho) {
+
+        try {
+            List<UsuarioResumo> usuarios = usuarioService.buscarPorNome(nome, pagina, tamanho);
 
             return ResponseEntity.ok(usuarios);
 
@@ -1,6 +1,9 @@
 package com.projeto.agendavac.controller;
 
 import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.service.CatalogosEmCache;
+import com.projeto.agendavac.service.CatalogosEmCache.CorpoCatalogo;
 import com.projeto.agendavac.service.VacinaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -8,11 +11,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
 @RestController
@@ -23,6 +28,9 @@ public class VacinaController {
     @Autowired
     private VacinaService vacinaService;
 
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
     @PostMapping
     @Operation(summary = "Cadastrar nova vacina", description = "Cadastra uma nova vacina no sistema")
     @ApiResponses(value = {
@@ -44,20 +52,30 @@ public class VacinaController {
     }
 
     @GetMapping
-    @Operation(summary = "Listar todas as vacinas", description = "Retorna uma lista de todas as vacinas cadastradas")
+    @Operation(summary = "Listar todas as vacinas", description = "Retorna uma lista de todas as vacinas cadastradas. A resposta traz um ETag; com If-None-Match igual a ele, a resposta é 304 sem corpo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de vacinas retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Catálogo não mudou desde o ETag informado"),
             @ApiResponse(responseCode = "204", description = "Nenhuma vacina cadastrada")
     })
     @CrossOrigin(origins = "*")
-    public ResponseEntity<?> listarTodas() {
-        List<Vacina> vacinas = vacinaService.listarTodas();
+    public ResponseEntity<?> listarTodas(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // o cliente já tem a versão atual: 304 sem consultar o catálogo
+        if (catalogosEmCache.naoModificado(Catalogo.VACINAS, ifNoneMatch))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalogosEmCache.etag(Catalogo.VACINAS)).build();
+
+        CorpoCatalogo corpo = catalogosEmCache.corpo(Catalogo.VACINAS, vacinaService::listarTodas);
 
-        if (vacinas.isEmpty()) {
+        if (corpo == null) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Nenhuma vacina cadastrada.");
         }
 
-        return ResponseEntity.ok(vacinas);
+        return ResponseEntity.ok()
+                .eTag(corpo.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo.json());
     }
 
     @GetMapping("/{id}")
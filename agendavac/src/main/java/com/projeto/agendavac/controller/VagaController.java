@@ -0,0 +1,57 @@
+package com.projeto.agendavac.controller;
+
+import com.projeto.agendavac.dto.VagaDisponivel;
+import com.projeto.agendavac.entity.VagaHorario;
+import com.projeto.agendavac.service.VagaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/vagas")
+@Tag(name = "Vagas", description = "Capacidade de atendimento por dia e horário")
+public class VagaController {
+
+    @Autowired
+    private VagaService vagaService;
+
+    @GetMapping
+    @Operation(summary = "Listar vagas do dia", description = "Retorna os horários do dia com capacidade, vagas ocupadas e disponíveis. Horários ainda sem agendamento aparecem com a capacidade padrão.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vagas retornadas com sucesso.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<List<VagaDisponivel>> listar(
+            @RequestParam LocalDate data,
+            @RequestParam(defaultValue = "false") boolean somenteComVagas) {
+
+        List<VagaDisponivel> vagas = vagaService.listarDisponiveis(data, somenteComVagas);
+
+        return ResponseEntity.ok(vagas);
+    }
+
+    @PutMapping
+    @Operation(summary = "Definir capacidade", description = "Define a capacidade de um horário em um dia. A capacidade não pode ser menor que as vagas já ocupadas.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Capacidade definida com sucesso."),
+            @ApiResponse(responseCode = "400", description = "Capacidade negativa ou menor que as vagas ocupadas.")
+    })
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<VagaHorario> definirCapacidade(
+            @RequestParam LocalDate data,
+            @RequestParam String hora,
+            @RequestParam int capacidade) {
+
+        VagaHorario vaga = vagaService.definirCapacidade(data, LocalTime.parse(hora), capacidade);
+
+        return ResponseEntity.ok(vaga);
+    }
+}
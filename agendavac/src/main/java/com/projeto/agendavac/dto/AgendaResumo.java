@@ -0,0 +1,24 @@
+package com.projeto.agendavac.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.projeto.agendavac.enums.Situacao;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/*
+ * Agenda nas listagens: só as colunas da agenda e o nome do usuário e o título da vacina, lidos em uma única consulta.
+ * A agenda completa (usuário com alergias, vacina com componentes e reações) fica em GET /agendas/{id}.
+ * */
+
+public record AgendaResumo(Long id,
+                           LocalDate data,
+                           @JsonFormat(pattern = "HH:mm") @Schema(type = "string", format = "HH:mm", example = "17:15") LocalTime hora,
+                           Situacao situacao,
+                           LocalDate dataSituacao,
+                           Long usuarioId,
+                           String usuarioNome,
+                           Long vacinaId,
+                           String vacinaTitulo) {
+}
@@ -0,0 +1,21 @@
+package com.projeto.agendavac.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/*
+ * Um agendamento dentro de um lote (campanhas de vacinação em massa).
+ * */
+
+public record AgendamentoLoteItem(
+        Long usuarioId,
+        Long vacinaId,
+        LocalDate dataInicial,
+        @JsonFormat(pattern = "HH:mm")
+        @Schema(type = "string", format = "HH:mm", example = "08:30")
+        LocalTime hora,
+        String observacoes) {
+}
@@ -0,0 +1,35 @@
+package com.projeto.agendavac.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+ * Posição da última agenda de uma página, usada na paginação por cursor (keyset em data + id).
+ * Para o cliente o cursor é opaco: basta reenviá-lo para obter a página seguinte.
+ * */
+
+public record CursorAgenda(LocalDate data, Long id) {
+
+    public String codificar() {
+        String valor = data + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorAgenda decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+
+            if (partes.length != 2)
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+
+            return new CursorAgenda(LocalDate.parse(partes[0]), Long.parseLong(partes[1]));
+
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException também é uma IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
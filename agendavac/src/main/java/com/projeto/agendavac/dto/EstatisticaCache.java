@@ -0,0 +1,9 @@
+package com.projeto.agendavac.dto;
+
+/*
+ * Estatísticas de uma região do cache de segundo nível.
+ * elementosEmMemoria é -1 quando o provedor de cache não informa esse valor.
+ * */
+
+public record EstatisticaCache(String regiao, long acertos, long falhas, long insercoes, long elementosEmMemoria) {
+}
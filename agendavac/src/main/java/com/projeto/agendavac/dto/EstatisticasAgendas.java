@@ -0,0 +1,12 @@
+package com.projeto.agendavac.dto;
+
+import com.projeto.agendavac.entity.EstatisticaAgenda;
+import com.projeto.agendavac.enums.Situacao;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public record EstatisticasAgendas(LocalDate dataInicial, LocalDate dataFinal, Long vacinaId,
+                                  Map<Situacao, Long> totais, List<EstatisticaAgenda> porDia) {
+}
@@ -0,0 +1,8 @@
+package com.projeto.agendavac.dto;
+
+/*
+ * Item do lote que não foi agendado. O índice é a posição do item na lista enviada (a partir de 0).
+ * */
+
+public record FalhaLote(int indice, Long usuarioId, Long vacinaId, String motivo) {
+}
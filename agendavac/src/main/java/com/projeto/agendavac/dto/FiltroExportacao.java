@@ -0,0 +1,14 @@
+package com.projeto.agendavac.dto;
+
+import com.projeto.agendavac.enums.Situacao;
+
+import java.time.LocalDate;
+
+// Todos os campos são opcionais; um campo nulo não filtra
+public record FiltroExportacao(LocalDate dataInicial, LocalDate dataFinal, Situacao situacao) {
+
+    public FiltroExportacao {
+        if (dataInicial != null && dataFinal != null && dataInicial.isAfter(dataFinal))
+            throw new IllegalArgumentException("A data inicial não pode ser posterior à data final.");
+    }
+}
@@ -0,0 +1,17 @@
+package com.projeto.agendavac.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// o id do lembrete identifica o envio: um canal pode usá-lo para descartar uma repetição após falha do nó
+public record LembreteDose(Long lembreteId,
+                           int tentativa,
+                           Long agendaId,
+                           LocalDate data,
+                           @JsonFormat(pattern = "HH:mm") LocalTime hora,
+                           Long usuarioId,
+                           String usuarioNome,
+                           String vacinaTitulo) {
+}
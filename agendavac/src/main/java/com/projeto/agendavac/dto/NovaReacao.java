@@ -0,0 +1,6 @@
+package com.projeto.agendavac.dto;
+
+import java.time.LocalDate;
+
+public record NovaReacao(Long agendaId, String descricao, LocalDate dataReacao) {
+}
@@ -0,0 +1,10 @@
+package com.projeto.agendavac.dto;
+
+import java.util.List;
+
+/*
+ * Página de agendas. Quando proximoCursor é nulo, não há mais agendas a buscar.
+ * */
+
+public record PaginaAgendas(List<AgendaResumo> itens, String proximoCursor) {
+}
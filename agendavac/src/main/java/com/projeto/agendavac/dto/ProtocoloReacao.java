@@ -0,0 +1,11 @@
+package com.projeto.agendavac.dto;
+
+import com.projeto.agendavac.enums.SituacaoProtocolo;
+
+/*
+ * Acompanhamento de uma reação enviada para gravação assíncrona.
+ * O id da reação só é preenchido depois de gravada; o motivo, quando rejeitada ou em caso de falha.
+ * */
+
+public record ProtocoloReacao(String protocolo, SituacaoProtocolo situacao, Long reacaoId, String motivo) {
+}
@@ -0,0 +1,8 @@
+package com.projeto.agendavac.dto;
+
+/*
+ * Linha do arquivo que não foi importada. A numeração começa em 1 e conta o cabeçalho do CSV.
+ * */
+
+public record RejeicaoImportacao(long linha, String motivo) {
+}
@@ -0,0 +1,10 @@
+package com.projeto.agendavac.dto;
+
+import com.projeto.agendavac.enums.Situacao;
+
+/*
+ * Resultado da baixa de uma agenda do lote. Quando a agenda não é atualizada, o motivo é informado.
+ * */
+
+public record ResultadoBaixa(Long agendaId, boolean atualizada, Situacao situacaoAnterior, String motivo) {
+}
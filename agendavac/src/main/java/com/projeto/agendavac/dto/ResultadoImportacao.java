@@ -0,0 +1,7 @@
+package com.projeto.agendavac.dto;
+
+import java.util.List;
+
+// rejeicoes traz no máximo as primeiras agendavac.importacao.max-rejeicoes-detalhadas; rejeitados é o total
+public record ResultadoImportacao(long linhasLidas, long importados, long rejeitados, List<RejeicaoImportacao> rejeicoes) {
+}
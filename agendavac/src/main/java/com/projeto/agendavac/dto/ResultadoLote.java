@@ -0,0 +1,6 @@
+package com.projeto.agendavac.dto;
+
+import java.util.List;
+
+public record ResultadoLote(int recebidos, int agendados, int dosesCriadas, List<FalhaLote> falhas) {
+}
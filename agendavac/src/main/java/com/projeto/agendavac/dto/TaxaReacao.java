@@ -0,0 +1,13 @@
+package com.projeto.agendavac.dto;
+
+import java.time.LocalDate;
+
+/*
+ * Reações de uma vacina ou componente em um período. O período é identificado pela data inicial
+ * (início da semana ou do mês; no agrupamento TOTAL, a data inicial da busca).
+ * A taxa é dosesComReacao / dosesRealizadas, nula quando não há doses realizadas.
+ * */
+
+public record TaxaReacao(LocalDate periodo, Long id, String nome, long dosesRealizadas,
+                         long reacoes, long dosesComReacao, Double taxa) {
+}
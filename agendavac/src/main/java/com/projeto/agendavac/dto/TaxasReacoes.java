@@ -0,0 +1,11 @@
+package com.projeto.agendavac.dto;
+
+import com.projeto.agendavac.enums.AgrupamentoReacao;
+import com.projeto.agendavac.enums.PeriodoAgregacao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record TaxasReacoes(LocalDate dataInicial, LocalDate dataFinal, AgrupamentoReacao agrupamento,
+                           PeriodoAgregacao periodo, List<TaxaReacao> taxas) {
+}
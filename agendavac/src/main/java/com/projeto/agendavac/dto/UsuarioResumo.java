@@ -0,0 +1,10 @@
+package com.projeto.agendavac.dto;
+
+import java.time.LocalDate;
+
+/*
+ * Usuário nas listagens, sem endereço e alergias. O cadastro completo fica em GET /usuarios/{id}.
+ * */
+
+public record UsuarioResumo(Long id, String nome, LocalDate dataNascimento, String sexo, String cidade, String uf) {
+}
@@ -0,0 +1,13 @@
+package com.projeto.agendavac.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalTime;
+
+public record VagaDisponivel(
+        @JsonFormat(pattern = "HH:mm") @Schema(type = "string", format = "HH:mm", example = "08:30") LocalTime hora,
+        int capacidade,
+        int ocupadas,
+        int disponiveis) {
+}
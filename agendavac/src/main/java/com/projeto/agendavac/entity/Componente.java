@@ -3,9 +3,13 @@ package com.projeto.agendavac.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "componentes") // Nome da tabela no banco de dados
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "componentes")
 public class Componente {
 
     @Id
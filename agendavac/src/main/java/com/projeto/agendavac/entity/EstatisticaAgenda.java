@@ -0,0 +1,35 @@
+package com.projeto.agendavac.entity;
+
+import com.projeto.agendavac.enums.Situacao;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/*
+ * Quantidade de agendas por dia da dose, vacina e situação.
+ * Mantida junto com as agendas (agendar, darBaixa, excluir, lote) e recalculada pela reconstrução periódica.
+ * */
+
+@Data
+@Entity
+@Table(name = "estatisticas_agenda", uniqueConstraints = @UniqueConstraint(columnNames = {"data", "vacina_id", "situacao"}))
+public class EstatisticaAgenda {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(name = "vacina_id", nullable = false)
+    private Long vacinaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Situacao situacao;
+
+    @Column(nullable = false)
+    private long total;
+}
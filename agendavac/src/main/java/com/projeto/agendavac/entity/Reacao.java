@@ -28,7 +28,7 @@ public class Reacao {
     private LocalDate dataReacao;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "agenda_id", nullable = false)
     private Agenda agenda;
 }
@@ -0,0 +1,40 @@
+package com.projeto.agendavac.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/*
+ * Quantidade de reações e de doses com reação por dia da dose e vacina.
+ * Quem grava ou exclui reações só incrementa a versão; os totais são recalculados pela atualização
+ * periódica (EstatisticaReacaoService) enquanto versao for diferente de versaoCalculada.
+ * */
+
+@Data
+@Entity
+@Table(name = "resumo_reacoes", uniqueConstraints = @UniqueConstraint(columnNames = {"data", "vacina_id"}))
+public class ResumoReacao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(name = "vacina_id", nullable = false)
+    private Long vacinaId;
+
+    @Column(nullable = false)
+    private long reacoes;
+
+    @Column(name = "doses_com_reacao", nullable = false)
+    private long dosesComReacao;
+
+    @Column(nullable = false)
+    private long versao;
+
+    @Column(name = "versao_calculada", nullable = false)
+    private long versaoCalculada;
+}
@@ -2,11 +2,15 @@ package com.projeto.agendavac.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
 @Table(name = "vacinas")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vacinas")
 public class Vacina {
 
     @Id
@@ -41,6 +45,7 @@ public class Vacina {
 
 
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vacinas.componentes")
     @JoinTable(
             name = "vacina_componente",
             joinColumns = @JoinColumn(name = "vacina_id"),
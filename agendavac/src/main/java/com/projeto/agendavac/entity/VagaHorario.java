@@ -0,0 +1,35 @@
+package com.projeto.agendavac.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/*
+ * Capacidade e ocupação de um horário de vacinação em um dia.
+ * A linha é criada com a capacidade padrão no primeiro agendamento do horário, ou ao definir a capacidade.
+ * "ocupadas" é mantido junto com as agendas (agendar, cancelar, excluir), nunca recontado.
+ * */
+
+@Data
+@Entity
+@Table(name = "vagas_horario", uniqueConstraints = @UniqueConstraint(columnNames = {"data", "hora"}))
+public class VagaHorario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(nullable = false)
+    private LocalTime hora;
+
+    @Column(nullable = false)
+    private int capacidade;
+
+    @Column(nullable = false)
+    private int ocupadas;
+}
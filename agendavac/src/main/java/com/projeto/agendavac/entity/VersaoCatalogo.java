@@ -0,0 +1,24 @@
+package com.projeto.agendavac.entity;
+
+import com.projeto.agendavac.enums.Catalogo;
+import jakarta.persistence.*;
+import lombok.Data;
+
+/*
+ * Versão de cada catálogo servido com ETag (ver CatalogosEmCache).
+ * Incrementada na transação de quem altera o catálogo, então todas as instâncias enxergam a mesma versão.
+ * */
+
+@Data
+@Entity
+@Table(name = "versoes_catalogos")
+public class VersaoCatalogo {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Catalogo catalogo;
+
+    @Column(nullable = false)
+    private long versao;
+}
@@ -0,0 +1,6 @@
+package com.projeto.agendavac.enums;
+
+public enum AgrupamentoReacao {
+    VACINA,
+    COMPONENTE;
+}
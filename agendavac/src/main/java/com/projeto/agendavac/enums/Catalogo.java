@@ -0,0 +1,8 @@
+package com.projeto.agendavac.enums;
+
+// catálogos de referência servidos com ETag (ver CatalogosEmCache)
+public enum Catalogo {
+    VACINAS,
+    COMPONENTES,
+    ALERGIAS;
+}
@@ -0,0 +1,22 @@
+package com.projeto.agendavac.enums;
+
+public enum FormatoArquivo {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String tipoConteudo;
+    private final String extensao;
+
+    FormatoArquivo(String tipoConteudo, String extensao) {
+        this.tipoConteudo = tipoConteudo;
+        this.extensao = extensao;
+    }
+
+    public String getTipoConteudo() {
+        return tipoConteudo;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+}
@@ -0,0 +1,19 @@
+package com.projeto.agendavac.enums;
+
+// unidade repassada ao date_trunc do PostgreSQL; TOTAL agrupa o período inteiro
+public enum PeriodoAgregacao {
+    DIA("day"),
+    SEMANA("week"),
+    MES("month"),
+    TOTAL("day");
+
+    private final String unidade;
+
+    PeriodoAgregacao(String unidade) {
+        this.unidade = unidade;
+    }
+
+    public String getUnidade() {
+        return unidade;
+    }
+}
@@ -3,5 +3,7 @@ package com.projeto.agendavac.enums;
 public enum Situacao {
     AGENDADO,
     CANCELADO,
-    REALIZADO;
+    REALIZADO,
+    // agendada para uma data que já passou sem baixa (falta)
+    EXPIRADO;
 }
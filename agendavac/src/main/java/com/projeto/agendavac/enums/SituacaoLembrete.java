@@ -0,0 +1,9 @@
+package com.projeto.agendavac.enums;
+
+// andamento do lembrete de dose; FALHA volta a ser tentada e DESCARTADO não é mais enviado
+public enum SituacaoLembrete {
+    ENVIANDO,
+    ENVIADO,
+    FALHA,
+    DESCARTADO;
+}
@@ -0,0 +1,9 @@
+package com.projeto.agendavac.enums;
+
+// situação de uma reação enviada para gravação assíncrona
+public enum SituacaoProtocolo {
+    PENDENTE,
+    GRAVADA,
+    REJEITADA,
+    FALHA;
+}
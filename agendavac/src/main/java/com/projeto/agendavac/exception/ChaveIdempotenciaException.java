@@ -0,0 +1,7 @@
+package com.projeto.agendavac.exception;
+
+public class ChaveIdempotenciaException extends RuntimeException {
+    public ChaveIdempotenciaException(String message) {
+        super(message);
+    }
+}
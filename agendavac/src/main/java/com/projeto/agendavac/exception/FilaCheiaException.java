@@ -0,0 +1,7 @@
+package com.projeto.agendavac.exception;
+
+public class FilaCheiaException extends RuntimeException {
+    public FilaCheiaException(String message) {
+        super(message);
+    }
+}
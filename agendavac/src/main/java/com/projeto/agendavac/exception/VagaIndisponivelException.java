@@ -0,0 +1,7 @@
+package com.projeto.agendavac.exception;
+
+public class VagaIndisponivelException extends RuntimeException {
+    public VagaIndisponivelException(String message) {
+        super(message);
+    }
+}
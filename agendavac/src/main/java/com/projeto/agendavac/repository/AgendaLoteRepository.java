@@ -0,0 +1,116 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.enums.Situacao;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Gravação de agendas em lote via JDBC.
+ * O id das agendas é IDENTITY, o que impede o Hibernate de agrupar os inserts em batch;
+ * aqui as linhas são enviadas diretamente com JDBC batch, sem recuperar os ids gerados.
+ * A baixa em lote é um único UPDATE para todos os ids; a expiração, um UPDATE por bloco de agendas vencidas.
+ * */
+
+@Repository
+@Timed("agendavac.jdbc")
+public class AgendaLoteRepository {
+
+    private static final int TAMANHO_BATCH = 500;
+
+    private static final String INSERIR_DOSE =
+            "INSERT INTO agendas (data, hora, situacao, observacoes, usuario_id, vacina_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // as linhas são travadas em ordem de id (evita deadlock entre baixas simultâneas) e a situação anterior
+    // é lida já com a trava, então duas baixas concorrentes da mesma agenda não leem o mesmo estado
+    private static final String DAR_BAIXA = """
+            WITH alvo AS (
+                SELECT id, situacao FROM agendas WHERE id = ANY (?) ORDER BY id FOR UPDATE
+            )
+            UPDATE agendas a SET situacao = ?, data_situacao = ?
+              FROM alvo
+             WHERE a.id = alvo.id
+            RETURNING a.id, alvo.situacao AS situacao_anterior, a.data, a.hora, a.vacina_id
+            """;
+
+    // pelo índice (situacao, data, id) a partir da marca; SKIP LOCKED: agendas em baixa no momento ficam para a próxima passada
+    private static final String EXPIRAR = """
+            WITH alvo AS (
+                SELECT id FROM agendas
+                 WHERE situacao = 'AGENDADO' AND data < ? %s
+                 ORDER BY data, id
+                 LIMIT ?
+                   FOR UPDATE SKIP LOCKED
+            )
+            UPDATE agendas a SET situacao = 'EXPIRADO', data_situacao = ?
+              FROM alvo
+             WHERE a.id = alvo.id
+            RETURNING a.id, a.data, a.hora, a.vacina_id
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void inserirDoses(List<NovaDose> doses) {
+        jdbcTemplate.batchUpdate(INSERIR_DOSE, doses, TAMANHO_BATCH, (ps, dose) -> {
+            ps.setObject(1, dose.data());
+            ps.setObject(2, dose.hora());
+            ps.setString(3, Situacao.AGENDADO.name());
+            ps.setString(4, dose.observacoes());
+            ps.setLong(5, dose.usuarioId());
+            ps.setLong(6, dose.vacinaId());
+        });
+    }
+
+    // retorna somente as agendas encontradas
+    public List<BaixaAplicada> darBaixa(Collection<Long> agendaIds, Situacao situacao, LocalDate dataSituacao) {
+        return jdbcTemplate.query(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement(DAR_BAIXA);
+            ps.setArray(1, conexao.createArrayOf("bigint", agendaIds.toArray()));
+            ps.setString(2, situacao.name());
+            ps.setObject(3, dataSituacao);
+            return ps;
+        }, (rs, linha) -> new BaixaAplicada(
+                rs.getLong("id"),
+                Situacao.valueOf(rs.getString("situacao_anterior")),
+                rs.getObject("data", LocalDate.class),
+                rs.getObject("hora", LocalTime.class),
+                rs.getLong("vacina_id")));
+    }
+
+    // agendas AGENDADO com data anterior a dataLimite e posteriores à marca (data, id), quando houver
+    public List<BaixaAplicada> expirar(LocalDate dataLimite, LocalDate dataMarca, Long agendaIdMarca, int limite, LocalDate dataSituacao) {
+
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(dataLimite);
+        if (dataMarca != null) {
+            parametros.add(dataMarca);
+            parametros.add(agendaIdMarca);
+        }
+        parametros.add(limite);
+        parametros.add(dataSituacao);
+
+        return jdbcTemplate.query(EXPIRAR.formatted(dataMarca == null ? "" : "AND (data, id) > (?, ?)"),
+                (rs, linha) -> new BaixaAplicada(
+                        rs.getLong("id"),
+                        Situacao.AGENDADO,
+                        rs.getObject("data", LocalDate.class),
+                        rs.getObject("hora", LocalTime.class),
+                        rs.getLong("vacina_id")),
+                parametros.toArray());
+    }
+
+    public record BaixaAplicada(Long agendaId, Situacao situacaoAnterior, LocalDate data, LocalTime hora, Long vacinaId) {
+    }
+
+    public record NovaDose(Long usuarioId, Long vacinaId, LocalDate data, LocalTime hora, String observacoes) {
+    }
+}
@@ -1,19 +1,55 @@
 package com.projeto.agendavac.repository;
 
+import com.projeto.agendavac.dto.AgendaResumo;
 import com.projeto.agendavac.entity.Agenda;
-import com.projeto.agendavac.entity.Usuario;
 import com.projeto.agendavac.enums.Situacao;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AgendaRepository extends JpaRepository<Agenda, Long> {
 
-    List<Agenda> findByUsuario(Usuario usuario);
+    // as listagens leem só as colunas de AgendaResumo, em uma única consulta com usuário e vacina;
+    // a agenda completa (findById) continua trazendo todo o grafo
+    String RESUMO = "SELECT new com.projeto.agendavac.dto.AgendaResumo(a.id, a.data, a.hora, a.situacao, a.dataSituacao, " +
+            "u.id, u.nome, v.id, v.titulo) FROM Agenda a JOIN a.usuario u JOIN a.vacina v ";
 
-    List<Agenda> findAll();
+    @Query(RESUMO + "WHERE u.id = :usuarioId ORDER BY a.data, a.id")
+    List<AgendaResumo> buscarResumosPorUsuario(@Param("usuarioId") Long usuarioId);
 
     // filtrar agendas por situação
-    List<Agenda> findBySituacao(Situacao situacao);
-}
+    @Query(RESUMO + "WHERE a.situacao = :situacao ORDER BY a.data, a.id")
+    List<AgendaResumo> buscarResumosPorSituacao(@Param("situacao") Situacao situacao);
+
+    // SELECT ... FOR UPDATE: baixa e exclusão de uma agenda esperam a baixa em lote e a expiração
+    // (que travam as mesmas linhas) e leem a situação já alterada por elas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Agenda a WHERE a.id = :id")
+    Optional<Agenda> buscarParaAlterar(@Param("id") Long id);
+
+    boolean existsByIdNotNull();
 
+    // paginação por cursor (keyset): a página seguinte começa logo após a última (data, id) lida, sem OFFSET
+    @Query(RESUMO + "ORDER BY a.data, a.id")
+    List<AgendaResumo> buscarPrimeiraPagina(Pageable pageable);
+
+    @Query(RESUMO + "WHERE a.data > :data OR (a.data = :data AND a.id > :id) ORDER BY a.data, a.id")
+    List<AgendaResumo> buscarPaginaApos(@Param("data") LocalDate data, @Param("id") Long id, Pageable pageable);
+
+    // leitura em fluxo: o driver busca as linhas aos poucos (fetch size), sem carregar a tabela inteira.
+    // Precisa ser consumido dentro de uma transação e o Stream deve ser fechado ao final.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RESUMO + "ORDER BY a.id")
+    Stream<AgendaResumo> buscarTodasEmFluxo();
+}
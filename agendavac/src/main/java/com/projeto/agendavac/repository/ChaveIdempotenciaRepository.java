@@ -0,0 +1,68 @@
+package com.projeto.agendavac.repository;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Tabela chaves_idempotencia. reservar e gravarResposta rodam na transação da operação: enquanto ela não termina,
+ * outra requisição com a mesma chave fica parada no INSERT (índice da chave primária) e, após o commit, encontra
+ * a resposta já gravada; após um rollback, a chave fica livre e a operação é executada.
+ * */
+
+@Repository
+@Timed("agendavac.jdbc")
+public class ChaveIdempotenciaRepository {
+
+    private static final String RESERVAR = """
+            INSERT INTO chaves_idempotencia (operacao, chave, requisicao, criada_em)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (operacao, chave) DO NOTHING
+            """;
+
+    private static final String EXCLUIR_VENCIDAS = """
+            DELETE FROM chaves_idempotencia
+            WHERE (operacao, chave) IN (
+                SELECT operacao, chave
+                FROM chaves_idempotencia
+                WHERE criada_em < ?
+                LIMIT ?
+            )
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // false quando a chave já existe
+    public boolean reservar(String operacao, String chave, String requisicao, LocalDateTime criadaEm) {
+        return jdbcTemplate.update(RESERVAR, operacao, chave, requisicao, criadaEm) == 1;
+    }
+
+    public void gravarResposta(String operacao, String chave, int status, String resposta) {
+        jdbcTemplate.update("UPDATE chaves_idempotencia SET status = ?, resposta = ? WHERE operacao = ? AND chave = ?",
+                status, resposta, operacao, chave);
+    }
+
+    public Optional<RespostaGravada> buscar(String operacao, String chave) {
+        List<RespostaGravada> respostas = jdbcTemplate.query(
+                "SELECT requisicao, status, resposta, criada_em FROM chaves_idempotencia WHERE operacao = ? AND chave = ?",
+                (rs, linha) -> new RespostaGravada(rs.getString("requisicao"), rs.getInt("status"), rs.getString("resposta"),
+                        rs.getObject("criada_em", LocalDateTime.class)),
+                operacao, chave);
+
+        return respostas.stream().findFirst();
+    }
+
+    // retorna a quantidade de chaves excluídas (no máximo limite)
+    public int excluirVencidas(LocalDateTime limiteCriacao, int limite) {
+        return jdbcTemplate.update(EXCLUIR_VENCIDAS, limiteCriacao, limite);
+    }
+
+    public record RespostaGravada(String requisicao, int status, String resposta, LocalDateTime criadaEm) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.entity.EstatisticaAgenda;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface EstatisticaAgendaRepository extends JpaRepository<EstatisticaAgenda, Long> {
+
+    @Query("SELECT e FROM EstatisticaAgenda e " +
+            "WHERE e.data BETWEEN :dataInicial AND :dataFinal AND (:vacinaId IS NULL OR e.vacinaId = :vacinaId) " +
+            "ORDER BY e.data, e.vacinaId, e.situacao")
+    List<EstatisticaAgenda> buscarPorPeriodo(@Param("dataInicial") LocalDate dataInicial,
+                                             @Param("dataFinal") LocalDate dataFinal,
+                                             @Param("vacinaId") Long vacinaId);
+
+    // linhas com [situacao, soma]
+    @Query("SELECT e.situacao, SUM(e.total) FROM EstatisticaAgenda e " +
+            "WHERE e.data BETWEEN :dataInicial AND :dataFinal AND (:vacinaId IS NULL OR e.vacinaId = :vacinaId) " +
+            "GROUP BY e.situacao")
+    List<Object[]> somarPorSituacao(@Param("dataInicial") LocalDate dataInicial,
+                                    @Param("dataFinal") LocalDate dataFinal,
+                                    @Param("vacinaId") Long vacinaId);
+
+    // linhas com [situacao, soma] de todos os dias e vacinas
+    @Query("SELECT e.situacao, SUM(e.total) FROM EstatisticaAgenda e GROUP BY e.situacao")
+    List<Object[]> somarTodasPorSituacao();
+
+    @Modifying
+    @Query(value = "UPDATE estatisticas_agenda SET total = total + :delta " +
+            "WHERE data = :data AND vacina_id = :vacinaId AND situacao = :situacao", nativeQuery = true)
+    int somar(@Param("data") LocalDate data, @Param("vacinaId") Long vacinaId,
+              @Param("situacao") String situacao, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "INSERT INTO estatisticas_agenda (data, vacina_id, situacao, total) VALUES (:data, :vacinaId, :situacao, 0) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int criarSeAusente(@Param("data") LocalDate data, @Param("vacinaId") Long vacinaId, @Param("situacao") String situacao);
+
+    // menor e maior dia com agendas ou contadores; nulos com as duas tabelas vazias. Linha com [menor, maior]
+    @Query(value = "SELECT LEAST((SELECT min(data) FROM agendas), (SELECT min(data) FROM estatisticas_agenda)), " +
+            "GREATEST((SELECT max(data) FROM agendas), (SELECT max(data) FROM estatisticas_agenda))", nativeQuery = true)
+    List<Object[]> buscarPeriodoComDados();
+
+    // impede atualizações dos contadores até o fim da transação de reconstrução de um período (PostgreSQL)
+    @Modifying
+    @Query(value = "LOCK TABLE estatisticas_agenda IN EXCLUSIVE MODE", nativeQuery = true)
+    void bloquearParaReconstrucao();
+
+    @Modifying
+    @Query(value = "DELETE FROM estatisticas_agenda WHERE data >= :inicio AND data < :fim", nativeQuery = true)
+    int apagarPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Modifying
+    @Query(value = "INSERT INTO estatisticas_agenda (data, vacina_id, situacao, total) " +
+            "SELECT data, vacina_id, situacao, COUNT(*) FROM agendas WHERE data >= :inicio AND data < :fim " +
+            "GROUP BY data, vacina_id, situacao", nativeQuery = true)
+    int recalcularPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+}
@@ -0,0 +1,91 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.dto.FiltroExportacao;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Consultas de exportação lidas linha a linha com cursor no servidor (fetch size), sem passar pelo
+ * contexto de persistência. No PostgreSQL o cursor só é usado com autocommit desligado, por isso
+ * estes métodos devem ser chamados dentro de uma transação.
+ * */
+
+@Repository
+@Timed("agendavac.jdbc")
+public class ExportacaoRepository {
+
+    private static final int TAMANHO_FETCH = 1000;
+
+    public static final List<String> COLUNAS_AGENDAS = List.of(
+            "id", "data", "hora", "situacao", "data_situacao", "observacoes",
+            "usuario_id", "usuario_nome", "vacina_id", "vacina_titulo");
+
+    public static final List<String> COLUNAS_REACOES = List.of(
+            "id", "descricao", "data_reacao", "agenda_id", "agenda_data", "agenda_situacao",
+            "usuario_id", "vacina_id");
+
+    private static final String SELECIONAR_AGENDAS = """
+            SELECT a.id, a.data, a.hora, a.situacao, a.data_situacao, a.observacoes,
+                   u.id AS usuario_id, u.nome AS usuario_nome, v.id AS vacina_id, v.titulo AS vacina_titulo
+              FROM agendas a
+              JOIN usuarios u ON u.id = a.usuario_id
+              JOIN vacinas v ON v.id = a.vacina_id
+            """;
+
+    private static final String SELECIONAR_REACOES = """
+            SELECT r.id, r.descricao, r.data_reacao, a.id AS agenda_id, a.data AS agenda_data,
+                   a.situacao AS agenda_situacao, a.usuario_id, a.vacina_id
+              FROM reacoes r
+              JOIN agendas a ON a.id = r.agenda_id
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // período aplicado à data da agenda
+    public void percorrerAgendas(FiltroExportacao filtro, RowCallbackHandler linha) {
+        consultar(SELECIONAR_AGENDAS, "a.data", filtro, "a.data, a.id", linha);
+    }
+
+    // período aplicado à data da reação; a situação é a da agenda da reação
+    public void percorrerReacoes(FiltroExportacao filtro, RowCallbackHandler linha) {
+        consultar(SELECIONAR_REACOES, "r.data_reacao", filtro, "r.data_reacao, r.id", linha);
+    }
+
+    private void consultar(String selecao, String colunaData, FiltroExportacao filtro, String ordem,
+                           RowCallbackHandler linha) {
+
+        StringBuilder sql = new StringBuilder(selecao).append(" WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+
+        if (filtro.dataInicial() != null) {
+            sql.append(" AND ").append(colunaData).append(" >= ?");
+            parametros.add(filtro.dataInicial());
+        }
+        if (filtro.dataFinal() != null) {
+            sql.append(" AND ").append(colunaData).append(" <= ?");
+            parametros.add(filtro.dataFinal());
+        }
+        if (filtro.situacao() != null) {
+            sql.append(" AND a.situacao = ?");
+            parametros.add(filtro.situacao().name());
+        }
+        sql.append(" ORDER BY ").append(ordem);
+
+        jdbcTemplate.query(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement(sql.toString());
+            ps.setFetchSize(TAMANHO_FETCH);
+            for (int i = 0; i < parametros.size(); i++) {
+                ps.setObject(i + 1, parametros.get(i));
+            }
+            return ps;
+        }, linha);
+    }
+}
@@ -0,0 +1,117 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.dto.LembreteDose;
+import com.projeto.agendavac.enums.SituacaoLembrete;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/*
+ * Reserva e andamento dos lembretes de dose via JDBC.
+ * A reserva é um único comando: as agendas da janela são lidas pelo índice (data, hora, situacao), travadas
+ * com SKIP LOCKED (outro nó reservando ao mesmo tempo pula as mesmas linhas) e o lembrete é inserido já
+ * em ENVIANDO. A chave única em agenda_id garante um lembrete por agenda mesmo entre nós.
+ * Uma reserva vale até reservado_ate; se o nó cair antes de registrar o envio, o lembrete é retomado depois.
+ * */
+
+@Repository
+@Timed("agendavac.jdbc")
+public class LembreteRepository {
+
+    private static final String DADOS_LEMBRETE = """
+            SELECT r.id, r.tentativas, a.id AS agenda_id, a.data, a.hora, u.id AS usuario_id, u.nome, v.titulo
+              FROM reservados r
+              JOIN agendas a ON a.id = r.agenda_id
+              JOIN usuarios u ON u.id = a.usuario_id
+              JOIN vacinas v ON v.id = a.vacina_id
+            """;
+
+    private static final String RESERVAR_NOVOS = """
+            WITH devidas AS (
+                SELECT a.id FROM agendas a
+                 WHERE (a.data, a.hora) >= (?, ?) AND (a.data, a.hora) <= (?, ?) AND a.situacao = 'AGENDADO'
+                   AND NOT EXISTS (SELECT 1 FROM lembretes l WHERE l.agenda_id = a.id)
+                 ORDER BY a.data, a.hora, a.id
+                 LIMIT ?
+                   FOR NO KEY UPDATE SKIP LOCKED
+            ), reservados AS (
+                INSERT INTO lembretes (agenda_id, situacao, tentativas, reservado_ate)
+                SELECT id, 'ENVIANDO', 1, ? FROM devidas
+                ON CONFLICT (agenda_id) DO NOTHING
+                RETURNING id, agenda_id, tentativas
+            )
+            """ + DADOS_LEMBRETE + " ORDER BY a.data, a.hora, a.id";
+
+    // agendas que deixaram de aguardar a dose, ou lembretes sem tentativas restantes, são descartados
+    private static final String RESERVAR_PENDENTES = """
+            WITH devidos AS (
+                SELECT l.id, (a.situacao = 'AGENDADO' AND (a.data, a.hora) >= (?, ?) AND l.tentativas < ?) AS valido
+                  FROM lembretes l JOIN agendas a ON a.id = l.agenda_id
+                 WHERE l.situacao IN ('ENVIANDO', 'FALHA') AND l.reservado_ate <= ?
+                 ORDER BY l.reservado_ate
+                 LIMIT ?
+                   FOR NO KEY UPDATE OF l SKIP LOCKED
+            ), reservados AS (
+                UPDATE lembretes l
+                   SET situacao = CASE WHEN d.valido THEN 'ENVIANDO' ELSE 'DESCARTADO' END,
+                       tentativas = CASE WHEN d.valido THEN l.tentativas + 1 ELSE l.tentativas END,
+                       reservado_ate = ?
+                  FROM devidos d
+                 WHERE l.id = d.id
+                RETURNING l.id, l.agenda_id, l.tentativas, l.situacao
+            )
+            """ + DADOS_LEMBRETE + " WHERE r.situacao = 'ENVIANDO' ORDER BY a.data, a.hora, a.id";
+
+    // só altera a linha se ela ainda estiver na mesma tentativa (a reserva pode ter vencido e sido retomada)
+    private static final String REGISTRAR = """
+            UPDATE lembretes SET situacao = ?, reservado_ate = ?, enviado_em = ?, erro = ?
+             WHERE id = ? AND situacao = 'ENVIANDO' AND tentativas = ?
+            """;
+
+    private static final RowMapper<LembreteDose> LEMBRETE = (rs, linha) -> new LembreteDose(
+            rs.getLong("id"),
+            rs.getInt("tentativas"),
+            rs.getLong("agenda_id"),
+            rs.getObject("data", LocalDate.class),
+            rs.getObject("hora", LocalTime.class),
+            rs.getLong("usuario_id"),
+            rs.getString("nome"),
+            rs.getString("titulo"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // agendas de inicio a fim (inclusive) ainda sem lembrete
+    public List<LembreteDose> reservarNovos(LocalDateTime inicio, LocalDateTime fim, LocalDateTime reservadoAte, int limite) {
+        return jdbcTemplate.query(RESERVAR_NOVOS, LEMBRETE,
+                inicio.toLocalDate(), inicio.toLocalTime(), fim.toLocalDate(), fim.toLocalTime(), limite, reservadoAte);
+    }
+
+    // falhas e reservas vencidas até agora cuja dose ainda não passou
+    public List<LembreteDose> reservarPendentes(LocalDateTime agora, LocalDateTime reservadoAte, int maximoTentativas, int limite) {
+        return jdbcTemplate.query(RESERVAR_PENDENTES, LEMBRETE,
+                agora.toLocalDate(), agora.toLocalTime(), maximoTentativas, agora, limite, reservadoAte);
+    }
+
+    public void registrar(List<EnvioLembrete> envios) {
+        jdbcTemplate.batchUpdate(REGISTRAR, envios, envios.size(), (ps, envio) -> {
+            ps.setString(1, envio.situacao().name());
+            ps.setObject(2, envio.proximaTentativa());
+            ps.setObject(3, envio.enviadoEm());
+            ps.setString(4, envio.erro());
+            ps.setLong(5, envio.lembreteId());
+            ps.setInt(6, envio.tentativa());
+        });
+    }
+
+    public record EnvioLembrete(Long lembreteId, int tentativa, SituacaoLembrete situacao,
+                                LocalDateTime proximaTentativa, LocalDateTime enviadoEm, String erro) {
+    }
+}
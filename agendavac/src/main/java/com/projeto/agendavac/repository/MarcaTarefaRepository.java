@@ -0,0 +1,43 @@
+package com.projeto.agendavac.repository;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Ponto em que uma tarefa em blocos parou (tabela marcas_tarefas), gravado na mesma transação de cada bloco.
+ * A linha fica travada até o fim da transação, então dois nós não processam a mesma tarefa ao mesmo tempo.
+ * */
+
+@Repository
+@Timed("agendavac.jdbc")
+public class MarcaTarefaRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // vazio quando outro nó está com a tarefa (ou a tarefa não existe)
+    public Optional<MarcaTarefa> travar(String tarefa) {
+        List<MarcaTarefa> marcas = jdbcTemplate.query(
+                "SELECT data, agenda_id FROM marcas_tarefas WHERE tarefa = ? FOR UPDATE SKIP LOCKED",
+                (rs, linha) -> new MarcaTarefa(rs.getObject("data", LocalDate.class), rs.getObject("agenda_id", Long.class)),
+                tarefa);
+
+        return marcas.stream().findFirst();
+    }
+
+    // data e id nulos: a última passada terminou e a próxima começa do início
+    public void gravar(String tarefa, LocalDate data, Long agendaId, LocalDateTime atualizadoEm) {
+        jdbcTemplate.update("UPDATE marcas_tarefas SET data = ?, agenda_id = ?, atualizado_em = ? WHERE tarefa = ?",
+                data, agendaId, atualizadoEm, tarefa);
+    }
+
+    public record MarcaTarefa(LocalDate data, Long agendaId) {
+    }
+}
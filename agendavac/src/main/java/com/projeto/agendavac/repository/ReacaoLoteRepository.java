@@ -0,0 +1,78 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.dto.NovaReacao;
+import com.projeto.agendavac.enums.Situacao;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Gravação de reações em lote via JDBC (ingestão assíncrona).
+ * As agendas do lote são consultadas de uma vez e travadas em modo compartilhado até o fim da transação,
+ * para que nenhuma baixa simultânea altere a situação entre a validação e a gravação das reações.
+ * Os ids das reações são reservados na sequência antes da gravação, como em UsuarioLoteRepository: a ordem das
+ * chaves geradas de um batch reescrito (reWriteBatchedInserts) não é garantida.
+ * */
+
+@Repository
+@Timed("agendavac.jdbc")
+public class ReacaoLoteRepository {
+
+    private static final String BUSCAR_AGENDAS =
+            "SELECT id, situacao, data, vacina_id FROM agendas WHERE id = ANY (?) ORDER BY id FOR SHARE";
+
+    private static final String RESERVAR_IDS =
+            "SELECT nextval(pg_get_serial_sequence('reacoes', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERIR_REACAO =
+            "INSERT INTO reacoes (id, descricao, data_reacao, agenda_id) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // as agendas não encontradas ficam fora do mapa
+    public Map<Long, AgendaDaReacao> buscarAgendas(Collection<Long> agendaIds) {
+        return jdbcTemplate.query(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement(BUSCAR_AGENDAS);
+            ps.setArray(1, conexao.createArrayOf("bigint", agendaIds.toArray()));
+            return ps;
+        }, rs -> {
+            Map<Long, AgendaDaReacao> agendas = new HashMap<>();
+            while (rs.next()) {
+                agendas.put(rs.getLong("id"), new AgendaDaReacao(Situacao.valueOf(rs.getString("situacao")),
+                        rs.getObject("data", LocalDate.class), rs.getLong("vacina_id")));
+            }
+            return agendas;
+        });
+    }
+
+    // devolve os ids das reações, na mesma ordem da lista
+    public List<Long> inserir(List<NovaReacao> reacoes) {
+        List<Long> ids = jdbcTemplate.queryForList(RESERVAR_IDS, Long.class, reacoes.size());
+
+        if (ids.size() != reacoes.size())
+            throw new IncorrectResultSizeDataAccessException(reacoes.size(), ids.size());
+
+        List<Object[]> linhas = new ArrayList<>(reacoes.size());
+        for (int i = 0; i < reacoes.size(); i++) {
+            NovaReacao reacao = reacoes.get(i);
+            linhas.add(new Object[]{ids.get(i), reacao.descricao(), reacao.dataReacao(), reacao.agendaId()});
+        }
+        jdbcTemplate.batchUpdate(INSERIR_REACAO, linhas);
+
+        return ids;
+    }
+
+    public record AgendaDaReacao(Situacao situacao, LocalDate data, Long vacinaId) {
+    }
+}
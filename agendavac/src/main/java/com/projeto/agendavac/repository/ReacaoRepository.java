@@ -1,5 +1,6 @@
 package com.projeto.agendavac.repository;
 
+import com.projeto.agendavac.dto.ReacaoResumo;
 import com.projeto.agendavac.entity.Agenda;
 import com.projeto.agendavac.entity.Reacao;
 import com.projeto.agendavac.entity.Usuario;
@@ -10,11 +11,18 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
+// as listagens leem só as colunas de ReacaoResumo; o id da agenda vem da própria chave estrangeira, sem junção
 public interface ReacaoRepository extends JpaRepository<Reacao, Long> {
 
-    List<Reacao> findByAgendaId(Long agendaId);
+    String RESUMO = "SELECT new com.projeto.agendavac.dto.ReacaoResumo(r.id, r.agenda.id, r.descricao, r.dataReacao) FROM Reacao r ";
 
-    @Query("SELECT r FROM Reacao r WHERE r.agenda.usuario.id = :usuarioId")
-    List<Reacao> findByAgendaUsuarioId(@Param("usuarioId") Long usuarioId);
+    @Query(RESUMO + "ORDER BY r.id")
+    List<ReacaoResumo> buscarResumos();
+
+    @Query(RESUMO + "WHERE r.agenda.id = :agendaId ORDER BY r.id")
+    List<ReacaoResumo> buscarResumosPorAgenda(@Param("agendaId") Long agendaId);
+
+    @Query(RESUMO + "JOIN r.agenda a WHERE a.usuario.id = :usuarioId ORDER BY r.id")
+    List<ReacaoResumo> buscarResumosPorUsuario(@Param("usuarioId") Long usuarioId);
 }
 
@@ -0,0 +1,90 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.entity.ResumoReacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ResumoReacaoRepository extends JpaRepository<ResumoReacao, Long> {
+
+    // doses realizadas (contadores de estatisticas_agenda) e reações (resumo_reacoes) por período e vacina
+    String DOSES_E_REACOES_POR_PERIODO =
+            "SELECT CASE WHEN :total THEN CAST(:dataInicial AS date) " +
+            "            ELSE CAST(date_trunc(:unidade, CAST(e.data AS timestamp)) AS date) END AS periodo, " +
+            "       e.vacina_id, e.total AS doses, 0 AS reacoes, 0 AS doses_com_reacao " +
+            "  FROM estatisticas_agenda e " +
+            " WHERE e.situacao = 'REALIZADO' AND e.data BETWEEN :dataInicial AND :dataFinal " +
+            "UNION ALL " +
+            "SELECT CASE WHEN :total THEN CAST(:dataInicial AS date) " +
+            "            ELSE CAST(date_trunc(:unidade, CAST(r.data AS timestamp)) AS date) END, " +
+            "       r.vacina_id, 0, r.reacoes, r.doses_com_reacao " +
+            "  FROM resumo_reacoes r " +
+            " WHERE r.data BETWEEN :dataInicial AND :dataFinal";
+
+    // linhas com [periodo, vacinaId, titulo, doses, reacoes, dosesComReacao]
+    @Query(value = "SELECT t.periodo, v.id, v.titulo, SUM(t.doses), SUM(t.reacoes), SUM(t.doses_com_reacao) " +
+            "FROM (" + DOSES_E_REACOES_POR_PERIODO + ") t JOIN vacinas v ON v.id = t.vacina_id " +
+            "GROUP BY t.periodo, v.id, v.titulo ORDER BY t.periodo, v.id", nativeQuery = true)
+    List<Object[]> somarPorVacina(@Param("dataInicial") LocalDate dataInicial,
+                                  @Param("dataFinal") LocalDate dataFinal,
+                                  @Param("unidade") String unidade,
+                                  @Param("total") boolean total);
+
+    // a dose de uma vacina conta para cada um dos seus componentes
+    // linhas com [periodo, componenteId, nome, doses, reacoes, dosesComReacao]
+    @Query(value = "SELECT t.periodo, c.id, c.nome, SUM(t.doses), SUM(t.reacoes), SUM(t.doses_com_reacao) " +
+            "FROM (" + DOSES_E_REACOES_POR_PERIODO + ") t " +
+            "JOIN vacina_componente vc ON vc.vacina_id = t.vacina_id JOIN componentes c ON c.id = vc.componente_id " +
+            "GROUP BY t.periodo, c.id, c.nome ORDER BY t.periodo, c.id", nativeQuery = true)
+    List<Object[]> somarPorComponente(@Param("dataInicial") LocalDate dataInicial,
+                                      @Param("dataFinal") LocalDate dataFinal,
+                                      @Param("unidade") String unidade,
+                                      @Param("total") boolean total);
+
+    @Modifying
+    @Query(value = "UPDATE resumo_reacoes SET versao = versao + 1 WHERE data = :data AND vacina_id = :vacinaId", nativeQuery = true)
+    int marcarAlteracao(@Param("data") LocalDate data, @Param("vacinaId") Long vacinaId);
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_reacoes (data, vacina_id, reacoes, doses_com_reacao, versao, versao_calculada) " +
+            "VALUES (:data, :vacinaId, 0, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int criarSeAusente(@Param("data") LocalDate data, @Param("vacinaId") Long vacinaId);
+
+    // as linhas travadas por quem está gravando reações são puladas e continuam pendentes
+    @Query(value = "SELECT id FROM resumo_reacoes WHERE versao <> versao_calculada ORDER BY id LIMIT :limite " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> travarPendentes(@Param("limite") int limite);
+
+    // as linhas precisam estar travadas (travarPendentes): a versão não muda durante o recálculo e
+    // as reações gravadas antes da trava já são visíveis para este comando
+    @Modifying
+    @Query(value = "UPDATE resumo_reacoes r " +
+            "   SET reacoes = c.reacoes, doses_com_reacao = c.doses_com_reacao, versao_calculada = c.versao " +
+            "  FROM (SELECT p.id, p.versao, COUNT(re.id) AS reacoes, COUNT(DISTINCT re.agenda_id) AS doses_com_reacao " +
+            "          FROM resumo_reacoes p " +
+            "          LEFT JOIN agendas a ON a.vacina_id = p.vacina_id AND a.data = p.data " +
+            "          LEFT JOIN reacoes re ON re.agenda_id = a.id " +
+            "         WHERE p.id IN (:ids) " +
+            "         GROUP BY p.id, p.versao) c " +
+            " WHERE r.id = c.id", nativeQuery = true)
+    int recalcular(@Param("ids") List<Long> ids);
+
+    // impede novas marcações até o fim da transação de reconstrução (PostgreSQL)
+    @Modifying
+    @Query(value = "LOCK TABLE resumo_reacoes IN EXCLUSIVE MODE", nativeQuery = true)
+    void bloquearParaReconstrucao();
+
+    @Modifying
+    @Query(value = "DELETE FROM resumo_reacoes", nativeQuery = true)
+    int apagarTodos();
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_reacoes (data, vacina_id, reacoes, doses_com_reacao, versao, versao_calculada) " +
+            "SELECT a.data, a.vacina_id, COUNT(*), COUNT(DISTINCT a.id), 0, 0 " +
+            "  FROM reacoes re JOIN agendas a ON a.id = re.agenda_id GROUP BY a.data, a.vacina_id", nativeQuery = true)
+    int recalcularTodos();
+}
@@ -0,0 +1,67 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.entity.Usuario;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/*
+ * Gravação de usuários em lote via JDBC (importação de cadastros).
+ * Os ids são reservados antes, com nextval da sequência da coluna IDENTITY, e inseridos explicitamente, para gravar
+ * em seguida as alergias. As chaves geradas do batch não servem: com reWriteBatchedInserts o driver junta as linhas
+ * em um INSERT de vários VALUES, e o PostgreSQL não garante a ordem do RETURNING.
+ * */
+
+@Repository
+@Timed("agendavac.jdbc")
+public class UsuarioLoteRepository {
+
+    private static final int TAMANHO_BATCH = 500;
+
+    private static final String RESERVAR_IDS =
+            "SELECT nextval(pg_get_serial_sequence('usuarios', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERIR_USUARIO =
+            "INSERT INTO usuarios (id, nome, data_nascimento, sexo, logradouro, setor, cidade, uf) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERIR_ALERGIA =
+            "INSERT INTO usuario_alergia (usuario_id, alergia_id) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // preenche o id de cada usuário com um id reservado da sequência antes da gravação
+    public void inserirUsuarios(List<Usuario> usuarios) {
+        List<Long> ids = jdbcTemplate.queryForList(RESERVAR_IDS, Long.class, usuarios.size());
+
+        if (ids.size() != usuarios.size())
+            throw new IncorrectResultSizeDataAccessException(usuarios.size(), ids.size());
+
+        for (int i = 0; i < usuarios.size(); i++) {
+            usuarios.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.batchUpdate(INSERIR_USUARIO, usuarios, TAMANHO_BATCH, (ps, usuario) -> {
+            ps.setLong(1, usuario.getId());
+            ps.setString(2, usuario.getNome());
+            ps.setObject(3, usuario.getDataNascimento());
+            ps.setString(4, usuario.getSexo());
+            ps.setString(5, usuario.getLogradouro());
+            ps.setString(6, usuario.getSetor());
+            ps.setString(7, usuario.getCidade());
+            ps.setString(8, usuario.getUf());
+        });
+    }
+
+    // cada par é {usuarioId, alergiaId}
+    public void inserirAlergias(List<long[]> pares) {
+        jdbcTemplate.batchUpdate(INSERIR_ALERGIA, pares, TAMANHO_BATCH, (ps, par) -> {
+            ps.setLong(1, par[0]);
+            ps.setLong(2, par[1]);
+        });
+    }
+}
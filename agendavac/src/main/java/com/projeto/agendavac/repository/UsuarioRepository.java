@@ -1,14 +1,44 @@
 package com.projeto.agendavac.repository;
 
+import com.projeto.agendavac.dto.UsuarioResumo;
 import com.projeto.agendavac.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
-    // Busca usuários que contém o nome informado, ignorando maiúsculas/minúsculas
-    List<Usuario> findByNomeContainingIgnoreCase(String nome);
+    // listagem sem endereço e alergias; o cadastro completo fica em findById
+    @Query("SELECT new com.projeto.agendavac.dto.UsuarioResumo(u.id, u.nome, u.dataNascimento, u.sexo, u.cidade, u.uf) " +
+            "FROM Usuario u ORDER BY u.id")
+    List<UsuarioResumo> buscarResumos();
+
+    // Busca usuários que contém parte do nome sem diferenciar maiúsculas e acentos, usando o índice GiST de trigramas
+    // (V10__busca_nome_usuario_gist.sql). O termo já deve vir com %, _ e \ escapados.
+    // Os mais parecidos com o termo vêm primeiro: <->> é a distância pela palavra do nome mais parecida com o termo
+    // (1 - word_similarity do pg_trgm). O id desempata nomes à mesma distância, para que as páginas não repitam nem
+    // pulem usuários. Com o desempate o índice deixa de entregar as linhas em ordem (o PostgreSQL não ordena por uma
+    // chave a mais sobre a ordem de distância do GiST): ele filtra o LIKE e as encontradas passam por uma ordenação
+    // top-N, que guarda só deslocamento + limite linhas. Por isso o serviço limita o deslocamento (MAXIMO_RESULTADOS).
+    // Linhas com as colunas de UsuarioResumo: [id, nome, data_nascimento, sexo, cidade, uf]
+    @Query(value = "SELECT u.id, u.nome, u.data_nascimento, u.sexo, u.cidade, u.uf FROM usuarios u " +
+            "WHERE lower(f_unaccent(u.nome)) LIKE '%' || lower(f_unaccent(:termo)) || '%' " +
+            "ORDER BY lower(f_unaccent(u.nome)) <->> lower(f_unaccent(:termo)), u.id " +
+            "LIMIT :limite OFFSET :deslocamento", nativeQuery = true)
+    List<Object[]> buscarPorNome(@Param("termo") String termo, @Param("limite") int limite, @Param("deslocamento") long deslocamento);
+
+    @Query("SELECT a.nome FROM Usuario u JOIN u.alergias a WHERE u.id = :usuarioId")
+    List<String> buscarNomesAlergias(@Param("usuarioId") Long usuarioId);
+
+    // pares [id do usuário, nome da alergia] de vários usuários em uma única consulta
+    @Query("SELECT u.id, a.nome FROM Usuario u JOIN u.alergias a WHERE u.id IN :usuarioIds")
+    List<Object[]> buscarNomesAlergiasPorUsuario(@Param("usuarioIds") Collection<Long> usuarioIds);
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.id IN :usuarioIds")
+    List<Long> buscarIdsExistentes(@Param("usuarioIds") Collection<Long> usuarioIds);
 }
@@ -2,12 +2,18 @@ package com.projeto.agendavac.repository;
 
 import com.projeto.agendavac.entity.Vacina;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VacinaRepository extends JpaRepository<Vacina, Long> {
 
     Optional<Vacina> findByTituloIgnoreCase(String titulo);
+
+    @Query("SELECT c.nome FROM Vacina v JOIN v.componentes c WHERE v.id = :vacinaId")
+    List<String> buscarNomesComponentes(@Param("vacinaId") Long vacinaId);
 }
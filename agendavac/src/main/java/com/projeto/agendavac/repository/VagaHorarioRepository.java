@@ -0,0 +1,44 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.entity.VagaHorario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface VagaHorarioRepository extends JpaRepository<VagaHorario, Long> {
+
+    List<VagaHorario> findByDataOrderByHora(LocalDate data);
+
+    Optional<VagaHorario> findByDataAndHora(LocalDate data, LocalTime hora);
+
+    // ocupa uma vaga somente se ainda houver capacidade; a verificação e o incremento são um único UPDATE,
+    // então dois agendamentos simultâneos não conseguem ocupar a última vaga ao mesmo tempo. Retorna 0 ou 1.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE vagas_horario SET ocupadas = ocupadas + 1 " +
+            "WHERE data = :data AND hora = :hora AND ocupadas < capacidade", nativeQuery = true)
+    int ocupar(@Param("data") LocalDate data, @Param("hora") LocalTime hora);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE vagas_horario SET ocupadas = GREATEST(ocupadas - :quantidade, 0) " +
+            "WHERE data = :data AND hora = :hora", nativeQuery = true)
+    int liberar(@Param("data") LocalDate data, @Param("hora") LocalTime hora, @Param("quantidade") int quantidade);
+
+    // cria o horário se ainda não existir; com agendamentos simultâneos só um INSERT vence
+    @Modifying
+    @Query(value = "INSERT INTO vagas_horario (data, hora, capacidade, ocupadas) VALUES (:data, :hora, :capacidade, 0) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int criarSeAusente(@Param("data") LocalDate data, @Param("hora") LocalTime hora, @Param("capacidade") int capacidade);
+
+    // a nova capacidade não pode ser menor que as vagas já ocupadas. Retorna 0 se o horário não existir ou se
+    // a capacidade for insuficiente
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE vagas_horario SET capacidade = :capacidade " +
+            "WHERE data = :data AND hora = :hora AND ocupadas <= :capacidade", nativeQuery = true)
+    int alterarCapacidade(@Param("data") LocalDate data, @Param("hora") LocalTime hora, @Param("capacidade") int capacidade);
+}
@@ -0,0 +1,30 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.entity.VersaoCatalogo;
+import com.projeto.agendavac.enums.Catalogo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface VersaoCatalogoRepository extends JpaRepository<VersaoCatalogo, Catalogo> {
+
+    @Query("SELECT v.versao FROM VersaoCatalogo v WHERE v.catalogo = :catalogo")
+    Optional<Long> buscarVersao(@Param("catalogo") Catalogo catalogo);
+
+    // catálogo e versão de todos os catálogos
+    @Query("SELECT v.catalogo, v.versao FROM VersaoCatalogo v")
+    List<Object[]> buscarVersoes();
+
+    @Modifying
+    @Query(value = "UPDATE versoes_catalogos SET versao = versao + 1 WHERE catalogo = :catalogo", nativeQuery = true)
+    int incrementar(@Param("catalogo") String catalogo);
+
+    @Modifying
+    @Query(value = "INSERT INTO versoes_catalogos (catalogo, versao) VALUES (:catalogo, 0) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int criarSeAusente(@Param("catalogo") String catalogo);
+}
@@ -1,25 +1,49 @@
 package com.projeto.agendavac.service;
 
+import com.projeto.agendavac.dto.AgendaResumo;
+import com.projeto.agendavac.dto.CursorAgenda;
+import com.projeto.agendavac.dto.PaginaAgendas;
+import com.projeto.agendavac.dto.ResultadoBaixa;
 import com.projeto.agendavac.entity.Agenda;
 import com.projeto.agendavac.entity.Usuario;
 import com.projeto.agendavac.entity.Vacina;
 import com.projeto.agendavac.enums.Situacao;
 import com.projeto.agendavac.exception.AlergiaException;
+import com.projeto.agendavac.exception.VagaIndisponivelException;
+import com.projeto.agendavac.repository.AgendaLoteRepository;
+import com.projeto.agendavac.repository.AgendaLoteRepository.BaixaAplicada;
 import com.projeto.agendavac.repository.AgendaRepository;
 import com.projeto.agendavac.repository.UsuarioRepository;
 import com.projeto.agendavac.repository.VacinaRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed("agendavac.servico")
+@Transactional(readOnly = true)
 public class AgendaService {
 
+    public static final int TAMANHO_MAXIMO_PAGINA = 1000;
+
     @Autowired
     private AgendaRepository agendaRepository;
 
@@ -29,23 +53,82 @@ public class AgendaService {
     @Autowired
     private VacinaRepository vacinaRepository;
 
+    @Autowired
+    private IndiceConflitoAlergia indiceConflitoAlergia;
+
+    @Autowired
+    private VagaService vagaService;
+
+    @Autowired
+    private MetricasAgenda metricasAgenda;
+
+    @Autowired
+    private EstatisticaAgendaService estatisticaAgendaService;
+
+    @Autowired
+    private EstatisticaReacaoService estatisticaReacaoService;
+
+    @Autowired
+    private AgendaLoteRepository agendaLoteRepository;
+
+    @Value("${agendavac.baixa.tamanho-maximo:1000}")
+    private int tamanhoMaximoBaixa;
+
+    // a vaga de cada dose é ocupada na mesma transação em que as agendas são gravadas
+    @Transactional
     public List<Agenda> agendar(Long usuarioId, Long vacinaId, LocalDate dataInicial, LocalTime hora, String observacoes) {
 
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new NoSuchElementException("Usuário com ID " + usuarioId + " não encontrado."));
 
+        // se o usuário tiver alergia a algum compoente, não deixa realizar o agendamento.
+        // Verificado antes de buscar a vacina: a leitura das versões dos catálogos descarta a vacina do cache
+        // de segundo nível se ela foi alterada em outra instância
+        if (indiceConflitoAlergia.possuiConflito(usuario.getId(), vacinaId)) {
+            metricasAgenda.recusadoPorAlergia(MetricasAgenda.ORIGEM_INDIVIDUAL);
+            throw new AlergiaException("Usuário não pode ser agendado para esta vacina, pois possui alergia a um ou mais componentes.");
+        }
+
         Vacina vacina = vacinaRepository.findById(vacinaId)
                 .orElseThrow(() -> new NoSuchElementException("Vacina com ID " + vacinaId + " não encontrada."));
 
-        // se o usuário tiver alergia a algum compoente, não deixa realizar o agendamento
-        boolean temAlergia = vacina.getComponentes().stream()
-                .anyMatch(componente -> usuario.getAlergias().stream()
-                        .anyMatch(alergia -> alergia.getNome().equalsIgnoreCase(componente.getNome())));
+        List<Agenda> agendas = new ArrayList<>();
 
-        if (temAlergia) {
-            throw new AlergiaException("Usuário não pode ser agendado para esta vacina, pois possui alergia a um ou mais componentes.");
+        for (LocalDate data : calcularDatasDoses(vacina, dataInicial)) {
+            try {
+                vagaService.reservar(data, hora);
+            } catch (VagaIndisponivelException e) {
+                metricasAgenda.recusadoPorFaltaDeVaga(MetricasAgenda.ORIGEM_INDIVIDUAL);
+                throw e;
+            }
+
+            Agenda agenda = new Agenda();
+            agenda.setUsuario(usuario);
+            agenda.setVacina(vacina);
+            agenda.setData(data);
+            agenda.setHora(hora);
+            agenda.setSituacao(Situacao.AGENDADO);
+            agenda.setObservacoes(observacoes);
+
+            // adicionar na lista de agendas.
+            agendas.add(agenda);
         }
 
+        List<Agenda> salvas = agendaRepository.saveAll(agendas);
+
+        for (Agenda agenda : salvas) {
+            estatisticaAgendaService.registrar(agenda.getData(), vacina.getId(), Situacao.AGENDADO, 1);
+        }
+        metricasAgenda.agendasCriadas(salvas.size());
+
+        return salvas;
+    }
+
+    // datas de todas as doses da vacina, considerando doses, periodicidade e intervalo;
+    // SUPPORTS: chamado por item em AgendamentoLoteService, não abre transação readOnly própria
+    @Transactional(propagation = Propagation.SUPPORTS)
+    List<LocalDate> calcularDatasDoses(Vacina vacina, LocalDate dataInicial) {
+
         int doses = vacina.getDoses();
 
         Integer intervalo = vacina.getIntervalo();
@@ -54,58 +137,175 @@ public class AgendaService {
         if (doses <= 0)
             throw new IllegalArgumentException("A vacina precisa ter pelo menos uma dose.");
 
-        List<Agenda> agendas = new ArrayList<>();
+        List<LocalDate> datas = new ArrayList<>(doses);
         LocalDate data = dataInicial;
 
         for (int i = 0; i < doses; i++) {
-            Agenda agenda = new Agenda();
-            agenda.setUsuario(usuario);
-            agenda.setVacina(vacina);
-            agenda.setData(data);
-            agenda.setHora(hora);
-            agenda.setSituacao(Situacao.AGENDADO);
-            agenda.setObservacoes(observacoes);
-
-            // adicionar na lista de agendas.
-            agendas.add(agenda);
+            datas.add(data);
 
             // para agendar as próximas horas
             if(intervalo != null && periodicidade != null && intervalo!= 0 && periodicidade != 0)
                 data = calcularProximaData(data, intervalo, periodicidade);
         }
 
-        return agendaRepository.saveAll(agendas);
+        return datas;
     }
 
+    @Transactional
     public Agenda darBaixa(Long agendaId, Situacao novaSituacao) {
 
         if (novaSituacao != Situacao.REALIZADO && novaSituacao != Situacao.CANCELADO) {
             throw new IllegalArgumentException("Situação inválida para baixa.");
         }
 
-        Agenda agenda = agendaRepository.findById(agendaId)
+        // travada até o fim da transação: uma baixa em lote ou expiração simultânea não vê a mesma situação anterior
+        Agenda agenda = agendaRepository.buscarParaAlterar(agendaId)
                 .orElseThrow(() -> new NoSuchElementException("Agenda com ID " + agendaId + " não encontrada."));
 
+        // a agenda cancelada devolve a vaga do horário
+        if (agenda.getSituacao() == Situacao.AGENDADO && novaSituacao == Situacao.CANCELADO)
+            vagaService.liberar(agenda.getData(), agenda.getHora());
+
+        Situacao anterior = agenda.getSituacao();
+
         agenda.setSituacao(novaSituacao);
         agenda.setDataSituacao(LocalDate.now());
 
-        return agendaRepository.save(agenda);
+        Agenda salva = agendaRepository.save(agenda);
+        estatisticaAgendaService.alterarSituacao(agenda.getData(), agenda.getVacina().getId(), anterior, novaSituacao);
+        metricasAgenda.situacaoAlterada(anterior, novaSituacao);
+
+        return salva;
     }
 
-    public List<Agenda> buscarTodas() {
+    // mesma regra do darBaixa, mas com um único UPDATE para todas as agendas;
+    // vagas e estatísticas são ajustadas com um comando por horário e por (dia, vacina, situação)
+    @Transactional
+    public List<ResultadoBaixa> darBaixaEmLote(List<Long> agendaIds, Situacao novaSituacao) {
 
-        List<Agenda> agendas = agendaRepository.findAll();
+        if (novaSituacao != Situacao.REALIZADO && novaSituacao != Situacao.CANCELADO) {
+            throw new IllegalArgumentException("Situação inválida para baixa.");
+        }
 
-        if (agendas.isEmpty())
-            throw new NoSuchElementException("Nenhuma agenda encontrada.");
+        if (agendaIds == null || agendaIds.isEmpty())
+            throw new IllegalArgumentException("Nenhuma agenda informada.");
 
+        if (agendaIds.contains(null))
+            throw new IllegalArgumentException("A lista de agendas não pode conter IDs nulos.");
 
-        return agendas;
+        // ids repetidos recebem um único resultado
+        Set<Long> ids = new LinkedHashSet<>(agendaIds);
+
+        if (ids.size() > tamanhoMaximoBaixa)
+            throw new IllegalArgumentException("O lote deve ter no máximo " + tamanhoMaximoBaixa + " agendas.");
+
+        List<BaixaAplicada> aplicadas = agendaLoteRepository.darBaixa(ids, novaSituacao, LocalDate.now());
+
+        Map<Long, BaixaAplicada> porId = new HashMap<>();
+        for (BaixaAplicada baixa : aplicadas) {
+            porId.put(baixa.agendaId(), baixa);
+        }
+
+        registrarBaixas(aplicadas, novaSituacao);
+
+        List<ResultadoBaixa> resultados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BaixaAplicada baixa = porId.get(id);
+
+            if (baixa == null) {
+                resultados.add(new ResultadoBaixa(id, false, null, "Agenda com ID " + id + " não encontrada."));
+                continue;
+            }
+
+            metricasAgenda.situacaoAlterada(baixa.situacaoAnterior(), novaSituacao);
+            resultados.add(new ResultadoBaixa(id, true, baixa.situacaoAnterior(), null));
+        }
+
+        return resultados;
+    }
+
+    // vagas e estatísticas das agendas já alteradas por um UPDATE em lote (baixa ou expiração)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarBaixas(List<BaixaAplicada> aplicadas, Situacao novaSituacao) {
+        liberarVagas(aplicadas, novaSituacao);
+        registrarEstatisticasBaixa(aplicadas, novaSituacao);
+    }
+
+    // a agenda cancelada ou expirada devolve a vaga do horário; uma liberação por horário, em ordem
+    private void liberarVagas(List<BaixaAplicada> aplicadas, Situacao novaSituacao) {
+
+        if (novaSituacao != Situacao.CANCELADO && novaSituacao != Situacao.EXPIRADO) return;
+
+        Map<LocalDate, Map<LocalTime, Integer>> liberadas = new TreeMap<>();
+        for (BaixaAplicada baixa : aplicadas) {
+            if (baixa.situacaoAnterior() == Situacao.AGENDADO)
+                liberadas.computeIfAbsent(baixa.data(), data -> new TreeMap<>()).merge(baixa.hora(), 1, Integer::sum);
+        }
+
+        liberadas.forEach((data, porHora) -> porHora.forEach((hora, quantidade) ->
+                vagaService.liberar(data, hora, quantidade)));
+    }
+
+    // um ajuste por (dia, vacina, situação), sempre na mesma ordem para que baixas simultâneas não se bloqueiem mutuamente
+    private void registrarEstatisticasBaixa(List<BaixaAplicada> aplicadas, Situacao novaSituacao) {
+
+        Map<LocalDate, Map<Long, Map<Situacao, Long>>> deltas = new TreeMap<>();
+        for (BaixaAplicada baixa : aplicadas) {
+            if (baixa.situacaoAnterior() == novaSituacao) continue;
+
+            Map<Situacao, Long> porSituacao = deltas.computeIfAbsent(baixa.data(), data -> new TreeMap<>())
+                    .computeIfAbsent(baixa.vacinaId(), vacinaId -> new EnumMap<>(Situacao.class));
+            porSituacao.merge(baixa.situacaoAnterior(), -1L, Long::sum);
+            porSituacao.merge(novaSituacao, 1L, Long::sum);
+        }
+
+        deltas.forEach((data, porVacina) -> porVacina.forEach((vacinaId, porSituacao) ->
+                porSituacao.forEach((situacao, delta) -> {
+                    if (delta != 0)
+                        estatisticaAgendaService.registrar(data, vacinaId, situacao, delta);
+                })));
     }
 
-    public List<Agenda> buscarPorSituacao(Situacao situacao) {
+    public boolean existeAgenda() {
+        return agendaRepository.existsByIdNotNull();
+    }
+
+    public PaginaAgendas buscarPagina(String cursor, int tamanho) {
+
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA)
+            throw new IllegalArgumentException("O tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA + ".");
 
-        List<Agenda> agendas = agendaRepository.findBySituacao(situacao);
+        List<AgendaResumo> agendas;
+
+        if (cursor == null || cursor.isBlank()) {
+            agendas = agendaRepository.buscarPrimeiraPagina(PageRequest.ofSize(tamanho));
+        } else {
+            CursorAgenda posicao = CursorAgenda.decodificar(cursor);
+            agendas = agendaRepository.buscarPaginaApos(posicao.data(), posicao.id(), PageRequest.ofSize(tamanho));
+        }
+
+        // página incompleta significa que chegamos ao fim
+        String proximoCursor = null;
+        if (agendas.size() == tamanho) {
+            AgendaResumo ultima = agendas.get(agendas.size() - 1);
+            proximoCursor = new CursorAgenda(ultima.data(), ultima.id()).codificar();
+        }
+
+        return new PaginaAgendas(agendas, proximoCursor);
+    }
+
+    // percorre todas as agendas sem mantê-las em memória: cada agenda é entregue ao consumidor.
+    // Os resumos não são entidades, então o contexto de persistência não cresce durante a leitura.
+    public void percorrerTodas(Consumer<AgendaResumo> consumidor) {
+
+        try (Stream<AgendaResumo> agendas = agendaRepository.buscarTodasEmFluxo()) {
+            agendas.forEach(consumidor);
+        }
+    }
+
+    public List<AgendaResumo> buscarPorSituacao(Situacao situacao) {
+
+        List<AgendaResumo> agendas = agendaRepository.buscarResumosPorSituacao(situacao);
 
         if (agendas.isEmpty())
             throw new NoSuchElementException("Nenhuma agenda encontrada com a situação: " + situacao.name());
@@ -120,23 +320,32 @@ public class AgendaService {
     }
 
 
+    @Transactional
     public void excluir(Long agendaId) {
-        if (!agendaRepository.existsById(agendaId)) {
-            throw new NoSuchElementException("Agenda com ID " + agendaId + " não encontrada.");
-        }
+        Agenda agenda = agendaRepository.buscarParaAlterar(agendaId)
+                .orElseThrow(() -> new NoSuchElementException("Agenda com ID " + agendaId + " não encontrada."));
+
+        if (agenda.getSituacao() == Situacao.AGENDADO)
+            vagaService.liberar(agenda.getData(), agenda.getHora());
 
-        agendaRepository.deleteById(agendaId);
+        // as reações são excluídas junto com a agenda
+        if (agenda.getReacoes() != null && !agenda.getReacoes().isEmpty())
+            estatisticaReacaoService.marcarAlteracao(agenda.getData(), agenda.getVacina().getId());
+
+        agendaRepository.delete(agenda);
+        estatisticaAgendaService.registrar(agenda.getData(), agenda.getVacina().getId(), agenda.getSituacao(), -1);
+        metricasAgenda.agendaExcluida(agenda.getSituacao());
     }
 
-    public List<Agenda> listarPorUsuario(Long usuarioId) {
+    public List<AgendaResumo> listarPorUsuario(Long usuarioId) {
 
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new NoSuchElementException("Usuário com ID " + usuarioId + " não encontrado."));
+        if (!usuarioRepository.existsById(usuarioId))
+            throw new NoSuchElementException("Usuário com ID " + usuarioId + " não encontrado.");
 
-        return agendaRepository.findByUsuario(usuario);
+        return agendaRepository.buscarResumosPorUsuario(usuarioId);
     }
 
-    private LocalDate calcularProximaData(LocalDate dataAtual, int intervalo, int periodicidade) {
+    LocalDate calcularProximaData(LocalDate dataAtual, int intervalo, int periodicidade) {
 
         switch (periodicidade) {
             case 1: // dias
@@ -0,0 +1,220 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.AgendamentoLoteItem;
+import com.projeto.agendavac.dto.FalhaLote;
+import com.projeto.agendavac.dto.ResultadoLote;
+import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.repository.AgendaLoteRepository;
+import com.projeto.agendavac.repository.AgendaLoteRepository.NovaDose;
+import com.projeto.agendavac.repository.UsuarioRepository;
+import com.projeto.agendavac.repository.VacinaRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Agendamento em lote para campanhas: usuários e vacinas são buscados de uma vez, a verificação de
+ * alergias é feita em memória e as doses são gravadas com JDBC batch, em transações por blocos de itens.
+ * As vagas dos horários são ocupadas na transação do bloco; um item sem vaga para alguma dose não é agendado.
+ * Um bloco que falha ao gravar não desfaz os blocos anteriores; seus itens são devolvidos como falhas.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+public class AgendamentoLoteService {
+
+    @Value("${agendavac.lote.tamanho-maximo:10000}")
+    private int tamanhoMaximo;
+
+    @Value("${agendavac.lote.itens-por-transacao:500}")
+    private int itensPorTransacao;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private VacinaRepository vacinaRepository;
+
+    @Autowired
+    private AgendaLoteRepository agendaLoteRepository;
+
+    @Autowired
+    private IndiceConflitoAlergia indiceConflitoAlergia;
+
+    @Autowired
+    private AgendaService agendaService;
+
+    @Autowired
+    private VagaService vagaService;
+
+    @Autowired
+    private MetricasAgenda metricasAgenda;
+
+    @Autowired
+    private EstatisticaAgendaService estatisticaAgendaService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public ResultadoLote agendar(List<AgendamentoLoteItem> itens) {
+
+        if (itens == null || itens.isEmpty())
+            throw new IllegalArgumentException("O lote precisa ter pelo menos um agendamento.");
+
+        if (itens.size() > tamanhoMaximo)
+            throw new IllegalArgumentException("O lote pode ter no máximo " + tamanhoMaximo + " agendamentos.");
+
+        Set<Long> usuarioIds = itens.stream().map(AgendamentoLoteItem::usuarioId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> vacinaIds = itens.stream().map(AgendamentoLoteItem::vacinaId).filter(Objects::nonNull).collect(Collectors.toSet());
+
+        // uma consulta para as versões dos catálogos, uma para os usuários, uma para as vacinas e uma para as alergias.
+        // As versões vêm antes das vacinas: descartam do cache de segundo nível as alteradas em outra instância
+        IndiceConflitoAlergia.Versoes versoes = indiceConflitoAlergia.versoes();
+        Set<Long> usuariosExistentes = usuarioIds.isEmpty() ? Set.of() : new HashSet<>(usuarioRepository.buscarIdsExistentes(usuarioIds));
+        Map<Long, Vacina> vacinas = vacinaRepository.findAllById(vacinaIds).stream()
+                .collect(Collectors.toMap(Vacina::getId, Function.identity()));
+        Map<Long, BitSet> alergias = indiceConflitoAlergia.alergiasDosUsuarios(usuariosExistentes, versoes);
+
+        List<FalhaLote> falhas = new ArrayList<>();
+        List<ItemValido> validos = new ArrayList<>();
+
+        for (int i = 0; i < itens.size(); i++) {
+            AgendamentoLoteItem item = itens.get(i);
+
+            String motivo = validar(item, usuariosExistentes, vacinas, alergias, versoes);
+            if (motivo != null) {
+                falhas.add(new FalhaLote(i, item.usuarioId(), item.vacinaId(), motivo));
+                continue;
+            }
+
+            List<NovaDose> doses = new ArrayList<>();
+            for (LocalDate data : agendaService.calcularDatasDoses(vacinas.get(item.vacinaId()), item.dataInicial())) {
+                doses.add(new NovaDose(item.usuarioId(), item.vacinaId(), data, item.hora(), item.observacoes()));
+            }
+
+            validos.add(new ItemValido(i, item, doses));
+        }
+
+        int agendados = 0;
+        int dosesCriadas = 0;
+
+        for (int inicio = 0; inicio < validos.size(); inicio += itensPorTransacao) {
+            List<ItemValido> bloco = validos.subList(inicio, Math.min(inicio + itensPorTransacao, validos.size()));
+            List<ItemValido> semVaga = new ArrayList<>();
+            List<NovaDose> doses = new ArrayList<>();
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    semVaga.clear();
+                    doses.clear();
+
+                    for (ItemValido valido : bloco) {
+                        if (reservarVagas(valido.doses())) {
+                            doses.addAll(valido.doses());
+                        } else {
+                            semVaga.add(valido);
+                        }
+                    }
+
+                    agendaLoteRepository.inserirDoses(doses);
+                    registrarEstatisticas(doses);
+                });
+
+                for (ItemValido valido : semVaga) {
+                    metricasAgenda.recusadoPorFaltaDeVaga(MetricasAgenda.ORIGEM_LOTE);
+                    falhas.add(new FalhaLote(valido.indice(), valido.item().usuarioId(), valido.item().vacinaId(),
+                            "Não há vagas disponíveis para uma ou mais doses no horário informado."));
+                }
+
+                metricasAgenda.agendasCriadas(doses.size());
+
+                agendados += bloco.size() - semVaga.size();
+                dosesCriadas += doses.size();
+
+            } catch (DataAccessException e) {
+                for (ItemValido valido : bloco) {
+                    falhas.add(new FalhaLote(valido.indice(), valido.item().usuarioId(), valido.item().vacinaId(),
+                            "Falha ao gravar o bloco de agendamentos: " + e.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+
+        return new ResultadoLote(itens.size(), agendados, dosesCriadas, falhas);
+    }
+
+    // um incremento por (dia, vacina), sempre na mesma ordem para que blocos simultâneos não se bloqueiem mutuamente
+    private void registrarEstatisticas(List<NovaDose> doses) {
+
+        Map<LocalDate, Map<Long, Long>> totais = new TreeMap<>();
+        for (NovaDose dose : doses) {
+            totais.computeIfAbsent(dose.data(), data -> new TreeMap<>()).merge(dose.vacinaId(), 1L, Long::sum);
+        }
+
+        totais.forEach((data, porVacina) -> porVacina.forEach((vacinaId, total) ->
+                estatisticaAgendaService.registrar(data, vacinaId, Situacao.AGENDADO, total)));
+    }
+
+    // ocupa as vagas de todas as doses do item, ou de nenhuma
+    private boolean reservarVagas(List<NovaDose> doses) {
+
+        for (int i = 0; i < doses.size(); i++) {
+            NovaDose dose = doses.get(i);
+
+            if (!vagaService.tentarReservar(dose.data(), dose.hora())) {
+                for (NovaDose reservada : doses.subList(0, i)) {
+                    vagaService.liberar(reservada.data(), reservada.hora());
+                }
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // retorna o motivo da rejeição do item, ou null se ele puder ser agendado
+    private String validar(AgendamentoLoteItem item, Set<Long> usuariosExistentes, Map<Long, Vacina> vacinas, Map<Long, BitSet> alergias,
+                           IndiceConflitoAlergia.Versoes versoes) {
+
+        if (item.usuarioId() == null || item.vacinaId() == null || item.dataInicial() == null || item.hora() == null)
+            return "Usuário, vacina, data inicial e hora são obrigatórios.";
+
+        if (item.observacoes() != null && item.observacoes().length() > 200)
+            return "As observações devem ter no máximo 200 caracteres.";
+
+        if (!usuariosExistentes.contains(item.usuarioId()))
+            return "Usuário com ID " + item.usuarioId() + " não encontrado.";
+
+        Vacina vacina = vacinas.get(item.vacinaId());
+        if (vacina == null)
+            return "Vacina com ID " + item.vacinaId() + " não encontrada.";
+
+        if (vacina.getDoses() <= 0)
+            return "A vacina precisa ter pelo menos uma dose.";
+
+        if (alergias.get(item.usuarioId()).intersects(indiceConflitoAlergia.componentesDaVacina(item.vacinaId(), versoes))) {
+            metricasAgenda.recusadoPorAlergia(MetricasAgenda.ORIGEM_LOTE);
+            return "Usuário não pode ser agendado para esta vacina, pois possui alergia a um ou mais componentes.";
+        }
+
+        return null;
+    }
+
+    private record ItemValido(int indice, AgendamentoLoteItem item, List<NovaDose> doses) {
+    }
+}
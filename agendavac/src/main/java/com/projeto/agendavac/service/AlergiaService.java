@@ -1,21 +1,28 @@
 package com.projeto.agendavac.service;
 
 import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.enums.Catalogo;
 import com.projeto.agendavac.repository.AlergiaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class AlergiaService {
 
     @Autowired
     private AlergiaRepository alergiaRepository;
 
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
+    @Transactional
     public Alergia salvar(Alergia alergia) {
 
         // se já existir uma alergia com aquele nome, não irá salvar
@@ -23,7 +30,10 @@ public class AlergiaService {
             throw new IllegalArgumentException("Alergia com o nome '" + alergia.getNome() + "' já existe.");
         }
 
-        return alergiaRepository.save(alergia);
+        Alergia alergiaSalva = alergiaRepository.save(alergia);
+        catalogosEmCache.alterado(Catalogo.ALERGIAS);
+
+        return alergiaSalva;
     }
 
     public List<Alergia> listarTodas() {
@@ -50,6 +60,7 @@ public class AlergiaService {
         return alergiaOptional.get();
     }
 
+    @Transactional
     public Alergia atualizar(Long id, Alergia alergiaAtualizada) {
         Alergia alergia = alergiaRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Alergia com ID " + id + " não encontrada."));
@@ -61,10 +72,14 @@ public class AlergiaService {
 
         alergia.setNome(alergiaAtualizada.getNome());
 
-        return alergiaRepository.save(alergia);
+        Alergia alergiaSalva = alergiaRepository.save(alergia);
+        catalogosEmCache.alterado(Catalogo.ALERGIAS);
+
+        return alergiaSalva;
     }
 
 
+    @Transactional
     public void deletar(Long id) {
         if (!alergiaRepository.existsById(id)) {
             throw new NoSuchElementException("Alergia com ID " + id + " não encontrada.");
@@ -72,6 +87,9 @@ public class AlergiaService {
 
         try {
             alergiaRepository.deleteById(id);
+            // sem o flush a violação de FK só apareceria no commit, fora deste catch
+            alergiaRepository.flush();
+            catalogosEmCache.alterado(Catalogo.ALERGIAS);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalStateException("Não é possível deletar a alergia com ID " + id + " porque está associada a outros registros.", e);
         }
@@ -0,0 +1,31 @@
+package com.projeto.agendavac.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Invalidação de caches em memória dentro de um serviço transacional: se fosse feita antes do commit, outra
+ * thread poderia recarregar o cache com os dados antigos e mantê-los até a próxima alteração.
+ * Fora de uma transação a ação é executada na hora.
+ * */
+
+final class AposCommit {
+
+    private AposCommit() {
+    }
+
+    static void executar(Runnable acao) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.EstatisticaCache;
+import com.projeto.agendavac.enums.Catalogo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Consulta as estatísticas do cache de segundo nível dos catálogos (ver ehcache.xml).
+ * Na instância que grava, o cache é mantido coerente pelo próprio Hibernate (estratégia READ_WRITE), desde que as
+ * alterações nos catálogos passem pelos repositórios JPA, como fazem VacinaService, ComponenteService e AlergiaService.
+ * As demais instâncias descartam as regiões do catálogo quando veem a versão nova em versoes_catalogos (CatalogosEmCache).
+ * Não há cache de consultas: ele não seria descartado pela versão e devolveria listas antigas com o ETag novo.
+ * */
+
+@Service
+public class CacheService {
+
+    private static final Map<Catalogo, List<String>> REGIOES_POR_CATALOGO = new EnumMap<>(Map.of(
+            Catalogo.VACINAS, List.of("vacinas", "vacinas.componentes"),
+            Catalogo.COMPONENTES, List.of("componentes"),
+            Catalogo.ALERGIAS, List.of("alergias")));
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public List<EstatisticaCache> buscarEstatisticas() {
+
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<EstatisticaCache> resultado = new ArrayList<>();
+
+        for (List<String> regioes : REGIOES_POR_CATALOGO.values()) {
+            for (String regiao : regioes) {
+                resultado.add(paraDto(regiao, estatisticas.getDomainDataRegionStatistics(regiao)));
+            }
+        }
+
+        return resultado;
+    }
+
+    // só nesta instância
+    public void descartar(Catalogo catalogo) {
+
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+
+        for (String regiao : REGIOES_POR_CATALOGO.get(catalogo)) {
+            cache.evictRegion(regiao);
+        }
+    }
+
+    public void limpar() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private EstatisticaCache paraDto(String regiao, CacheRegionStatistics estatistica) {
+        return new EstatisticaCache(regiao, estatistica.getHitCount(), estatistica.getMissCount(),
+                estatistica.getPutCount(), estatistica.getElementCountInMemory());
+    }
+}
@@ -0,0 +1,13 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.LembreteDose;
+
+/*
+ * Destino dos lembretes de dose, escolhido por agendavac.lembretes.canal ("log" por padrão ou "arquivo").
+ * Uma exceção indica que o lembrete não foi entregue; ele é tentado de novo mais tarde.
+ * */
+
+public interface CanalLembrete {
+
+    void enviar(LembreteDose lembrete) throws Exception;
+}
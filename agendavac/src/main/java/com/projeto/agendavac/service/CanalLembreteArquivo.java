@@ -0,0 +1,32 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.dto.LembreteDose;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// um lembrete por linha, em JSON, acrescentado ao arquivo configurado
+@Component
+@ConditionalOnProperty(name = "agendavac.lembretes.canal", havingValue = "arquivo")
+public class CanalLembreteArquivo implements CanalLembrete {
+
+    @Value("${agendavac.lembretes.arquivo:lembretes.jsonl}")
+    private Path arquivo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public synchronized void enviar(LembreteDose lembrete) throws IOException {
+        Files.writeString(arquivo, objectMapper.writeValueAsString(lembrete) + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,21 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.LembreteDose;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// canal de desenvolvimento: o lembrete só é registrado no log
+@Component
+@ConditionalOnProperty(name = "agendavac.lembretes.canal", havingValue = "log", matchIfMissing = true)
+public class CanalLembreteLog implements CanalLembrete {
+
+    private static final Logger log = LoggerFactory.getLogger(CanalLembreteLog.class);
+
+    @Override
+    public void enviar(LembreteDose lembrete) {
+        log.info("Lembrete {}: {}, dose de {} em {} às {} (agenda {})", lembrete.lembreteId(), lembrete.usuarioNome(),
+                lembrete.vacinaTitulo(), lembrete.data(), lembrete.hora(), lembrete.agendaId());
+    }
+}
@@ -0,0 +1,152 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.repository.VersaoCatalogoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ * Versão e JSON em cache das listas de vacinas, componentes e alergias, para GET condicional.
+ * A versão de cada catálogo fica na tabela versoes_catalogos e é incrementada pelos services na transação
+ * que altera o catálogo; o ETag é formado pela versão. Cada requisição lê só essa linha (chave primária):
+ * com o ETag atual no If-None-Match a resposta é 304 sem consultar o catálogo; caso contrário o JSON em cache
+ * é reaproveitado enquanto a versão não mudar.
+ *
+ * Como a versão é do banco, uma alteração feita em uma instância muda o ETag e descarta o JSON em cache de
+ * todas as outras. A leitura roda em transação readOnly e pode ir para uma réplica: o atraso da réplica
+ * vale para a versão e para o catálogo ao mesmo tempo.
+ * As mesmas versões validam as entradas do IndiceConflitoAlergia e do cache de segundo nível: ao ver uma versão
+ * nova, esta instância descarta as regiões do catálogo (CacheService.descartar) antes de ler as entidades.
+ * */
+
+@Component
+public class CatalogosEmCache {
+
+    private final Map<Catalogo, CorpoCatalogo> corpos = new EnumMap<>(Catalogo.class);
+
+    // maior versão de cada catálogo já vista nesta instância
+    private final Map<Catalogo, Long> versoesVistas = new ConcurrentHashMap<>();
+
+    @Autowired
+    private VersaoCatalogoRepository versaoCatalogoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheService cacheService;
+
+    // a nova versão fica visível junto com a alteração, no commit; a linha travada serializa as gravações
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void alterado(Catalogo catalogo) {
+
+        if (versaoCatalogoRepository.incrementar(catalogo.name()) == 0) {
+            versaoCatalogoRepository.criarSeAusente(catalogo.name());
+            versaoCatalogoRepository.incrementar(catalogo.name());
+        }
+    }
+
+    // versões de todos os catálogos em uma consulta (catálogo sem linha: versão 0)
+    public Map<Catalogo, Long> versoes() {
+
+        Map<Catalogo, Long> versoes = new EnumMap<>(Catalogo.class);
+        for (Catalogo catalogo : Catalogo.values()) {
+            versoes.put(catalogo, 0L);
+        }
+
+        for (Object[] linha : versaoCatalogoRepository.buscarVersoes()) {
+            versoes.put((Catalogo) linha[0], (Long) linha[1]);
+        }
+
+        versoes.forEach(this::observar);
+
+        return versoes;
+    }
+
+    public String etag(Catalogo catalogo) {
+        return etag(catalogo, versao(catalogo));
+    }
+
+    // If-None-Match com o ETag atual (comparação fraca, como pede o HTTP para GET condicional)
+    public boolean naoModificado(Catalogo catalogo, String ifNoneMatch) {
+
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+
+        String atual = etag(catalogo);
+
+        for (String etag : ifNoneMatch.split(",")) {
+            String valor = etag.trim();
+            if (valor.startsWith("W/")) valor = valor.substring(2);
+
+            if (valor.equals("*") || valor.equals(atual)) return true;
+        }
+        return false;
+    }
+
+    // devolve nulo quando o catálogo está vazio
+    public CorpoCatalogo corpo(Catalogo catalogo, Supplier<List<?>> carregar) {
+
+        // a versão é lida antes da consulta: se o catálogo mudar no meio, o JSON fica com a versão antiga
+        // e é recarregado na próxima requisição
+        long versao = versao(catalogo);
+
+        CorpoCatalogo emCache;
+        synchronized (corpos) {
+            emCache = corpos.get(catalogo);
+        }
+        if (emCache != null && emCache.versao() == versao)
+            return emCache;
+
+        List<?> itens = carregar.get();
+        if (itens.isEmpty()) return null;
+
+        CorpoCatalogo novo;
+        try {
+            novo = new CorpoCatalogo(versao, etag(catalogo, versao), objectMapper.writeValueAsBytes(itens));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar o catálogo " + catalogo + ".", e);
+        }
+
+        synchronized (corpos) {
+            CorpoCatalogo atual = corpos.get(catalogo);
+            if (atual == null || atual.versao() < versao)
+                corpos.put(catalogo, novo);
+        }
+
+        return novo;
+    }
+
+    private long versao(Catalogo catalogo) {
+        long versao = versaoCatalogoRepository.buscarVersao(catalogo).orElse(0L);
+        observar(catalogo, versao);
+        return versao;
+    }
+
+    // versão mais nova que a já vista: o catálogo foi alterado (talvez em outra instância) e as entidades dele
+    // no cache de segundo nível desta instância podem estar antigas. Uma réplica atrasada não descarta nada.
+    private void observar(Catalogo catalogo, long versao) {
+
+        Long vista = versoesVistas.get(catalogo);
+        if (vista != null && vista >= versao) return;
+
+        cacheService.descartar(catalogo);
+        versoesVistas.merge(catalogo, versao, Math::max);
+    }
+
+    private String etag(Catalogo catalogo, long versao) {
+        return "\"" + catalogo.name().toLowerCase() + "-" + versao + "\"";
+    }
+
+    public record CorpoCatalogo(long versao, String etag, byte[] json) {
+    }
+}
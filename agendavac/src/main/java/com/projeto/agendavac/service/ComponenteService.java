@@ -1,27 +1,37 @@
 package com.projeto.agendavac.service;
 
 import com.projeto.agendavac.entity.Componente;
+import com.projeto.agendavac.enums.Catalogo;
 import com.projeto.agendavac.repository.ComponenteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.NoSuchElementException;
 
 @Service
+@Transactional(readOnly = true)
 public class ComponenteService {
 
     @Autowired
     private ComponenteRepository componenteRepository;
 
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
+    @Transactional
     public Componente salvar(Componente componente) {
 
         // Verificar duplicidade ignorando case
         if (componenteRepository.findByNomeIgnoreCase(componente.getNome()).isPresent()) {
             throw new IllegalArgumentException("Componente com o nome '" + componente.getNome() + "' já existe.");
         }
-        return componenteRepository.save(componente);
+        Componente componenteSalvo = componenteRepository.save(componente);
+        catalogosEmCache.alterado(Catalogo.COMPONENTES);
+
+        return componenteSalvo;
     }
 
     public List<Componente> listarTodos() {
@@ -34,6 +44,7 @@ public class ComponenteService {
                 .orElseThrow(() -> new NoSuchElementException("Componente com ID " + id + " não encontrado."));
     }
 
+    @Transactional
     public Componente atualizar(Long id, Componente componenteAtualizado) {
 
         Componente componente = componenteRepository.findById(id)
@@ -46,9 +57,15 @@ public class ComponenteService {
 
         componente.setNome(componenteAtualizado.getNome());
 
-        return componenteRepository.save(componente);
+        Componente componenteSalvo = componenteRepository.save(componente);
+        // as vacinas trazem os nomes dos seus componentes (o IndiceConflitoAlergia também os valida pela versão de VACINAS)
+        catalogosEmCache.alterado(Catalogo.COMPONENTES);
+        catalogosEmCache.alterado(Catalogo.VACINAS);
+
+        return componenteSalvo;
     }
 
+    @Transactional
     public void deletar(Long id) {
         if (!componenteRepository.existsById(id)) {
             throw new NoSuchElementException("Componente com ID " + id + " não encontrado.");
@@ -56,6 +73,9 @@ public class ComponenteService {
 
         try {
             componenteRepository.deleteById(id);
+            componenteRepository.flush();
+            catalogosEmCache.alterado(Catalogo.COMPONENTES);
+            catalogosEmCache.alterado(Catalogo.VACINAS);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalStateException("Não é possível deletar o componente com ID " + id + " porque está associado a outros registros.", e);
         }
@@ -0,0 +1,140 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/*
+ * Escreve cada linha do ResultSet assim que é lida, sem guardar nada além do buffer de saída.
+ * */
+
+abstract class EscritorExportacao implements RowCallbackHandler, AutoCloseable {
+
+    protected final List<String> colunas;
+    protected long linhas;
+
+    protected EscritorExportacao(List<String> colunas) {
+        this.colunas = colunas;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        try {
+            escrever(rs);
+            linhas++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getLinhas() {
+        return linhas;
+    }
+
+    protected abstract void escrever(ResultSet rs) throws SQLException, IOException;
+
+    @Override
+    public abstract void close() throws IOException;
+
+    static class Csv extends EscritorExportacao {
+
+        private final Writer saida;
+
+        Csv(List<String> colunas, OutputStream saida) throws IOException {
+            super(colunas);
+            this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+            this.saida.write(String.join(",", colunas));
+            this.saida.write("\r\n");
+        }
+
+        @Override
+        protected void escrever(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= colunas.size(); i++) {
+                if (i > 1) saida.write(',');
+                String valor = rs.getString(i);
+                if (valor != null) saida.write(escapar(valor));
+            }
+            saida.write("\r\n");
+        }
+
+        // RFC 4180: campos com vírgula, aspas ou quebra de linha vão entre aspas, com as aspas duplicadas
+        static String escapar(String valor) {
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return '"' + valor.replace("\"", "\"\"") + '"';
+                }
+            }
+            return valor;
+        }
+
+        @Override
+        public void close() throws IOException {
+            saida.close();
+        }
+    }
+
+    static class Ndjson extends EscritorExportacao {
+
+        private final JsonGenerator gerador;
+        private boolean[] numericas;
+
+        Ndjson(List<String> colunas, OutputStream saida, JsonFactory fabrica) throws IOException {
+            super(colunas);
+            this.gerador = fabrica.createGenerator(saida);
+            // um objeto por linha, sem o espaço que o Jackson coloca entre valores raiz
+            this.gerador.setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void escrever(ResultSet rs) throws SQLException, IOException {
+            if (numericas == null) {
+                numericas = tiposNumericos(rs.getMetaData());
+            }
+
+            gerador.writeStartObject();
+            for (int i = 1; i <= colunas.size(); i++) {
+                gerador.writeFieldName(colunas.get(i - 1));
+
+                if (numericas[i - 1]) {
+                    long valor = rs.getLong(i);
+                    if (rs.wasNull()) gerador.writeNull();
+                    else gerador.writeNumber(valor);
+                } else {
+                    String valor = rs.getString(i);
+                    if (valor == null) gerador.writeNull();
+                    else gerador.writeString(valor);
+                }
+            }
+            gerador.writeEndObject();
+            gerador.writeRaw('\n');
+        }
+
+        private boolean[] tiposNumericos(ResultSetMetaData metadados) throws SQLException {
+            boolean[] resultado = new boolean[colunas.size()];
+            for (int i = 1; i <= colunas.size(); i++) {
+                int tipo = metadados.getColumnType(i);
+                resultado[i - 1] = tipo == Types.BIGINT || tipo == Types.INTEGER || tipo == Types.SMALLINT;
+            }
+            return resultado;
+        }
+
+        @Override
+        public void close() throws IOException {
+            gerador.close();
+        }
+    }
+}
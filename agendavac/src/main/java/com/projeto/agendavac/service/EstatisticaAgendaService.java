@@ -0,0 +1,116 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.EstatisticasAgendas;
+import com.projeto.agendavac.entity.EstatisticaAgenda;
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.repository.EstatisticaAgendaRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Contadores de agendas por (dia, vacina, situação) para o painel.
+ * São atualizados na transação de quem altera as agendas, então a leitura não consulta a tabela de agendas.
+ * A reconstrução recalcula tudo a partir das agendas, corrigindo qualquer divergência. Ela anda por períodos de
+ * dias-por-transacao dias, cada um na sua transação curta: a tabela de contadores fica travada (EXCLUSIVE, leituras
+ * continuam) só enquanto um período é apagado e recontado, e os agendamentos esperam no máximo esse tempo,
+ * não a reconstrução inteira.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+@Transactional(readOnly = true)
+public class EstatisticaAgendaService {
+
+    public static final int PERIODO_MAXIMO_DIAS = 366;
+
+    @Value("${agendavac.estatisticas.reconstrucao.dias-por-transacao:31}")
+    private int diasPorTransacao;
+
+    @Autowired
+    private EstatisticaAgendaRepository estatisticaAgendaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(LocalDate data, Long vacinaId, Situacao situacao, long delta) {
+
+        if (delta == 0) return;
+
+        if (estatisticaAgendaRepository.somar(data, vacinaId, situacao.name(), delta) == 0) {
+            estatisticaAgendaRepository.criarSeAusente(data, vacinaId, situacao.name());
+            estatisticaAgendaRepository.somar(data, vacinaId, situacao.name(), delta);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void alterarSituacao(LocalDate data, Long vacinaId, Situacao anterior, Situacao nova) {
+
+        if (anterior == nova) return;
+
+        registrar(data, vacinaId, anterior, -1);
+        registrar(data, vacinaId, nova, 1);
+    }
+
+    public EstatisticasAgendas buscar(LocalDate dataInicial, LocalDate dataFinal, Long vacinaId) {
+
+        if (dataInicial.isAfter(dataFinal))
+            throw new IllegalArgumentException("A data inicial não pode ser posterior à data final.");
+
+        if (ChronoUnit.DAYS.between(dataInicial, dataFinal) >= PERIODO_MAXIMO_DIAS)
+            throw new IllegalArgumentException("O período deve ter no máximo " + PERIODO_MAXIMO_DIAS + " dias.");
+
+        Map<Situacao, Long> totais = new EnumMap<>(Situacao.class);
+        for (Situacao situacao : Situacao.values()) {
+            totais.put(situacao, 0L);
+        }
+        for (Object[] linha : estatisticaAgendaRepository.somarPorSituacao(dataInicial, dataFinal, vacinaId)) {
+            totais.put((Situacao) linha[0], ((Number) linha[1]).longValue());
+        }
+
+        List<EstatisticaAgenda> porDia = estatisticaAgendaRepository.buscarPorPeriodo(dataInicial, dataFinal, vacinaId);
+
+        return new EstatisticasAgendas(dataInicial, dataFinal, vacinaId, totais, porDia);
+    }
+
+    // retorna a quantidade de contadores gravados
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconstruir() {
+
+        Object[] periodo = estatisticaAgendaRepository.buscarPeriodoComDados().get(0);
+        if (periodo[0] == null) return 0;
+
+        LocalDate primeiro = paraData(periodo[0]);
+        LocalDate ultimo = paraData(periodo[1]);
+        int contadores = 0;
+
+        for (LocalDate dia = primeiro; !dia.isAfter(ultimo); dia = dia.plusDays(diasPorTransacao)) {
+            LocalDate inicio = dia;
+            LocalDate fim = dia.plusDays(diasPorTransacao);
+
+            contadores += transactionTemplate.execute(status -> {
+                estatisticaAgendaRepository.bloquearParaReconstrucao();
+                estatisticaAgendaRepository.apagarPeriodo(inicio, fim);
+                return estatisticaAgendaRepository.recalcularPeriodo(inicio, fim);
+            });
+        }
+
+        return contadores;
+    }
+
+    private LocalDate paraData(Object valor) {
+        return valor instanceof Date data ? data.toLocalDate() : (LocalDate) valor;
+    }
+}
@@ -0,0 +1,99 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.TaxaReacao;
+import com.projeto.agendavac.dto.TaxasReacoes;
+import com.projeto.agendavac.enums.AgrupamentoReacao;
+import com.projeto.agendavac.enums.PeriodoAgregacao;
+import com.projeto.agendavac.repository.ResumoReacaoRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Taxas de reação por vacina e por componente, em relação às doses realizadas.
+ * As reações ficam resumidas por (dia da dose, vacina) em resumo_reacoes e as doses realizadas vêm de
+ * estatisticas_agenda, então a consulta não passa pelas tabelas de agendas e reações.
+ * O resumo é incremental: quem grava ou exclui reações marca o (dia, vacina) na própria transação e a
+ * atualização periódica recalcula somente os marcados. Até a próxima atualização os totais podem estar
+ * alguns segundos atrasados.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+@Transactional(readOnly = true)
+public class EstatisticaReacaoService {
+
+    @Value("${agendavac.reacoes.resumo.linhas-por-atualizacao:500}")
+    private int linhasPorAtualizacao;
+
+    @Autowired
+    private ResumoReacaoRepository resumoReacaoRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void marcarAlteracao(LocalDate data, Long vacinaId) {
+
+        if (resumoReacaoRepository.marcarAlteracao(data, vacinaId) == 0) {
+            resumoReacaoRepository.criarSeAusente(data, vacinaId);
+            resumoReacaoRepository.marcarAlteracao(data, vacinaId);
+        }
+    }
+
+    // retorna a quantidade de linhas recalculadas; zero quando não há (ou não foi possível travar) pendentes
+    @Transactional
+    public int atualizar() {
+
+        List<Long> pendentes = resumoReacaoRepository.travarPendentes(linhasPorAtualizacao);
+
+        if (pendentes.isEmpty()) return 0;
+
+        return resumoReacaoRepository.recalcular(pendentes);
+    }
+
+    public TaxasReacoes buscar(LocalDate dataInicial, LocalDate dataFinal, AgrupamentoReacao agrupamento, PeriodoAgregacao periodo) {
+
+        if (dataInicial.isAfter(dataFinal))
+            throw new IllegalArgumentException("A data inicial não pode ser posterior à data final.");
+
+        if (ChronoUnit.DAYS.between(dataInicial, dataFinal) >= EstatisticaAgendaService.PERIODO_MAXIMO_DIAS)
+            throw new IllegalArgumentException("O período deve ter no máximo " + EstatisticaAgendaService.PERIODO_MAXIMO_DIAS + " dias.");
+
+        boolean total = periodo == PeriodoAgregacao.TOTAL;
+
+        List<Object[]> linhas = agrupamento == AgrupamentoReacao.COMPONENTE
+                ? resumoReacaoRepository.somarPorComponente(dataInicial, dataFinal, periodo.getUnidade(), total)
+                : resumoReacaoRepository.somarPorVacina(dataInicial, dataFinal, periodo.getUnidade(), total);
+
+        List<TaxaReacao> taxas = new ArrayList<>(linhas.size());
+        for (Object[] linha : linhas) {
+            long doses = ((Number) linha[3]).longValue();
+            long reacoes = ((Number) linha[4]).longValue();
+            long dosesComReacao = ((Number) linha[5]).longValue();
+
+            taxas.add(new TaxaReacao(paraData(linha[0]), ((Number) linha[1]).longValue(), (String) linha[2],
+                    doses, reacoes, dosesComReacao, doses == 0 ? null : (double) dosesComReacao / doses));
+        }
+
+        return new TaxasReacoes(dataInicial, dataFinal, agrupamento, periodo, taxas);
+    }
+
+    // retorna a quantidade de linhas gravadas
+    @Transactional
+    public int reconstruir() {
+        resumoReacaoRepository.bloquearParaReconstrucao();
+        resumoReacaoRepository.apagarTodos();
+        return resumoReacaoRepository.recalcularTodos();
+    }
+
+    private LocalDate paraData(Object valor) {
+        return valor instanceof Date data ? data.toLocalDate() : (LocalDate) valor;
+    }
+}
@@ -0,0 +1,129 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.repository.AgendaLoteRepository;
+import com.projeto.agendavac.repository.AgendaLoteRepository.BaixaAplicada;
+import com.projeto.agendavac.repository.MarcaTarefaRepository;
+import com.projeto.agendavac.repository.MarcaTarefaRepository.MarcaTarefa;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Expiração das agendas AGENDADO cuja data já passou (falta): passam para EXPIRADO, devolvem a vaga do horário
+ * e os contadores de estatisticas_agenda são ajustados, como em uma baixa em lote.
+ * As agendas são percorridas em ordem de (data, id) em blocos de agendas-por-bloco, cada bloco em uma transação
+ * curta. A marca (data, id) da última agenda expirada é gravada na mesma transação; após um reinício a passada
+ * continua da marca em vez de reler o início do índice. Ao fim da passada a marca é zerada, e a passada
+ * seguinte pega também as agendas puladas por estarem travadas.
+ * Uma agenda expirada ainda pode receber baixa (REALIZADO ou CANCELADO); a vaga não volta a ser ocupada.
+ *
+ * Vazão: agendavac.expiracao.bloco (duração de cada bloco), agendavac.agendas.transicoes{de=AGENDADO, para=EXPIRADO}
+ * e um resumo no log ao fim de cada passada.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+public class ExpiracaoAgendaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiracaoAgendaService.class);
+
+    private static final String TAREFA = "expiracao-agendas";
+
+    private static final Comparator<BaixaAplicada> ORDEM_MARCA =
+            Comparator.comparing(BaixaAplicada::data).thenComparing(BaixaAplicada::agendaId);
+
+    @Value("${agendavac.agendas.expiracao.agendas-por-bloco:1000}")
+    private int agendasPorBloco;
+
+    @Autowired
+    private AgendaLoteRepository agendaLoteRepository;
+
+    @Autowired
+    private MarcaTarefaRepository marcaTarefaRepository;
+
+    @Autowired
+    private AgendaService agendaService;
+
+    @Autowired
+    private MetricasAgenda metricasAgenda;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Timer tempoBloco;
+
+    @PostConstruct
+    void registrarMedidores() {
+        tempoBloco = Timer.builder("agendavac.expiracao.bloco")
+                .description("Expiração de um bloco de agendas vencidas")
+                .register(registry);
+    }
+
+    // "-" em agendavac.agendas.expiracao-cron desliga a expiração automática;
+    // retorna a quantidade de agendas expiradas nesta execução
+    @Scheduled(cron = "${agendavac.agendas.expiracao-cron:0 15 0 * * *}")
+    public int expirarAtrasadas() {
+
+        LocalDate hoje = LocalDate.now();
+        long inicio = System.nanoTime();
+        int total = 0;
+        int bloco;
+
+        do {
+            bloco = tempoBloco.record(() -> transactionTemplate.execute(status -> expirarBloco(hoje)));
+            total += Math.max(bloco, 0);
+        } while (bloco == agendasPorBloco);
+
+        if (bloco < 0) {
+            log.info("Expiração de agendas em andamento em outro nó; {} agendas expiradas aqui", total);
+            return total;
+        }
+
+        long ms = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        log.info("Expiração de agendas: {} agendas em {} ms ({} agendas/s)", total, ms, total * 1000L / ms);
+
+        return total;
+    }
+
+    // -1 quando outro nó está com a tarefa
+    private int expirarBloco(LocalDate hoje) {
+
+        Optional<MarcaTarefa> marca = marcaTarefaRepository.travar(TAREFA);
+
+        if (marca.isEmpty()) return -1;
+
+        List<BaixaAplicada> expiradas = agendaLoteRepository.expirar(hoje, marca.get().data(), marca.get().agendaId(),
+                agendasPorBloco, hoje);
+
+        agendaService.registrarBaixas(expiradas, Situacao.EXPIRADO);
+
+        if (expiradas.size() < agendasPorBloco) {
+            marcaTarefaRepository.gravar(TAREFA, null, null, LocalDateTime.now());
+        } else {
+            BaixaAplicada ultima = expiradas.stream().max(ORDEM_MARCA).orElseThrow();
+            marcaTarefaRepository.gravar(TAREFA, ultima.data(), ultima.agendaId(), LocalDateTime.now());
+        }
+
+        metricasAgenda.situacaoAlterada(Situacao.AGENDADO, Situacao.EXPIRADO, expiradas.size());
+
+        return expiradas.size();
+    }
+}
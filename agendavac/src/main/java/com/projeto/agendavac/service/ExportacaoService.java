@@ -0,0 +1,63 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.dto.FiltroExportacao;
+import com.projeto.agendavac.enums.FormatoArquivo;
+import com.projeto.agendavac.repository.ExportacaoRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Exportação completa de agendas e reações para os órgãos de saúde.
+ * As linhas vão do cursor do banco direto para a saída, então a memória usada não depende do volume.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+@Transactional(readOnly = true)
+public class ExportacaoService {
+
+    @Autowired
+    private ExportacaoRepository exportacaoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // retorna a quantidade de linhas exportadas
+    public long exportarAgendas(FiltroExportacao filtro, FormatoArquivo formato, boolean compactar, OutputStream saida)
+            throws IOException {
+
+        return exportar(ExportacaoRepository.COLUNAS_AGENDAS, exportacaoRepository::percorrerAgendas,
+                filtro, formato, compactar, saida);
+    }
+
+    public long exportarReacoes(FiltroExportacao filtro, FormatoArquivo formato, boolean compactar, OutputStream saida)
+            throws IOException {
+
+        return exportar(ExportacaoRepository.COLUNAS_REACOES, exportacaoRepository::percorrerReacoes,
+                filtro, formato, compactar, saida);
+    }
+
+    private long exportar(List<String> colunas, BiConsumer<FiltroExportacao, EscritorExportacao> consulta,
+                          FiltroExportacao filtro, FormatoArquivo formato, boolean compactar, OutputStream saida)
+            throws IOException {
+
+        OutputStream destino = compactar ? new GZIPOutputStream(saida, 64 * 1024) : saida;
+
+        try (EscritorExportacao escritor = switch (formato) {
+            case CSV -> new EscritorExportacao.Csv(colunas, destino);
+            case NDJSON -> new EscritorExportacao.Ndjson(colunas, destino, objectMapper.getFactory());
+        }) {
+            consulta.accept(filtro, escritor);
+            return escritor.getLinhas();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.exception.ChaveIdempotenciaException;
+import com.projeto.agendavac.repository.ChaveIdempotenciaRepository;
+import com.projeto.agendavac.repository.ChaveIdempotenciaRepository.RespostaGravada;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+ * Idempotency-Key de POST /agendas e POST /reacoes: a repetição de uma requisição com a mesma chave recebe a
+ * resposta da primeira, sem criar as agendas (ou a reação) de novo.
+ * A chave e a resposta são gravadas em chaves_idempotencia na mesma transação da operação; se ela falhar, nada
+ * fica gravado e a repetição executa a operação normalmente. Duas requisições simultâneas com a mesma chave são
+ * serializadas pelo banco (ver ChaveIdempotenciaRepository).
+ * As últimas respostas ficam também em um cache LRU da instância (cache.maximo-chaves), preenchido só após o commit,
+ * que responde às repetições sem consultar o banco. Outra instância encontra a chave na tabela.
+ * A mesma chave com outros parâmetros é recusada (422). As chaves valem por pelo menos validade-horas; depois
+ * disso são excluídas pela limpeza periódica.
+ *
+ * Métrica: agendavac.idempotencia{resultado=executada|repetida-cache|repetida-banco}.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+    public static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private static final int CHAVES_POR_EXCLUSAO = 1000;
+
+    @Value("${agendavac.idempotencia.validade-horas:24}")
+    private long validadeHoras;
+
+    @Value("${agendavac.idempotencia.cache.maximo-chaves:10000}")
+    private int maximoChavesEmCache;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // em ordem de acesso: a entrada mais antiga é a menos usada
+    private final Map<ChaveOperacao, RespostaGravada> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChaveOperacao, RespostaGravada> maisAntiga) {
+            return size() > maximoChavesEmCache;
+        }
+    };
+
+    // acao roda na transação aberta aqui (os services com @Transactional participam dela);
+    // status é o código HTTP da resposta quando a operação é executada
+    public RespostaIdempotente executar(String operacao, String chave, List<?> parametros, int status, Supplier<?> acao) {
+
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE)
+            throw new IllegalArgumentException("O Idempotency-Key deve ter de 1 a " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+
+        ChaveOperacao chaveOperacao = new ChaveOperacao(operacao, chave);
+        String requisicao = resumo(parametros);
+
+        RespostaGravada emCache = buscarEmCache(chaveOperacao);
+        if (emCache != null) {
+            contar("repetida-cache");
+            return repetir(chaveOperacao, emCache, requisicao);
+        }
+
+        return transactionTemplate.execute(transacao -> {
+
+            LocalDateTime agora = LocalDateTime.now();
+
+            // chave existente: já foi confirmada por outra transação (o INSERT espera a transação dela terminar)
+            if (!chaveIdempotenciaRepository.reservar(operacao, chave, requisicao, agora)) {
+                RespostaGravada gravada = chaveIdempotenciaRepository.buscar(operacao, chave).orElseThrow();
+                guardarEmCache(chaveOperacao, gravada);
+                contar("repetida-banco");
+                return repetir(chaveOperacao, gravada, requisicao);
+            }
+
+            String resposta = serializar(acao.get());
+            chaveIdempotenciaRepository.gravarResposta(operacao, chave, status, resposta);
+
+            RespostaGravada gravada = new RespostaGravada(requisicao, status, resposta, agora);
+            AposCommit.executar(() -> guardarEmCache(chaveOperacao, gravada));
+            contar("executada");
+
+            return new RespostaIdempotente(status, resposta.getBytes(StandardCharsets.UTF_8), false);
+        });
+    }
+
+    // "-" em agendavac.idempotencia.limpeza-cron desliga a limpeza; retorna a quantidade de chaves excluídas
+    @Scheduled(cron = "${agendavac.idempotencia.limpeza-cron:0 40 * * * *}")
+    public int excluirVencidas() {
+
+        LocalDateTime limite = LocalDateTime.now().minusHours(validadeHoras);
+        int total = 0;
+        int excluidas;
+
+        // blocos curtos, cada um na sua transação, para não travar muitas linhas de uma vez
+        do {
+            excluidas = chaveIdempotenciaRepository.excluirVencidas(limite, CHAVES_POR_EXCLUSAO);
+            total += excluidas;
+        } while (excluidas == CHAVES_POR_EXCLUSAO);
+
+        synchronized (cache) {
+            cache.values().removeIf(resposta -> resposta.criadaEm().isBefore(limite));
+        }
+
+        if (total > 0) log.info("Chaves de idempotência vencidas excluídas: {}", total);
+
+        return total;
+    }
+
+    private RespostaIdempotente repetir(ChaveOperacao chaveOperacao, RespostaGravada gravada, String requisicao) {
+
+        if (!gravada.requisicao().equals(requisicao))
+            throw new ChaveIdempotenciaException("O Idempotency-Key " + chaveOperacao.chave()
+                    + " já foi usado em uma requisição com outros parâmetros.");
+
+        return new RespostaIdempotente(gravada.status(), gravada.resposta().getBytes(StandardCharsets.UTF_8), true);
+    }
+
+    private RespostaGravada buscarEmCache(ChaveOperacao chaveOperacao) {
+
+        LocalDateTime limite = LocalDateTime.now().minusHours(validadeHoras);
+
+        synchronized (cache) {
+            RespostaGravada resposta = cache.get(chaveOperacao);
+
+            // vencida: pode já ter sido excluída da tabela
+            if (resposta != null && resposta.criadaEm().isBefore(limite)) {
+                cache.remove(chaveOperacao);
+                return null;
+            }
+            return resposta;
+        }
+    }
+
+    private void guardarEmCache(ChaveOperacao chaveOperacao, RespostaGravada resposta) {
+        synchronized (cache) {
+            cache.put(chaveOperacao, resposta);
+        }
+    }
+
+    private String serializar(Object resultado) {
+        try {
+            return objectMapper.writeValueAsString(resultado);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar a resposta da operação.", e);
+        }
+    }
+
+    // SHA-256 dos parâmetros em JSON
+    private String resumo(List<?> parametros) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(objectMapper.writeValueAsBytes(parametros)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível calcular o resumo da requisição.", e);
+        }
+    }
+
+    private void contar(String resultado) {
+        Counter.builder("agendavac.idempotencia")
+                .description("Requisições com Idempotency-Key")
+                .tag("resultado", resultado)
+                .register(registry)
+                .increment();
+    }
+
+    private record ChaveOperacao(String operacao, String chave) {
+    }
+
+    public record RespostaIdempotente(int status, byte[] json, boolean repetida) {
+    }
+}
@@ -0,0 +1,384 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.dto.RejeicaoImportacao;
+import com.projeto.agendavac.dto.ResultadoImportacao;
+import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.entity.Usuario;
+import com.projeto.agendavac.enums.FormatoArquivo;
+import com.projeto.agendavac.repository.AlergiaRepository;
+import com.projeto.agendavac.repository.UsuarioLoteRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Importação de cadastros de usuários (CSV ou NDJSON).
+ * O arquivo é lido linha a linha em blocos; cada bloco é interpretado e validado em paralelo e os
+ * usuários válidos são gravados com JDBC batch, junto com suas alergias, em uma transação por bloco.
+ * As alergias são resolvidas em memória a partir do catálogo, carregado uma única vez por importação.
+ *
+ * CSV: cabeçalho obrigatório com as colunas nome, dataNascimento, sexo, logradouro, setor, cidade, uf
+ * e, opcionalmente, alergias (IDs ou nomes separados por "|"). Campos entre aspas não podem ter quebra de linha.
+ * NDJSON: um objeto por linha com os mesmos campos; alergias é uma lista de IDs ou nomes.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+public class ImportacaoUsuarioService {
+
+    private static final List<String> COLUNAS_OBRIGATORIAS =
+            List.of("nome", "dataNascimento", "sexo", "logradouro", "setor", "cidade", "uf");
+
+    @Value("${agendavac.importacao.linhas-por-transacao:1000}")
+    private int linhasPorTransacao;
+
+    @Value("${agendavac.importacao.max-rejeicoes-detalhadas:1000}")
+    private int maxRejeicoesDetalhadas;
+
+    @Autowired
+    private AlergiaRepository alergiaRepository;
+
+    @Autowired
+    private UsuarioLoteRepository usuarioLoteRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public ResultadoImportacao importar(InputStream arquivo, FormatoArquivo formato) throws IOException {
+
+        CatalogoAlergias catalogo = new CatalogoAlergias(alergiaRepository.findAll());
+        Relatorio relatorio = new Relatorio(maxRejeicoesDetalhadas);
+
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(arquivo, StandardCharsets.UTF_8), 64 * 1024)) {
+
+            long numeroLinha = 0;
+            Map<String, Integer> cabecalho = null;
+
+            if (formato == FormatoArquivo.CSV) {
+                String primeira = leitor.readLine();
+                numeroLinha++;
+                if (primeira == null)
+                    throw new IllegalArgumentException("O arquivo está vazio.");
+                cabecalho = lerCabecalho(removerBom(primeira));
+            }
+
+            List<LinhaArquivo> bloco = new ArrayList<>(linhasPorTransacao);
+            String texto;
+
+            while ((texto = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (numeroLinha == 1) texto = removerBom(texto);
+                if (texto.isBlank()) continue;
+
+                bloco.add(new LinhaArquivo(numeroLinha, texto));
+
+                if (bloco.size() == linhasPorTransacao) {
+                    processarBloco(bloco, formato, cabecalho, catalogo, relatorio);
+                    bloco = new ArrayList<>(linhasPorTransacao);
+                }
+            }
+
+            if (!bloco.isEmpty()) {
+                processarBloco(bloco, formato, cabecalho, catalogo, relatorio);
+            }
+        }
+
+        return relatorio.resultado();
+    }
+
+    private void processarBloco(List<LinhaArquivo> bloco, FormatoArquivo formato, Map<String, Integer> cabecalho,
+                                CatalogoAlergias catalogo, Relatorio relatorio) {
+
+        // interpretação e validação são independentes entre as linhas
+        List<LinhaValidada> validadas = bloco.parallelStream()
+                .map(linha -> validar(linha, formato, cabecalho, catalogo))
+                .toList();
+
+        List<LinhaValidada> validas = new ArrayList<>();
+        for (LinhaValidada validada : validadas) {
+            relatorio.lida();
+            if (validada.motivo() != null) {
+                relatorio.rejeitar(validada.numeroLinha(), validada.motivo());
+            } else {
+                validas.add(validada);
+            }
+        }
+
+        if (validas.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Usuario> usuarios = validas.stream().map(LinhaValidada::usuario).toList();
+                usuarioLoteRepository.inserirUsuarios(usuarios);
+
+                List<long[]> pares = new ArrayList<>();
+                for (LinhaValidada validada : validas) {
+                    for (Long alergiaId : validada.alergiaIds()) {
+                        pares.add(new long[]{validada.usuario().getId(), alergiaId});
+                    }
+                }
+                if (!pares.isEmpty()) {
+                    usuarioLoteRepository.inserirAlergias(pares);
+                }
+            });
+
+            relatorio.importados(validas.size());
+
+        } catch (DataAccessException e) {
+            for (LinhaValidada validada : validas) {
+                relatorio.rejeitar(validada.numeroLinha(),
+                        "Falha ao gravar o bloco de usuários: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    LinhaValidada validar(LinhaArquivo linha, FormatoArquivo formato, Map<String, Integer> cabecalho, CatalogoAlergias catalogo) {
+        try {
+            CamposUsuario campos = formato == FormatoArquivo.CSV
+                    ? lerCsv(linha.texto(), cabecalho)
+                    : lerNdjson(linha.texto());
+
+            Usuario usuario = new Usuario();
+            usuario.setNome(campos.nome());
+            usuario.setDataNascimento(campos.dataNascimento() == null || campos.dataNascimento().isBlank()
+                    ? null : LocalDate.parse(campos.dataNascimento().trim()));
+            usuario.setSexo(campos.sexo());
+            usuario.setLogradouro(campos.logradouro());
+            usuario.setSetor(campos.setor());
+            usuario.setCidade(campos.cidade());
+            usuario.setUf(campos.uf());
+
+            Set<ConstraintViolation<Usuario>> violacoes = validator.validate(usuario);
+            if (!violacoes.isEmpty()) {
+                String motivo = violacoes.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(" "));
+                return LinhaValidada.rejeitada(linha.numero(), motivo);
+            }
+
+            Set<Long> alergiaIds = new LinkedHashSet<>();
+            for (String referencia : campos.alergias()) {
+                Long id = catalogo.resolver(referencia);
+                if (id == null)
+                    return LinhaValidada.rejeitada(linha.numero(), "Alergia não encontrada: " + referencia);
+                alergiaIds.add(id);
+            }
+
+            return new LinhaValidada(linha.numero(), usuario, alergiaIds, null);
+
+        } catch (DateTimeParseException e) {
+            return LinhaValidada.rejeitada(linha.numero(), "Data de nascimento inválida, use o formato AAAA-MM-DD.");
+        } catch (IllegalArgumentException | IOException e) {
+            return LinhaValidada.rejeitada(linha.numero(), e.getMessage());
+        }
+    }
+
+    private Map<String, Integer> lerCabecalho(String linha) {
+        List<String> nomes = dividirCsv(linha);
+        Map<String, Integer> cabecalho = new HashMap<>();
+
+        for (int i = 0; i < nomes.size(); i++) {
+            cabecalho.put(nomes.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        List<String> ausentes = COLUNAS_OBRIGATORIAS.stream()
+                .filter(coluna -> !cabecalho.containsKey(coluna.toLowerCase(Locale.ROOT)))
+                .toList();
+
+        if (!ausentes.isEmpty())
+            throw new IllegalArgumentException("Colunas obrigatórias ausentes no cabeçalho: " + String.join(", ", ausentes));
+
+        return cabecalho;
+    }
+
+    private CamposUsuario lerCsv(String linha, Map<String, Integer> cabecalho) {
+        List<String> valores = dividirCsv(linha);
+
+        String alergias = valor(valores, cabecalho, "alergias");
+        List<String> referencias = alergias == null || alergias.isBlank()
+                ? List.of()
+                : List.of(alergias.split("\\|"));
+
+        return new CamposUsuario(
+                valor(valores, cabecalho, "nome"),
+                valor(valores, cabecalho, "datanascimento"),
+                valor(valores, cabecalho, "sexo"),
+                valor(valores, cabecalho, "logradouro"),
+                valor(valores, cabecalho, "setor"),
+                valor(valores, cabecalho, "cidade"),
+                valor(valores, cabecalho, "uf"),
+                referencias);
+    }
+
+    private static String valor(List<String> valores, Map<String, Integer> cabecalho, String coluna) {
+        Integer indice = cabecalho.get(coluna);
+        return indice == null || indice >= valores.size() ? null : valores.get(indice);
+    }
+
+    private CamposUsuario lerNdjson(String linha) throws IOException {
+        JsonNode objeto = objectMapper.readTree(linha);
+
+        if (objeto == null || !objeto.isObject())
+            throw new IllegalArgumentException("A linha não é um objeto JSON.");
+
+        // aceita IDs, nomes ou objetos no formato do cadastro ({"id": 1})
+        List<String> referencias = new ArrayList<>();
+        for (JsonNode alergia : objeto.path("alergias")) {
+            JsonNode referencia = alergia.isObject() ? (alergia.has("id") ? alergia.get("id") : alergia.get("nome")) : alergia;
+            if (referencia != null && !referencia.isNull()) {
+                referencias.add(referencia.asText());
+            }
+        }
+
+        return new CamposUsuario(
+                texto(objeto, "nome"), texto(objeto, "dataNascimento"), texto(objeto, "sexo"),
+                texto(objeto, "logradouro"), texto(objeto, "setor"), texto(objeto, "cidade"), texto(objeto, "uf"),
+                referencias);
+    }
+
+    private static String texto(JsonNode objeto, String campo) {
+        JsonNode valor = objeto.get(campo);
+        return valor == null || valor.isNull() ? null : valor.asText();
+    }
+
+    // separa uma linha CSV (RFC 4180) em campos; aspas duplicadas dentro de um campo entre aspas viram uma aspa
+    static List<String> dividirCsv(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+
+            if (entreAspas) {
+                if (c == '"') {
+                    if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else {
+                        entreAspas = false;
+                    }
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+
+        if (entreAspas)
+            throw new IllegalArgumentException("Aspas não fechadas na linha.");
+
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private static String removerBom(String linha) {
+        return !linha.isEmpty() && linha.charAt(0) == '\uFEFF' ? linha.substring(1) : linha;
+    }
+
+    record LinhaArquivo(long numero, String texto) {
+    }
+
+    record LinhaValidada(long numeroLinha, Usuario usuario, Set<Long> alergiaIds, String motivo) {
+
+        static LinhaValidada rejeitada(long numeroLinha, String motivo) {
+            return new LinhaValidada(numeroLinha, null, Set.of(), motivo);
+        }
+    }
+
+    private record CamposUsuario(String nome, String dataNascimento, String sexo, String logradouro, String setor,
+                                 String cidade, String uf, List<String> alergias) {
+    }
+
+    // alergias por ID e por nome (sem diferenciar maiúsculas); o catálogo é pequeno e cabe em memória
+    static class CatalogoAlergias {
+
+        private final Set<Long> ids;
+        private final Map<String, Long> idsPorNome;
+
+        CatalogoAlergias(List<Alergia> alergias) {
+            this.ids = alergias.stream().map(Alergia::getId).collect(Collectors.toSet());
+            this.idsPorNome = alergias.stream().collect(Collectors.toMap(
+                    alergia -> IndiceConflitoAlergia.normalizar(alergia.getNome()), Alergia::getId, (a, b) -> a));
+        }
+
+        Long resolver(String referencia) {
+            String valor = referencia.trim();
+            if (!valor.isEmpty() && valor.chars().allMatch(Character::isDigit)) {
+                Long id = Long.valueOf(valor);
+                return ids.contains(id) ? id : null;
+            }
+            return idsPorNome.get(IndiceConflitoAlergia.normalizar(valor));
+        }
+    }
+
+    private static class Relatorio {
+
+        private final int maxDetalhadas;
+        private final List<RejeicaoImportacao> rejeicoes = new ArrayList<>();
+        private long lidas;
+        private long importados;
+        private long rejeitados;
+
+        Relatorio(int maxDetalhadas) {
+            this.maxDetalhadas = maxDetalhadas;
+        }
+
+        void lida() {
+            lidas++;
+        }
+
+        void importados(int quantidade) {
+            importados += quantidade;
+        }
+
+        void rejeitar(long linha, String motivo) {
+            rejeitados++;
+            if (rejeicoes.size() < maxDetalhadas) {
+                rejeicoes.add(new RejeicaoImportacao(linha, motivo));
+            }
+        }
+
+        ResultadoImportacao resultado() {
+            rejeicoes.sort(Comparator.comparingLong(RejeicaoImportacao::linha));
+            return new ResultadoImportacao(lidas, importados, rejeitados, rejeicoes);
+        }
+    }
+}
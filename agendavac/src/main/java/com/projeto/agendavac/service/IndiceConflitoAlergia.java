@@ -0,0 +1,201 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.repository.UsuarioRepository;
+import com.projeto.agendavac.repository.VacinaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Índice em memória usado na verificação de alergias do agendamento.
+ * Cada nome de componente/alergia (normalizado) recebe um id inteiro sequencial, e vacinas e usuários
+ * guardam seus nomes como um BitSet desses ids. Assim, o conflito é verificado com uma única interseção,
+ * sem carregar as coleções nem comparar strings a cada agendamento.
+ *
+ * Cada entrada guarda a versão do catálogo (versoes_catalogos) lida antes da carga, e só vale enquanto a versão
+ * do banco for a mesma: componentes da vacina pela versão de VACINAS (incrementada também quando um componente
+ * muda), alergias do usuário pela de ALERGIAS. Como a versão é do banco, uma alteração feita em outra instância
+ * descarta as entradas desta. A troca das alergias de um usuário não tem versão: vale nesta instância no commit
+ * (invalidarUsuario) e nas demais quando a entrada vence (agendavac.conflito.validade-usuario-ms).
+ *
+ * A carga é feita fora dos mapas, sem travar outras chaves durante a consulta ao banco.
+ * */
+
+@Component
+public class IndiceConflitoAlergia {
+
+    private static final int MAX_USUARIOS_PADRAO = 100_000;
+
+    @Autowired
+    private VacinaRepository vacinaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
+    // limite de usuários mantidos no índice; ao ser atingido, o usado há mais tempo é descartado
+    @Value("${agendavac.conflito.max-usuarios:" + MAX_USUARIOS_PADRAO + "}")
+    private int maxUsuarios = MAX_USUARIOS_PADRAO;
+
+    @Value("${agendavac.conflito.validade-usuario-ms:10000}")
+    private long validadeUsuarioMs = 10_000;
+
+    private final Map<String, Integer> idsPorNome = new ConcurrentHashMap<>();
+    private final AtomicInteger proximoId = new AtomicInteger();
+
+    // os BitSets nunca são alterados depois de publicados nos mapas
+    private final Map<Long, Entrada> componentesPorVacina = new ConcurrentHashMap<>();
+
+    // em ordem de acesso: a entrada mais antiga é a menos usada
+    private final Map<Long, Entrada> alergiasPorUsuario = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entrada> maisAntiga) {
+            return size() > maxUsuarios;
+        }
+    };
+
+    // incrementada a cada invalidação de usuário: uma carga iniciada antes dela não é guardada
+    private final AtomicLong geracaoUsuarios = new AtomicLong();
+
+    public boolean possuiConflito(Long usuarioId, Long vacinaId) {
+
+        Versoes versoes = versoes();
+
+        return alergiasDoUsuario(usuarioId, versoes).intersects(componentesDaVacina(vacinaId, versoes));
+    }
+
+    // lidas uma vez por agendamento (ou por lote), antes das cargas que elas validam
+    public Versoes versoes() {
+        Map<Catalogo, Long> versoes = catalogosEmCache.versoes();
+        return new Versoes(versoes.get(Catalogo.VACINAS), versoes.get(Catalogo.ALERGIAS));
+    }
+
+    public BitSet componentesDaVacina(Long vacinaId, Versoes versoes) {
+
+        Entrada entrada = componentesPorVacina.get(vacinaId);
+        if (entrada != null && entrada.versao() == versoes.vacinas())
+            return entrada.bits();
+
+        BitSet bits = paraBits(vacinaRepository.buscarNomesComponentes(vacinaId));
+
+        // uma carga mais nova feita por outra thread não é substituída
+        componentesPorVacina.merge(vacinaId, new Entrada(bits, versoes.vacinas(), 0),
+                (atual, nova) -> atual.versao() > nova.versao() ? atual : nova);
+
+        return bits;
+    }
+
+    public BitSet alergiasDoUsuario(Long usuarioId, Versoes versoes) {
+
+        long agora = System.nanoTime();
+
+        Entrada entrada;
+        synchronized (alergiasPorUsuario) {
+            entrada = alergiasPorUsuario.get(usuarioId);
+        }
+        if (valida(entrada, versoes, agora))
+            return entrada.bits();
+
+        long geracao = geracaoUsuarios.get();
+        BitSet bits = paraBits(usuarioRepository.buscarNomesAlergias(usuarioId));
+
+        synchronized (alergiasPorUsuario) {
+            if (geracaoUsuarios.get() == geracao)
+                alergiasPorUsuario.put(usuarioId, new Entrada(bits, versoes.alergias(), agora));
+        }
+
+        return bits;
+    }
+
+    // alergias de vários usuários de uma vez: os que não estão no índice são lidos em uma única consulta.
+    // Esses não são guardados no índice, para que um lote grande não descarte as entradas dos agendamentos individuais.
+    public Map<Long, BitSet> alergiasDosUsuarios(Collection<Long> usuarioIds, Versoes versoes) {
+
+        long agora = System.nanoTime();
+        Map<Long, BitSet> resultado = new HashMap<>();
+        List<Long> ausentes = new ArrayList<>();
+
+        synchronized (alergiasPorUsuario) {
+            for (Long usuarioId : usuarioIds) {
+                Entrada entrada = alergiasPorUsuario.get(usuarioId);
+
+                if (valida(entrada, versoes, agora))
+                    resultado.put(usuarioId, entrada.bits());
+                else
+                    ausentes.add(usuarioId);
+            }
+        }
+
+        if (!ausentes.isEmpty()) {
+            Map<Long, List<String>> nomesPorUsuario = new HashMap<>();
+
+            for (Object[] linha : usuarioRepository.buscarNomesAlergiasPorUsuario(ausentes)) {
+                nomesPorUsuario.computeIfAbsent((Long) linha[0], id -> new ArrayList<>()).add((String) linha[1]);
+            }
+
+            for (Long usuarioId : ausentes) {
+                resultado.put(usuarioId, paraBits(nomesPorUsuario.getOrDefault(usuarioId, List.of())));
+            }
+        }
+
+        return resultado;
+    }
+
+    // chamada dentro de uma transação, vale a partir do commit (AposCommit)
+    public void invalidarUsuario(Long usuarioId) {
+        AposCommit.executar(() -> {
+            synchronized (alergiasPorUsuario) {
+                geracaoUsuarios.incrementAndGet();
+                alergiasPorUsuario.remove(usuarioId);
+            }
+        });
+    }
+
+    private boolean valida(Entrada entrada, Versoes versoes, long agora) {
+        return entrada != null && entrada.versao() == versoes.alergias()
+                && agora - entrada.carregadaEm() < validadeUsuarioMs * 1_000_000;
+    }
+
+    BitSet paraBits(List<String> nomes) {
+        BitSet bits = new BitSet();
+
+        for (String nome : nomes) {
+            bits.set(idDoNome(nome));
+        }
+
+        return bits;
+    }
+
+    private int idDoNome(String nome) {
+        return idsPorNome.computeIfAbsent(normalizar(nome), n -> proximoId.getAndIncrement());
+    }
+
+    // espaços nas pontas e maiúsculas/minúsculas são ignorados. Difere do equalsIgnoreCase usado antes, que não
+    // removia os espaços e compara caractere a caractere (toUpperCase/toLowerCase de cada um), não a String em
+    // minúsculas com Locale.ROOT
+    static String normalizar(String nome) {
+        return nome.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public record Versoes(long vacinas, long alergias) {
+    }
+
+    // carregadaEm (System.nanoTime) só é usada nas entradas de usuários
+    private record Entrada(BitSet bits, long versao, long carregadaEm) {
+    }
+}
@@ -0,0 +1,349 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.NovaReacao;
+import com.projeto.agendavac.dto.ProtocoloReacao;
+import com.projeto.agendavac.entity.Reacao;
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.enums.SituacaoProtocolo;
+import com.projeto.agendavac.exception.FilaCheiaException;
+import com.projeto.agendavac.repository.ReacaoLoteRepository;
+import com.projeto.agendavac.repository.ReacaoLoteRepository.AgendaDaReacao;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+ * Ingestão assíncrona de reações (notificações de eventos adversos após campanhas).
+ * A reação é validada na chegada e entra em uma fila limitada; quando a fila está cheia, quem envia espera
+ * um pouco e, se ainda não houver espaço, recebe a recusa (503) para tentar de novo mais tarde.
+ * Uma única thread retira da fila o que houver acumulado (até itens-por-gravacao) e grava tudo em uma
+ * transação: uma consulta para as agendas do lote e um insert em batch para as reações.
+ * O andamento de cada reação é consultado pelo protocolo devolvido no envio; protocolos concluídos
+ * são descartados depois do período de retenção.
+ *
+ * Métricas: agendavac.reacoes.fila (itens aguardando gravação), agendavac.reacoes.gravacao (duração de cada
+ * gravação em lote) e agendavac.reacoes.ingeridas{resultado}.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+public class IngestaoReacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaoReacaoService.class);
+
+    @Value("${agendavac.reacoes.fila.capacidade:10000}")
+    private int capacidadeFila;
+
+    @Value("${agendavac.reacoes.fila.espera-ms:200}")
+    private long esperaFilaMs;
+
+    @Value("${agendavac.reacoes.itens-por-gravacao:500}")
+    private int itensPorGravacao;
+
+    @Value("${agendavac.reacoes.lote.tamanho-maximo:10000}")
+    private int tamanhoMaximoLote;
+
+    @Value("${agendavac.reacoes.retencao-protocolos-minutos:60}")
+    private long retencaoProtocolosMinutos;
+
+    @Autowired
+    private ReacaoLoteRepository reacaoLoteRepository;
+
+    @Autowired
+    private EstatisticaReacaoService estatisticaReacaoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, Protocolo> protocolos = new ConcurrentHashMap<>();
+
+    private BlockingQueue<Protocolo> fila;
+    private Thread gravador;
+    private volatile boolean ativo;
+    private Timer tempoGravacao;
+
+    @PostConstruct
+    void iniciar() {
+        fila = new ArrayBlockingQueue<>(capacidadeFila);
+
+        Gauge.builder("agendavac.reacoes.fila", fila, BlockingQueue::size)
+                .description("Reações aguardando gravação")
+                .register(registry);
+
+        tempoGravacao = Timer.builder("agendavac.reacoes.gravacao")
+                .description("Gravação de um lote de reações da fila")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        ativo = true;
+        gravador = new Thread(this::gravarContinuamente, "gravador-reacoes");
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    // para de aceitar reações e grava o que ainda estiver na fila antes de encerrar
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ativo = false;
+        gravador.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public ProtocoloReacao enviar(NovaReacao reacao) {
+
+        String invalida = validar(reacao);
+        if (invalida != null)
+            throw new IllegalArgumentException(invalida);
+
+        Protocolo protocolo = new Protocolo(reacao);
+
+        if (!enfileirar(protocolo)) {
+            registrarResultado(null, 1);
+            throw new FilaCheiaException("A fila de reações está cheia. Tente novamente em alguns segundos.");
+        }
+
+        return protocolo.paraDto();
+    }
+
+    // cada reação recebe o seu protocolo; as inválidas e as que não couberem na fila voltam rejeitadas
+    public List<ProtocoloReacao> enviar(List<NovaReacao> reacoes) {
+
+        if (reacoes == null || reacoes.isEmpty())
+            throw new IllegalArgumentException("Nenhuma reação informada.");
+
+        if (reacoes.size() > tamanhoMaximoLote)
+            throw new IllegalArgumentException("O lote deve ter no máximo " + tamanhoMaximoLote + " reações.");
+
+        List<ProtocoloReacao> resultado = new ArrayList<>(reacoes.size());
+        boolean filaCheia = false;
+
+        for (NovaReacao reacao : reacoes) {
+            Protocolo protocolo = new Protocolo(reacao);
+
+            String invalida = validar(reacao);
+            if (invalida != null) {
+                protocolo.concluir(SituacaoProtocolo.REJEITADA, null, invalida);
+                registrarResultado(SituacaoProtocolo.REJEITADA, 1);
+            } else if (filaCheia || !enfileirar(protocolo)) {
+                // depois da primeira recusa não adianta esperar de novo por cada item
+                filaCheia = true;
+                protocolo.concluir(SituacaoProtocolo.REJEITADA, null, "A fila de reações está cheia. Envie a reação novamente.");
+                registrarResultado(null, 1);
+            }
+
+            // as rejeitadas também podem ser consultadas pelo protocolo
+            if (protocolo.situacao != SituacaoProtocolo.PENDENTE)
+                protocolos.put(protocolo.id, protocolo);
+
+            resultado.add(protocolo.paraDto());
+        }
+
+        return resultado;
+    }
+
+    public ProtocoloReacao consultar(String protocolo) {
+
+        Protocolo encontrado = protocolos.get(protocolo);
+
+        if (encontrado == null)
+            throw new NoSuchElementException("Protocolo " + protocolo + " não encontrado.");
+
+        return encontrado.paraDto();
+    }
+
+    @Scheduled(fixedDelayString = "${agendavac.reacoes.limpeza-protocolos-ms:60000}")
+    public void descartarProtocolosConcluidos() {
+
+        long limite = System.nanoTime() - TimeUnit.MINUTES.toNanos(retencaoProtocolosMinutos);
+
+        protocolos.values().removeIf(protocolo ->
+                protocolo.situacao != SituacaoProtocolo.PENDENTE && protocolo.concluidoEm - limite < 0);
+    }
+
+    // mesmas regras da entidade; a agenda só é verificada na gravação
+    private String validar(NovaReacao reacao) {
+
+        if (reacao == null || reacao.agendaId() == null)
+            return "O ID da agenda é obrigatório.";
+
+        Reacao entidade = new Reacao();
+        entidade.setDescricao(reacao.descricao());
+        entidade.setDataReacao(reacao.dataReacao());
+
+        Set<ConstraintViolation<Reacao>> violacoes = validator.validate(entidade);
+        if (violacoes.isEmpty()) return null;
+
+        return violacoes.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(" "));
+    }
+
+    private boolean enfileirar(Protocolo protocolo) {
+
+        if (!ativo) return false;
+
+        protocolos.put(protocolo.id, protocolo);
+
+        try {
+            if (fila.offer(protocolo, esperaFilaMs, TimeUnit.MILLISECONDS))
+                return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        protocolos.remove(protocolo.id);
+        return false;
+    }
+
+    private void gravarContinuamente() {
+
+        List<Protocolo> lote = new ArrayList<>(itensPorGravacao);
+
+        while (ativo || !fila.isEmpty()) {
+            try {
+                Protocolo primeiro = fila.poll(1, TimeUnit.SECONDS);
+                if (primeiro == null) continue;
+
+                lote.add(primeiro);
+                fila.drainTo(lote, itensPorGravacao - 1);
+
+                tempoGravacao.record(() -> gravar(lote));
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Falha ao gravar {} reações da fila", lote.size(), e);
+                for (Protocolo protocolo : lote) {
+                    protocolo.concluir(SituacaoProtocolo.FALHA, null, "Falha ao gravar a reação. Envie a reação novamente.");
+                }
+                registrarResultado(SituacaoProtocolo.FALHA, lote.size());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void gravar(List<Protocolo> lote) {
+
+        Set<Long> agendaIds = lote.stream().map(protocolo -> protocolo.reacao.agendaId())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        List<Protocolo> validos = new ArrayList<>(lote.size());
+        List<Long> ids = transactionTemplate.execute(status -> {
+            Map<Long, AgendaDaReacao> agendas = reacaoLoteRepository.buscarAgendas(agendaIds);
+
+            // (dia, vacina) alterados, em ordem, para o resumo de reações
+            Map<LocalDate, Set<Long>> alterados = new TreeMap<>();
+
+            for (Protocolo protocolo : lote) {
+                Long agendaId = protocolo.reacao.agendaId();
+                AgendaDaReacao agenda = agendas.get(agendaId);
+
+                if (agenda == null) {
+                    protocolo.motivoRejeicao = "Agenda com ID " + agendaId + " não encontrada.";
+                } else if (agenda.situacao() != Situacao.REALIZADO) {
+                    protocolo.motivoRejeicao = "Não é possível inserir reação em uma agenda não realizada!";
+                } else {
+                    validos.add(protocolo);
+                    alterados.computeIfAbsent(agenda.data(), data -> new TreeSet<>()).add(agenda.vacinaId());
+                }
+            }
+
+            if (validos.isEmpty()) return List.of();
+
+            List<Long> gerados = reacaoLoteRepository.inserir(validos.stream().map(protocolo -> protocolo.reacao).toList());
+
+            alterados.forEach((data, vacinas) -> vacinas.forEach(vacinaId ->
+                    estatisticaReacaoService.marcarAlteracao(data, vacinaId)));
+
+            return gerados;
+        });
+
+        // a situação dos protocolos só muda depois do commit
+        for (int i = 0; i < validos.size(); i++) {
+            validos.get(i).concluir(SituacaoProtocolo.GRAVADA, ids.get(i), null);
+        }
+        for (Protocolo protocolo : lote) {
+            if (protocolo.motivoRejeicao != null)
+                protocolo.concluir(SituacaoProtocolo.REJEITADA, null, protocolo.motivoRejeicao);
+        }
+
+        registrarResultado(SituacaoProtocolo.GRAVADA, validos.size());
+        registrarResultado(SituacaoProtocolo.REJEITADA, lote.size() - validos.size());
+    }
+
+    // situação nula indica recusa por fila cheia
+    private void registrarResultado(SituacaoProtocolo situacao, int quantidade) {
+        if (quantidade <= 0) return;
+
+        Counter.builder("agendavac.reacoes.ingeridas")
+                .description("Reações recebidas pela ingestão assíncrona, por resultado")
+                .tag("resultado", situacao == null ? "FILA_CHEIA" : situacao.name())
+                .register(registry)
+                .increment(quantidade);
+    }
+
+    private static class Protocolo {
+
+        private final String id = UUID.randomUUID().toString();
+        private final NovaReacao reacao;
+
+        private volatile SituacaoProtocolo situacao = SituacaoProtocolo.PENDENTE;
+        private volatile Long reacaoId;
+        private volatile String motivo;
+        private volatile long concluidoEm;
+
+        // usado somente pela thread de gravação
+        private String motivoRejeicao;
+
+        Protocolo(NovaReacao reacao) {
+            this.reacao = reacao;
+        }
+
+        void concluir(SituacaoProtocolo situacao, Long reacaoId, String motivo) {
+            this.reacaoId = reacaoId;
+            this.motivo = motivo;
+            this.concluidoEm = System.nanoTime();
+            this.situacao = situacao;
+        }
+
+        ProtocoloReacao paraDto() {
+            // situação lida primeiro: se já estiver concluída, id e motivo estão visíveis
+            SituacaoProtocolo atual = situacao;
+            return new ProtocoloReacao(id, atual, reacaoId, motivo);
+        }
+    }
+}
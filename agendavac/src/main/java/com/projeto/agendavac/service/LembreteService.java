@@ -0,0 +1,128 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.LembreteDose;
+import com.projeto.agendavac.enums.SituacaoLembrete;
+import com.projeto.agendavac.repository.LembreteRepository;
+import com.projeto.agendavac.repository.LembreteRepository.EnvioLembrete;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Lembretes de dose: cada agenda AGENDADO recebe um lembrete quando faltam 24 horas ou menos para a dose.
+ * A cada execução a janela (agora, agora + 24h] é percorrida em blocos de lembretes-por-reserva; cada bloco
+ * é reservado em um comando (LembreteRepository), enviado pelo CanalLembrete configurado e o resultado é
+ * gravado em batch. Vários nós podem executar ao mesmo tempo: as reservas pulam as linhas travadas por outro nó.
+ * Falhas são tentadas de novo depois de espera-falha-minutos, até maximo-tentativas.
+ *
+ * Um lembrete enviado não é reenviado. A exceção é a queda do nó entre o envio e o registro: a reserva vence e
+ * o lembrete é enviado de novo com o mesmo id, que o canal pode usar para descartar a repetição.
+ *
+ * Métrica: agendavac.lembretes{resultado}.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+public class LembreteService {
+
+    private static final Logger log = LoggerFactory.getLogger(LembreteService.class);
+
+    private static final int ANTECEDENCIA_HORAS = 24;
+
+    @Value("${agendavac.lembretes.por-reserva:200}")
+    private int lembretesPorReserva;
+
+    @Value("${agendavac.lembretes.maximo-tentativas:5}")
+    private int maximoTentativas;
+
+    @Value("${agendavac.lembretes.reserva-minutos:10}")
+    private long reservaMinutos;
+
+    @Value("${agendavac.lembretes.espera-falha-minutos:15}")
+    private long esperaFalhaMinutos;
+
+    @Autowired
+    private LembreteRepository lembreteRepository;
+
+    @Autowired
+    private CanalLembrete canalLembrete;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // retorna a quantidade de lembretes reservados (enviados ou não) nesta execução
+    @Scheduled(fixedDelayString = "${agendavac.lembretes.intervalo-ms:60000}")
+    public int enviarLembretes() {
+
+        int total = 0;
+        List<LembreteDose> bloco;
+
+        // primeiro as falhas e reservas vencidas, que estão mais perto da dose
+        do {
+            LocalDateTime agora = LocalDateTime.now();
+            bloco = lembreteRepository.reservarPendentes(agora, agora.plusMinutes(reservaMinutos), maximoTentativas, lembretesPorReserva);
+            enviar(bloco);
+            total += bloco.size();
+        } while (bloco.size() == lembretesPorReserva);
+
+        do {
+            LocalDateTime agora = LocalDateTime.now();
+            bloco = lembreteRepository.reservarNovos(agora, agora.plusHours(ANTECEDENCIA_HORAS),
+                    agora.plusMinutes(reservaMinutos), lembretesPorReserva);
+            enviar(bloco);
+            total += bloco.size();
+        } while (bloco.size() == lembretesPorReserva);
+
+        return total;
+    }
+
+    private void enviar(List<LembreteDose> lembretes) {
+
+        if (lembretes.isEmpty()) return;
+
+        List<EnvioLembrete> envios = new ArrayList<>(lembretes.size());
+
+        for (LembreteDose lembrete : lembretes) {
+            try {
+                canalLembrete.enviar(lembrete);
+                LocalDateTime enviadoEm = LocalDateTime.now();
+                envios.add(new EnvioLembrete(lembrete.lembreteId(), lembrete.tentativa(), SituacaoLembrete.ENVIADO,
+                        enviadoEm, enviadoEm, null));
+            } catch (Exception e) {
+                log.warn("Falha ao enviar o lembrete {} (agenda {}), tentativa {}", lembrete.lembreteId(),
+                        lembrete.agendaId(), lembrete.tentativa(), e);
+
+                SituacaoLembrete situacao = lembrete.tentativa() >= maximoTentativas
+                        ? SituacaoLembrete.DESCARTADO : SituacaoLembrete.FALHA;
+                envios.add(new EnvioLembrete(lembrete.lembreteId(), lembrete.tentativa(), situacao,
+                        LocalDateTime.now().plusMinutes(esperaFalhaMinutos), null, resumirErro(e)));
+            }
+        }
+
+        lembreteRepository.registrar(envios);
+
+        for (EnvioLembrete envio : envios) {
+            Counter.builder("agendavac.lembretes")
+                    .description("Lembretes de dose processados, por resultado")
+                    .tag("resultado", envio.situacao().name())
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    // cabe na coluna erro
+    private String resumirErro(Exception e) {
+        String erro = e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+        return erro.length() <= 200 ? erro : erro.substring(0, 200);
+    }
+}
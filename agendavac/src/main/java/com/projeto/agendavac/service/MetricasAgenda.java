@@ -0,0 +1,108 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.repository.EstatisticaAgendaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/*
+ * Métricas de negócio das agendas.
+ *  - agendavac.agendas.transicoes{de, para}: mudanças de situação (NOVA -> AGENDADO na criação, EXCLUIDA na exclusão);
+ *  - agendavac.agendamentos.recusados{motivo, origem}: agendamentos recusados por alergia ou falta de vaga;
+ *  - agendavac.doses{situacao}: quantidade de agendas por situação (agendadas x realizadas), somada dos contadores
+ *    de estatisticas_agenda (uma linha por dia, vacina e situação) em vez de contar a tabela de agendas. As três
+ *    situações vêm da mesma consulta, refeita no máximo a cada 30 segundos.
+ * */
+
+@Component
+public class MetricasAgenda {
+
+    public static final String ORIGEM_INDIVIDUAL = "individual";
+    public static final String ORIGEM_LOTE = "lote";
+
+    private static final long VALIDADE_CONTAGEM_NANOS = 30_000_000_000L;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private EstatisticaAgendaRepository estatisticaAgendaRepository;
+
+    // somas da última leitura, lidas e substituídas sob o monitor do componente (doses)
+    private Map<Situacao, Long> doses;
+    private long dosesLidasEm;
+
+    @PostConstruct
+    void registrarMedidores() {
+        for (Situacao situacao : Situacao.values()) {
+            Gauge.builder("agendavac.doses", this, metricas -> metricas.doses(situacao))
+                    .description("Agendas por situação")
+                    .tag("situacao", situacao.name())
+                    .register(registry);
+        }
+    }
+
+    public void agendasCriadas(int quantidade) {
+        transicao("NOVA", Situacao.AGENDADO.name(), quantidade);
+    }
+
+    public void situacaoAlterada(Situacao anterior, Situacao nova) {
+        situacaoAlterada(anterior, nova, 1);
+    }
+
+    public void situacaoAlterada(Situacao anterior, Situacao nova, int quantidade) {
+        transicao(anterior.name(), nova.name(), quantidade);
+    }
+
+    public void agendaExcluida(Situacao anterior) {
+        transicao(anterior.name(), "EXCLUIDA", 1);
+    }
+
+    public void recusadoPorAlergia(String origem) {
+        recusado("alergia", origem);
+    }
+
+    public void recusadoPorFaltaDeVaga(String origem) {
+        recusado("sem_vaga", origem);
+    }
+
+    private synchronized double doses(Situacao situacao) {
+        long agora = System.nanoTime();
+
+        if (doses == null || agora - dosesLidasEm > VALIDADE_CONTAGEM_NANOS) {
+            Map<Situacao, Long> somas = new EnumMap<>(Situacao.class);
+            for (Object[] linha : estatisticaAgendaRepository.somarTodasPorSituacao()) {
+                somas.put((Situacao) linha[0], ((Number) linha[1]).longValue());
+            }
+            doses = somas;
+            dosesLidasEm = agora;
+        }
+
+        return doses.getOrDefault(situacao, 0L);
+    }
+
+    private void transicao(String de, String para, int quantidade) {
+        if (quantidade <= 0) return;
+
+        Counter.builder("agendavac.agendas.transicoes")
+                .description("Mudanças de situação das agendas")
+                .tags("de", de, "para", para)
+                .register(registry)
+                .increment(quantidade);
+    }
+
+    private void recusado(String motivo, String origem) {
+        Counter.builder("agendavac.agendamentos.recusados")
+                .description("Agendamentos recusados")
+                .tags("motivo", motivo, "origem", origem)
+                .register(registry)
+                .increment();
+    }
+}
@@ -1,5 +1,6 @@
 package com.projeto.agendavac.service;
 
+import com.projeto.agendavac.dto.ReacaoResumo;
 import com.projeto.agendavac.entity.Agenda;
 import com.projeto.agendavac.entity.Reacao;
 import com.projeto.agendavac.entity.Usuario;
@@ -9,12 +10,14 @@ import com.projeto.agendavac.repository.ReacaoRepository;
 import com.projeto.agendavac.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 @Service
+@Transactional(readOnly = true)
 public class ReacaoService {
 
     @Autowired
@@ -26,6 +29,10 @@ public class ReacaoService {
     @Autowired
     private AgendaRepository agendaRepository;
 
+    @Autowired
+    private EstatisticaReacaoService estatisticaReacaoService;
+
+    @Transactional
     public Reacao incluirReacao(Long agendaId, String descricao, LocalDate dataReacao) {
 
         Agenda agenda = agendaRepository.findById(agendaId)
@@ -39,12 +46,15 @@ public class ReacaoService {
         reacao.setDescricao(descricao);
         reacao.setDataReacao(dataReacao);
 
-        return reacaoRepository.save(reacao);
+        Reacao salva = reacaoRepository.save(reacao);
+        estatisticaReacaoService.marcarAlteracao(agenda.getData(), agenda.getVacina().getId());
+
+        return salva;
     }
 
-    public List<Reacao> listarTodas() {
+    public List<ReacaoResumo> listarTodas() {
 
-        List<Reacao> reacoes = reacaoRepository.findAll();
+        List<ReacaoResumo> reacoes = reacaoRepository.buscarResumos();
 
         if (reacoes.isEmpty()) {
             throw new NoSuchElementException("Nenhuma reação cadastrada.");
@@ -53,8 +63,8 @@ public class ReacaoService {
         return reacoes;
     }
 
-    public List<Reacao> buscarPorAgenda(Long agendaId) {
-        List<Reacao> reacoes = reacaoRepository.findByAgendaId(agendaId);
+    public List<ReacaoResumo> buscarPorAgenda(Long agendaId) {
+        List<ReacaoResumo> reacoes = reacaoRepository.buscarResumosPorAgenda(agendaId);
 
         if (reacoes.isEmpty()) {
             throw new NoSuchElementException("Nenhuma reação encontrada para a agenda com ID " + agendaId + ".");
@@ -63,8 +73,8 @@ public class ReacaoService {
         return reacoes;
     }
 
-    public List<Reacao> buscarPorUsuario(Long usuarioId) {
-        List<Reacao> reacoes = reacaoRepository.findByAgendaUsuarioId(usuarioId);
+    public List<ReacaoResumo> buscarPorUsuario(Long usuarioId) {
+        List<ReacaoResumo> reacoes = reacaoRepository.buscarResumosPorUsuario(usuarioId);
 
         if (reacoes.isEmpty()) {
             throw new NoSuchElementException("Nenhuma reação encontrada para o usuário com ID " + usuarioId);
@@ -74,12 +84,16 @@ public class ReacaoService {
     }
 
 
+    @Transactional
     public void excluirReacao(Long id) {
 
-        if (!reacaoRepository.existsById(id)) {
-            throw new NoSuchElementException("Reação com ID " + id + " não encontrada.");
-        }
-        reacaoRepository.deleteById(id);
+        Reacao reacao = reacaoRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Reação com ID " + id + " não encontrada."));
+
+        Agenda agenda = reacao.getAgenda();
+
+        reacaoRepository.delete(reacao);
+        estatisticaReacaoService.marcarAlteracao(agenda.getData(), agenda.getVacina().getId());
     }
 
 }
@@ -0,0 +1,28 @@
+package com.projeto.agendavac.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TarefasEstatisticas {
+
+    @Autowired
+    private EstatisticaAgendaService estatisticaAgendaService;
+
+    @Autowired
+    private EstatisticaReacaoService estatisticaReacaoService;
+
+    // "-" em agendavac.estatisticas.reconstrucao-cron desliga a reconstrução automática
+    @Scheduled(cron = "${agendavac.estatisticas.reconstrucao-cron:0 30 3 * * *}")
+    public void reconstruirEstatisticas() {
+        estatisticaAgendaService.reconstruir();
+        estatisticaReacaoService.reconstruir();
+    }
+
+    // recalcula o resumo de reações dos (dia, vacina) alterados desde a última execução
+    @Scheduled(fixedDelayString = "${agendavac.reacoes.resumo.atualizacao-ms:15000}")
+    public void atualizarResumoReacoes() {
+        estatisticaReacaoService.atualizar();
+    }
+}
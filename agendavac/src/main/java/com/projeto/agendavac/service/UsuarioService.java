@@ -1,5 +1,6 @@
     package com.projeto.agendavac.service;
 
+    import com.projeto.agendavac.dto.UsuarioResumo;
     import com.projeto.agendavac.entity.Alergia;
     import com.projeto.agendavac.entity.Usuario;
     import com.projeto.agendavac.entity.UsuarioAlergia;
@@ -7,28 +8,41 @@
     import com.projeto.agendavac.repository.UsuarioRepository;
     import org.springframework.beans.factory.annotation.Autowired;
     import org.springframework.stereotype.Service;
+    import org.springframework.transaction.annotation.Transactional;
 
+    import java.sql.Date;
+    import java.time.LocalDate;
     import java.util.List;
+    import java.util.Map;
     import java.util.NoSuchElementException;
+    import java.util.Objects;
+    import java.util.function.Function;
     import java.util.stream.Collectors;
 
     @Service
+    @Transactional(readOnly = true)
     public class UsuarioService {
 
+        public static final int TAMANHO_MINIMO_TERMO = 3;
+        public static final int TAMANHO_MAXIMO_PAGINA = 100;
+
+        // posição máxima alcançável pela paginação da busca por nome: cada página ordena todos os resultados até ela
+        public static final int MAXIMO_RESULTADOS = 1000;
+
         @Autowired
         private UsuarioRepository usuarioRepository;
 
         @Autowired
         private AlergiaRepository alergiaRepository;
 
+        @Autowired
+        private IndiceConflitoAlergia indiceConflitoAlergia;
+
+        @Transactional
         public Usuario salvar(Usuario usuario) {
 
             if (usuario.getAlergias() != null) {
-                List<Alergia> alergiasPersistidas = usuario.getAlergias().stream()
-                        .map(alergia -> alergiaRepository.findById(alergia.getId())
-                                .orElseThrow(() -> new NoSuchElementException("Alergia com ID " + alergia.getId() + " não encontrada.")))
-                        .toList();
-                usuario.setAlergias(alergiasPersistidas);
+                usuario.setAlergias(buscarAlergias(usuario.getAlergias()));
             } else {
                 usuario.setAlergias(null);
             }
@@ -36,8 +50,8 @@
             return usuarioRepository.save(usuario);
         }
 
-        public List<Usuario> listarTodos() {
-            List<Usuario> usuarios = usuarioRepository.findAll();
+        public List<UsuarioResumo> listarTodos() {
+            List<UsuarioResumo> usuarios = usuarioRepository.buscarResumos();
 
             if (usuarios.isEmpty()) {
                 throw new NoSuchElementException("Nenhum usuário cadastrado.");
@@ -53,17 +67,44 @@
 
         }
 
-        public List<Usuario> buscarPorNome(String nome) {
+        // primeira página da busca por nome
+        public List<UsuarioResumo> buscarPorNome(String nome) {
+            return buscarPorNome(nome, 0, TAMANHO_MAXIMO_PAGINA);
+        }
 
-            List<Usuario> usuarios = usuarioRepository.findByNomeContainingIgnoreCase(nome);
+        // busca sem diferenciar maiúsculas e acentos, ordenada por relevância
+        public List<UsuarioResumo> buscarPorNome(String nome, int pagina, int tamanho) {
 
-            if (usuarios.isEmpty()) {
+            String termo = nome == null ? "" : nome.trim();
+
+            if (termo.length() < TAMANHO_MINIMO_TERMO)
+                throw new IllegalArgumentException("Informe pelo menos " + TAMANHO_MINIMO_TERMO + " caracteres do nome.");
+
+            if (pagina < 0 || tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA)
+                throw new IllegalArgumentException("A página não pode ser negativa e o tamanho deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA + ".");
+
+            long deslocamento = (long) pagina * tamanho;
+            if (deslocamento + tamanho > MAXIMO_RESULTADOS)
+                throw new IllegalArgumentException("A busca pagina só os primeiros " + MAXIMO_RESULTADOS + " usuários encontrados. Refine o nome buscado.");
+
+            List<Object[]> linhas = usuarioRepository.buscarPorNome(escaparLike(termo), tamanho, deslocamento);
+
+            if (linhas.isEmpty()) {
                 throw new NoSuchElementException("Nenhum usuário encontrado com o nome fornecido: " + nome);
             }
 
-            return usuarios;
+            return linhas.stream().map(this::paraResumo).toList();
         }
 
+        // colunas na ordem da consulta buscarPorNome
+        private UsuarioResumo paraResumo(Object[] linha) {
+            LocalDate dataNascimento = linha[2] instanceof Date data ? data.toLocalDate() : (LocalDate) linha[2];
+
+            return new UsuarioResumo(((Number) linha[0]).longValue(), (String) linha[1], dataNascimento,
+                    String.valueOf(linha[3]), (String) linha[4], (String) linha[5]);
+        }
+
+        @Transactional
         public Usuario atualizar(Long id, Usuario usuarioAtualizado) {
             Usuario usuario = usuarioRepository.findById(id)
                     .orElseThrow(() -> new NoSuchElementException("Usuário com ID " + id + " não encontrado."));
@@ -81,10 +122,7 @@
             if (usuarioAtualizado.getAlergias() != null) {
 
                 // Recupera as alergias do banco para persistência
-                List<Alergia> alergiasPersistidas = usuarioAtualizado.getAlergias().stream()
-                        .map(alergia -> alergiaRepository.findById(alergia.getId())
-                                .orElseThrow(() -> new NoSuchElementException("Alergia com ID " + alergia.getId() + " não encontrada.")))
-                        .collect(Collectors.toList());
+                List<Alergia> alergiasPersistidas = buscarAlergias(usuarioAtualizado.getAlergias());
 
                 usuario.getAlergias().addAll(alergiasPersistidas);
 
@@ -96,10 +134,14 @@
             }
 
             // Salva o usuário atualizado
-            return usuarioRepository.save(usuario);
+            Usuario usuarioSalvo = usuarioRepository.save(usuario);
+            indiceConflitoAlergia.invalidarUsuario(id);
+
+            return usuarioSalvo;
         }
 
 
+        @Transactional
         public void deletar(Long id) {
 
             if (!usuarioRepository.existsById(id)) {
@@ -107,6 +149,30 @@
             }
 
             usuarioRepository.deleteById(id);
+            indiceConflitoAlergia.invalidarUsuario(id);
+        }
+
+        // %, _ e \ são curingas/escape do LIKE e devem ser buscados literalmente
+        static String escaparLike(String termo) {
+            return termo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        }
+
+        // Uma única consulta (IN) para todas as alergias informadas, mantendo a ordem recebida
+        private List<Alergia> buscarAlergias(List<Alergia> alergias) {
+
+            List<Long> ids = alergias.stream().map(Alergia::getId).toList();
+
+            Map<Long, Alergia> persistidas = alergiaRepository.findAllById(ids.stream().filter(Objects::nonNull).toList()).stream()
+                    .collect(Collectors.toMap(Alergia::getId, Function.identity()));
+
+            return ids.stream()
+                    .map(alergiaId -> {
+                        Alergia alergia = alergiaId == null ? null : persistidas.get(alergiaId);
+                        if (alergia == null)
+                            throw new NoSuchElementException("Alergia com ID " + alergiaId + " não encontrada.");
+                        return alergia;
+                    })
+                    .collect(Collectors.toList());
         }
 
     }
@@ -1,21 +1,28 @@
 package com.projeto.agendavac.service;
 
 import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.enums.Catalogo;
 import com.projeto.agendavac.repository.VacinaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class VacinaService {
 
     @Autowired
     private VacinaRepository vacinaRepository;
 
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
+    @Transactional
     public Vacina salvar(Vacina vacina) {
 
         if (vacinaRepository.findByTituloIgnoreCase(vacina.getTitulo()).isPresent()) {
@@ -31,7 +38,10 @@ public class VacinaService {
             vacina.setIntervalo(null);
         }
 
-        return vacinaRepository.save(vacina);
+        Vacina vacinaSalva = vacinaRepository.save(vacina);
+        catalogosEmCache.alterado(Catalogo.VACINAS);
+
+        return vacinaSalva;
     }
 
     public List<Vacina> listarTodas() {
@@ -44,6 +54,7 @@ public class VacinaService {
                 .orElseThrow(() -> new NoSuchElementException("Vacina com ID " + id + " não encontrada."));
     }
 
+    @Transactional
     public Vacina atualizar(Long id, Vacina vacinaAtualizada) {
 
         Vacina vacina = vacinaRepository.findById(id)
@@ -71,9 +82,13 @@ public class VacinaService {
         vacina.setIntervalo(vacinaAtualizada.getIntervalo());
         vacina.setComponentes(vacinaAtualizada.getComponentes());
 
-        return vacinaRepository.save(vacina);
+        Vacina vacinaSalva = vacinaRepository.save(vacina);
+        catalogosEmCache.alterado(Catalogo.VACINAS);
+
+        return vacinaSalva;
     }
 
+    @Transactional
     public void deletar(Long id) {
 
         if (!vacinaRepository.existsById(id)) {
@@ -82,6 +97,8 @@ public class VacinaService {
 
         try {
             vacinaRepository.deleteById(id);
+            vacinaRepository.flush();
+            catalogosEmCache.alterado(Catalogo.VACINAS);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalStateException("Não é possível deletar a vacina com ID " + id + " porque está associada a outros registros.", e);
         }
@@ -0,0 +1,241 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.VagaDisponivel;
+import com.projeto.agendavac.entity.VagaHorario;
+import com.projeto.agendavac.exception.VagaIndisponivelException;
+import com.projeto.agendavac.repository.VagaHorarioRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Capacidade por dia e horário. Quem garante o limite é o banco: a vaga é ocupada com um UPDATE condicional
+ * (ocupadas < capacidade), atômico mesmo com vários nós e muitos agendamentos simultâneos, e desfeito junto com
+ * a transação do agendamento se ela falhar.
+ *
+ * Em memória ficam só atalhos, divididos por horário em mapas concorrentes:
+ *  - horários já criados (confirmados por commit), para não tentar o INSERT a cada agendamento;
+ *  - horários que lotaram recentemente, recusados sem ir ao banco por alguns instantes (agendavac.vagas.cache-lotado-ms).
+ *    A marca só vale quando a transação termina (VagasDaTransacao): no commit sempre; no rollback, só nos horários em
+ *    que a transação não ocupou vaga, já que a lotação pode ter vindo das vagas que ela mesma desfez.
+ * */
+
+@Service
+@Timed("agendavac.servico")
+@Transactional(readOnly = true)
+public class VagaService {
+
+    private static final int LIMITE_ENTRADAS_MEMORIA = 100_000;
+
+    @Value("${agendavac.vagas.capacidade-padrao:20}")
+    private int capacidadePadrao;
+
+    @Value("${agendavac.vagas.grade.inicio:08:00}")
+    private String inicioGrade;
+
+    @Value("${agendavac.vagas.grade.fim:17:00}")
+    private String fimGrade;
+
+    @Value("${agendavac.vagas.grade.intervalo-minutos:30}")
+    private int intervaloGradeMinutos;
+
+    @Value("${agendavac.vagas.cache-lotado-ms:2000}")
+    private long cacheLotadoMs;
+
+    @Autowired
+    private VagaHorarioRepository vagaHorarioRepository;
+
+    private final Map<Horario, Boolean> horariosCriados = new ConcurrentHashMap<>();
+
+    // horário -> instante (System.nanoTime) até quando ele é considerado lotado sem consultar o banco
+    private final Map<Horario, Long> horariosLotados = new ConcurrentHashMap<>();
+
+    // ocupa uma vaga ou lança VagaIndisponivelException; deve rodar na transação do agendamento
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reservar(LocalDate data, LocalTime hora) {
+        if (!tentarReservar(data, hora))
+            throw new VagaIndisponivelException("Não há vagas disponíveis em " + data + " às " + hora + ".");
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tentarReservar(LocalDate data, LocalTime hora) {
+
+        Horario horario = new Horario(data, hora);
+
+        Long lotadoAte = horariosLotados.get(horario);
+        if (lotadoAte != null) {
+            if (System.nanoTime() - lotadoAte < 0)
+                return false;
+            horariosLotados.remove(horario, lotadoAte);
+        }
+
+        if (vagaHorarioRepository.ocupar(data, hora) == 1)
+            return ocupada(horario);
+
+        // 0 linhas: o horário não existe ainda ou está lotado
+        if (!horariosCriados.containsKey(horario)) {
+            vagaHorarioRepository.criarSeAusente(data, hora, capacidadePadrao);
+            // só depois do commit: com rollback a linha some e o horário precisa ser criado de novo
+            AposCommit.executar(() -> lembrar(horariosCriados, horario, Boolean.TRUE));
+
+            if (vagaHorarioRepository.ocupar(data, hora) == 1)
+                return ocupada(horario);
+        }
+
+        long lotadoAteAgora = System.nanoTime() + cacheLotadoMs * 1_000_000;
+        VagasDaTransacao vagas = vagasDaTransacao();
+        if (vagas == null)
+            lembrar(horariosLotados, horario, lotadoAteAgora);
+        else
+            vagas.lotados.put(horario, lotadoAteAgora);
+
+        return false;
+    }
+
+    // devolve a vaga de uma agenda que deixou de estar AGENDADO (cancelada ou excluída)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberar(LocalDate data, LocalTime hora) {
+        liberar(data, hora, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberar(LocalDate data, LocalTime hora, int quantidade) {
+        vagaHorarioRepository.liberar(data, hora, quantidade);
+
+        Horario horario = new Horario(data, hora);
+        horariosLotados.remove(horario);
+
+        VagasDaTransacao vagas = vagasDaTransacao();
+        if (vagas != null)
+            vagas.lotados.remove(horario);
+    }
+
+    @Transactional
+    public VagaHorario definirCapacidade(LocalDate data, LocalTime hora, int capacidade) {
+
+        if (capacidade < 0)
+            throw new IllegalArgumentException("A capacidade não pode ser negativa.");
+
+        vagaHorarioRepository.criarSeAusente(data, hora, capacidade);
+        AposCommit.executar(() -> lembrar(horariosCriados, new Horario(data, hora), Boolean.TRUE));
+
+        if (vagaHorarioRepository.alterarCapacidade(data, hora, capacidade) == 0)
+            throw new IllegalArgumentException("A capacidade não pode ser menor que as vagas já ocupadas no horário.");
+
+        horariosLotados.remove(new Horario(data, hora));
+
+        return vagaHorarioRepository.findByDataAndHora(data, hora).orElseThrow();
+    }
+
+    // horários da grade configurada mais os horários com capacidade própria; lê só as linhas do dia em vagas_horario
+    public List<VagaDisponivel> listarDisponiveis(LocalDate data, boolean somenteComVagas) {
+
+        Map<LocalTime, VagaHorario> registradas = vagaHorarioRepository.findByDataOrderByHora(data).stream()
+                .collect(Collectors.toMap(VagaHorario::getHora, Function.identity()));
+
+        TreeMap<LocalTime, VagaDisponivel> vagas = new TreeMap<>();
+
+        for (LocalTime hora : horariosDaGrade()) {
+            vagas.put(hora, new VagaDisponivel(hora, capacidadePadrao, 0, capacidadePadrao));
+        }
+
+        for (VagaHorario vaga : registradas.values()) {
+            int disponiveis = Math.max(0, vaga.getCapacidade() - vaga.getOcupadas());
+            vagas.put(vaga.getHora(), new VagaDisponivel(vaga.getHora(), vaga.getCapacidade(), vaga.getOcupadas(), disponiveis));
+        }
+
+        return vagas.values().stream()
+                .filter(vaga -> !somenteComVagas || vaga.disponiveis() > 0)
+                .toList();
+    }
+
+    List<LocalTime> horariosDaGrade() {
+
+        if (intervaloGradeMinutos <= 0)
+            throw new IllegalStateException("agendavac.vagas.grade.intervalo-minutos deve ser positivo.");
+
+        List<LocalTime> horarios = new ArrayList<>();
+        LocalTime fim = LocalTime.parse(fimGrade);
+
+        // o limite de iterações evita laço infinito quando a grade passa da meia-noite
+        LocalTime hora = LocalTime.parse(inicioGrade);
+        for (int i = 0; !hora.isAfter(fim) && i < 24 * 60; i++) {
+            horarios.add(hora);
+            LocalTime proxima = hora.plusMinutes(intervaloGradeMinutos);
+            if (proxima.isBefore(hora)) break;
+            hora = proxima;
+        }
+
+        return horarios;
+    }
+
+    private boolean ocupada(Horario horario) {
+        VagasDaTransacao vagas = vagasDaTransacao();
+        if (vagas != null)
+            vagas.ocupados.add(horario);
+        return true;
+    }
+
+    // registrada uma vez por transação; null fora de uma transação
+    private VagasDaTransacao vagasDaTransacao() {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return null;
+
+        for (TransactionSynchronization sincronizacao : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacao instanceof VagasDaTransacao vagas && vagas.servico() == this)
+                return vagas;
+        }
+
+        VagasDaTransacao vagas = new VagasDaTransacao();
+        TransactionSynchronizationManager.registerSynchronization(vagas);
+        return vagas;
+    }
+
+    private static <V> void lembrar(Map<Horario, V> mapa, Horario horario, V valor) {
+        if (mapa.size() >= LIMITE_ENTRADAS_MEMORIA) {
+            mapa.clear();
+        }
+        mapa.put(horario, valor);
+    }
+
+    private record Horario(LocalDate data, LocalTime hora) {
+    }
+
+    // horários ocupados e vistos lotados pela transação; as marcas de lotado são aplicadas quando ela termina
+    private class VagasDaTransacao implements TransactionSynchronization {
+
+        private final Set<Horario> ocupados = new HashSet<>();
+        private final Map<Horario, Long> lotados = new HashMap<>();
+
+        VagaService servico() {
+            return VagaService.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            lotados.forEach((horario, lotadoAte) -> {
+                if (status == STATUS_COMMITTED || !ocupados.contains(horario))
+                    lembrar(horariosLotados, horario, lotadoAte);
+            });
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Busca por nome ordenada pelo próprio índice (UsuarioRepository.buscarPorNome).
+-- Com o índice GIN, ordenar os nomes encontrados por similaridade exigia ler e ordenar todos eles antes do LIMIT.
+-- O GiST de trigramas atende ao LIKE '%termo%' e devolve as linhas já em ordem de distância (operador <->>),
+-- então a consulta para ao completar a página. Substitui o índice GIN, que ficaria sem uso.
+-- O acento é removido antes do lower: com uma collation que não conhece letras acentuadas (C, por exemplo),
+-- lower('Ã') continua 'Ã' e o nome em maiúsculas não seria encontrado.
+
+CREATE INDEX IF NOT EXISTS idx_usuarios_nome_trgm_gist ON usuarios USING gist (lower(f_unaccent(nome)) gist_trgm_ops);
+DROP INDEX IF EXISTS idx_usuarios_nome_trgm;
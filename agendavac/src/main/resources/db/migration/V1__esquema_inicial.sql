@@ -0,0 +1,61 @@
+-- Esquema existente até aqui, antes gerado pelo Hibernate (ddl-auto=update).
+-- Bancos que já existiam recebem a versão 1 como linha de base (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE alergias (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome VARCHAR(40) NOT NULL
+);
+
+CREATE TABLE componentes (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome VARCHAR(40) NOT NULL
+);
+
+CREATE TABLE vacinas (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    titulo        VARCHAR(60)  NOT NULL,
+    descricao     VARCHAR(200) NOT NULL,
+    doses         INTEGER      NOT NULL,
+    periodicidade INTEGER,
+    intervalo     INTEGER
+);
+
+CREATE TABLE vacina_componente (
+    vacina_id     BIGINT NOT NULL REFERENCES vacinas (id),
+    componente_id BIGINT NOT NULL REFERENCES componentes (id)
+);
+
+CREATE TABLE usuarios (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome            VARCHAR(60) NOT NULL,
+    data_nascimento DATE        NOT NULL,
+    sexo            VARCHAR(1)  NOT NULL,
+    logradouro      VARCHAR(60) NOT NULL,
+    setor           VARCHAR(40) NOT NULL,
+    cidade          VARCHAR(40) NOT NULL,
+    uf              VARCHAR(2)  NOT NULL
+);
+
+CREATE TABLE usuario_alergia (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios (id),
+    alergia_id BIGINT NOT NULL REFERENCES alergias (id)
+);
+
+CREATE TABLE agendas (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    data          DATE         NOT NULL,
+    hora          TIME(6)      NOT NULL,
+    situacao      VARCHAR(10)  NOT NULL CHECK (situacao IN ('AGENDADO', 'CANCELADO', 'REALIZADO')),
+    data_situacao DATE,
+    observacoes   VARCHAR(200),
+    usuario_id    BIGINT       NOT NULL REFERENCES usuarios (id),
+    vacina_id     BIGINT       NOT NULL REFERENCES vacinas (id)
+);
+
+CREATE TABLE reacoes (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    descricao   VARCHAR(200) NOT NULL,
+    data_reacao DATE         NOT NULL,
+    agenda_id   BIGINT       NOT NULL REFERENCES agendas (id)
+);
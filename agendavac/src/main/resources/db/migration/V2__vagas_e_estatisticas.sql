@@ -0,0 +1,20 @@
+-- Tabelas de capacidade por horário e de contadores do painel.
+-- IF NOT EXISTS: em bancos de desenvolvimento elas podem já ter sido criadas pelo Hibernate.
+
+CREATE TABLE IF NOT EXISTS vagas_horario (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    data       DATE    NOT NULL,
+    hora       TIME(6) NOT NULL,
+    capacidade INTEGER NOT NULL,
+    ocupadas   INTEGER NOT NULL,
+    UNIQUE (data, hora)
+);
+
+CREATE TABLE IF NOT EXISTS estatisticas_agenda (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    data      DATE        NOT NULL,
+    vacina_id BIGINT      NOT NULL,
+    situacao  VARCHAR(10) NOT NULL,
+    total     BIGINT      NOT NULL,
+    UNIQUE (data, vacina_id, situacao)
+);
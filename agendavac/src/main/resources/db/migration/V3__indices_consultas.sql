@@ -0,0 +1,26 @@
+-- Índices das consultas mais frequentes. PlanoConsultasTest verifica que elas não fazem varredura sequencial.
+
+-- agendas do usuário (findByUsuario, reações por usuário)
+CREATE INDEX IF NOT EXISTS idx_agendas_usuario_data ON agendas (usuario_id, data);
+
+-- agendas por situação (findBySituacao e rotinas que varrem AGENDADO por data)
+CREATE INDEX IF NOT EXISTS idx_agendas_situacao_data ON agendas (situacao, data, id);
+
+-- paginação por cursor, fluxo e exportação por período: ORDER BY data, id
+CREATE INDEX IF NOT EXISTS idx_agendas_data_id ON agendas (data, id);
+
+-- chave estrangeira: exclusão de vacinas e reconstrução das estatísticas por vacina
+CREATE INDEX IF NOT EXISTS idx_agendas_vacina ON agendas (vacina_id);
+
+CREATE INDEX IF NOT EXISTS idx_reacoes_agenda ON reacoes (agenda_id);
+CREATE INDEX IF NOT EXISTS idx_reacoes_data_id ON reacoes (data_reacao, id);
+
+CREATE INDEX IF NOT EXISTS idx_usuario_alergia_usuario ON usuario_alergia (usuario_id);
+CREATE INDEX IF NOT EXISTS idx_usuario_alergia_alergia ON usuario_alergia (alergia_id);
+CREATE INDEX IF NOT EXISTS idx_vacina_componente_vacina ON vacina_componente (vacina_id);
+CREATE INDEX IF NOT EXISTS idx_vacina_componente_componente ON vacina_componente (componente_id);
+
+-- findBy...IgnoreCase: o Spring Data compara upper(coluna) = upper(?)
+CREATE INDEX IF NOT EXISTS idx_vacinas_titulo_upper ON vacinas (upper(titulo));
+CREATE INDEX IF NOT EXISTS idx_componentes_nome_upper ON componentes (upper(nome));
+CREATE INDEX IF NOT EXISTS idx_alergias_nome_upper ON alergias (upper(nome));
@@ -0,0 +1,12 @@
+-- Busca de usuários por parte do nome, sem diferenciar maiúsculas nem acentos (UsuarioRepository.buscarPorNome).
+-- unaccent() não é IMMUTABLE e não pode ser usada em índice; f_unaccent fixa o dicionário e pode.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS
+$$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+-- índice de trigramas: atende LIKE '%termo%' com termos de 3 ou mais caracteres
+CREATE INDEX IF NOT EXISTS idx_usuarios_nome_trgm ON usuarios USING gin (f_unaccent(lower(nome)) gin_trgm_ops);
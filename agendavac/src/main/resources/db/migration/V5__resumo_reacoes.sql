@@ -0,0 +1,21 @@
+-- Resumo de reações por dia da dose e vacina, atualizado de forma incremental.
+-- Quem grava ou exclui reações incrementa versao; a atualização periódica recalcula somente as linhas
+-- em que versao <> versao_calculada, a partir de agendas e reacoes.
+
+CREATE TABLE IF NOT EXISTS resumo_reacoes (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    data             DATE   NOT NULL,
+    vacina_id        BIGINT NOT NULL,
+    reacoes          BIGINT NOT NULL,
+    doses_com_reacao BIGINT NOT NULL,
+    versao           BIGINT NOT NULL,
+    versao_calculada BIGINT NOT NULL,
+    UNIQUE (data, vacina_id)
+);
+
+-- linhas aguardando recálculo; o índice parcial fica pequeno porque quase todas estão em dia
+CREATE INDEX IF NOT EXISTS idx_resumo_reacoes_pendentes ON resumo_reacoes (id) WHERE versao <> versao_calculada;
+
+-- recálculo por (dia, vacina); também atende às buscas pela chave estrangeira, antes feitas por idx_agendas_vacina
+CREATE INDEX IF NOT EXISTS idx_agendas_vacina_data ON agendas (vacina_id, data);
+DROP INDEX IF EXISTS idx_agendas_vacina;
@@ -0,0 +1,19 @@
+-- Lembretes de dose enviados na véspera de cada agenda AGENDADO.
+-- Cada agenda tem no máximo um lembrete; a linha registra o andamento do envio para que nenhum nó
+-- envie de novo o que já foi entregue.
+
+CREATE TABLE IF NOT EXISTS lembretes (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    agenda_id     BIGINT       NOT NULL UNIQUE REFERENCES agendas (id) ON DELETE CASCADE,
+    situacao      VARCHAR(10)  NOT NULL CHECK (situacao IN ('ENVIANDO', 'ENVIADO', 'FALHA', 'DESCARTADO')),
+    tentativas    INTEGER      NOT NULL,
+    reservado_ate TIMESTAMP(6) NOT NULL,
+    enviado_em    TIMESTAMP(6),
+    erro          VARCHAR(200)
+);
+
+-- lembretes a retomar (reserva vencida ou falha aguardando nova tentativa); enviados e descartados ficam fora do índice
+CREATE INDEX IF NOT EXISTS idx_lembretes_pendentes ON lembretes (reservado_ate) WHERE situacao IN ('ENVIANDO', 'FALHA');
+
+-- janela das próximas 24 horas por (data, hora), já filtrando a situação no próprio índice
+CREATE INDEX IF NOT EXISTS idx_agendas_data_hora_situacao ON agendas (data, hora, situacao);
@@ -0,0 +1,16 @@
+-- Situação EXPIRADO: agendas AGENDADO cuja data passou sem baixa.
+-- O nome da restrição é o gerado pelo PostgreSQL para o CHECK da V1 (e pelo Hibernate nos bancos antigos).
+
+ALTER TABLE agendas DROP CONSTRAINT IF EXISTS agendas_situacao_check;
+ALTER TABLE agendas ADD CONSTRAINT agendas_situacao_check
+    CHECK (situacao IN ('AGENDADO', 'CANCELADO', 'REALIZADO', 'EXPIRADO'));
+
+-- ponto em que cada tarefa em blocos parou, para continuar de onde estava após um reinício
+CREATE TABLE IF NOT EXISTS marcas_tarefas (
+    tarefa        VARCHAR(40) PRIMARY KEY,
+    data          DATE,
+    agenda_id     BIGINT,
+    atualizado_em TIMESTAMP(6)
+);
+
+INSERT INTO marcas_tarefas (tarefa) VALUES ('expiracao-agendas') ON CONFLICT DO NOTHING;
@@ -0,0 +1,17 @@
+-- Chaves Idempotency-Key de POST /agendas e POST /reacoes.
+-- A linha é gravada na mesma transação que cria as agendas (ou a reação), junto com a resposta devolvida ao
+-- cliente; uma repetição com a mesma chave recebe essa resposta sem executar a operação de novo.
+-- requisicao é o SHA-256 dos parâmetros, para recusar a mesma chave com outros dados.
+
+CREATE TABLE IF NOT EXISTS chaves_idempotencia (
+    operacao   VARCHAR(20)  NOT NULL,
+    chave      VARCHAR(100) NOT NULL,
+    requisicao CHAR(64)     NOT NULL,
+    status     INTEGER,
+    resposta   TEXT,
+    criada_em  TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (operacao, chave)
+);
+
+-- limpeza das chaves vencidas
+CREATE INDEX IF NOT EXISTS idx_chaves_idempotencia_criada_em ON chaves_idempotencia (criada_em);
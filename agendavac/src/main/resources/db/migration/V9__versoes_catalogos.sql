@@ -0,0 +1,12 @@
+-- Versão de cada catálogo servido com ETag (GET /vacinas, /componentes e /alergias).
+-- Quem altera o catálogo incrementa a versão na mesma transação; todas as instâncias leem a versão daqui,
+-- então uma alteração feita em uma instância muda o ETag e o JSON em cache das demais.
+
+CREATE TABLE IF NOT EXISTS versoes_catalogos (
+    catalogo VARCHAR(20) PRIMARY KEY,
+    versao   BIGINT      NOT NULL
+);
+
+INSERT INTO versoes_catalogos (catalogo, versao)
+VALUES ('VACINAS', 0), ('COMPONENTES', 0), ('ALERGIAS', 0)
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,115 @@
+package com.projeto.agendavac.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ControleAdmissaoFilterTest {
+
+    private ControleAdmissaoFilter filtro;
+
+    @BeforeEach
+    void configurar() {
+        filtro = new ControleAdmissaoFilter();
+
+        ReflectionTestUtils.setField(filtro, "tamanhoPool", 2);
+        ReflectionTestUtils.setField(filtro, "concorrenciaMaxima", 2);
+        ReflectionTestUtils.setField(filtro, "reservadasAgendamento", 1);
+        ReflectionTestUtils.setField(filtro, "maxBaldes", 100);
+        ReflectionTestUtils.setField(filtro, "agendamentoPorSegundo", 1.0);
+        ReflectionTestUtils.setField(filtro, "agendamentoRajada", 10);
+        ReflectionTestUtils.setField(filtro, "cadastroPorSegundo", 1.0);
+        ReflectionTestUtils.setField(filtro, "cadastroRajada", 10);
+        ReflectionTestUtils.setField(filtro, "consultaPorSegundo", 1.0);
+        ReflectionTestUtils.setField(filtro, "consultaRajada", 2);
+        ReflectionTestUtils.setField(filtro, "relatorioPorSegundo", 1.0);
+        ReflectionTestUtils.setField(filtro, "relatorioRajada", 10);
+        ReflectionTestUtils.setField(filtro, "registry", new SimpleMeterRegistry());
+        filtro.iniciar();
+    }
+
+    @Test
+    void consultaAlemDaRajadaRecebe429ComRetryAfter() throws Exception {
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.1").getStatus());
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse recusada = executar("GET", "/usuarios", "10.0.0.1");
+        assertEquals(429, recusada.getStatus());
+        assertNotNull(recusada.getHeader("Retry-After"));
+
+        // o limite é por cliente
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void vagaReservadaAtendeSomenteAgendamentos() throws Exception {
+        // exportação em andamento (resposta assíncrona) ocupa uma das duas vagas
+        MockHttpServletRequest exportacao = requisicao("GET", "/exportacoes/agendas", "10.0.0.1");
+        exportacao.setAsyncSupported(true);
+        filtro.doFilter(exportacao, new MockHttpServletResponse(), (req, resp) -> req.startAsync());
+
+        assertEquals(429, executar("GET", "/usuarios", "10.0.0.2").getStatus());
+        assertEquals(200, executar("POST", "/agendas", "10.0.0.2").getStatus());
+
+        // ao fim da escrita a vaga é devolvida
+        exportacao.getAsyncContext().complete();
+
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.2").getStatus());
+    }
+
+    // no limite de baldes, os clientes novos dividem o balde da classe; os já acompanhados mantêm o seu
+    @Test
+    void clientesAlemDoLimiteDividemUmBalde() throws Exception {
+        ReflectionTestUtils.setField(filtro, "maxBaldes", 1);
+
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.1").getStatus());
+
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.2").getStatus());
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.3").getStatus());
+        assertEquals(429, executar("GET", "/usuarios", "10.0.0.4").getStatus());
+
+        assertEquals(200, executar("GET", "/usuarios", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void concorrenciaAcimaDoPoolImpedeAInicializacao() {
+        ControleAdmissaoFilter acimaDoPool = new ControleAdmissaoFilter();
+        ReflectionTestUtils.setField(acimaDoPool, "tamanhoPool", 10);
+        ReflectionTestUtils.setField(acimaDoPool, "concorrenciaMaxima", 20);
+        ReflectionTestUtils.setField(acimaDoPool, "reservadasAgendamento", 5);
+
+        assertThrows(IllegalStateException.class, acimaDoPool::iniciar);
+    }
+
+    @Test
+    void classificaPorCaminhoEMetodo() {
+        assertEquals(ControleAdmissaoFilter.ClasseEndpoint.AGENDAMENTO, ControleAdmissaoFilter.classificar("PUT", "/agendas/1/baixa"));
+        assertEquals(ControleAdmissaoFilter.ClasseEndpoint.CONSULTA, ControleAdmissaoFilter.classificar("GET", "/agendas/pagina"));
+        assertEquals(ControleAdmissaoFilter.ClasseEndpoint.RELATORIO, ControleAdmissaoFilter.classificar("GET", "/estatisticas/reacoes"));
+        assertEquals(ControleAdmissaoFilter.ClasseEndpoint.CADASTRO, ControleAdmissaoFilter.classificar("POST", "/usuarios"));
+    }
+
+    private MockHttpServletResponse executar(String metodo, String caminho, String cliente) throws Exception {
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        FilterChain chain = new MockFilterChain();
+
+        filtro.doFilter(requisicao(metodo, caminho, cliente), resposta, chain);
+
+        return resposta;
+    }
+
+    private MockHttpServletRequest requisicao(String metodo, String caminho, String cliente) {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest(metodo, caminho);
+        requisicao.setRemoteAddr(cliente);
+        return requisicao;
+    }
+}
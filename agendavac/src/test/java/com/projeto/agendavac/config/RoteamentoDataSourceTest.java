@@ -0,0 +1,90 @@
+package com.projeto.agendavac.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Dois bancos H2 em memória no lugar do primário e da réplica; cada um responde com o próprio nome,
+ * então a consulta mostra para onde a conexão foi roteada.
+ * */
+
+class RoteamentoDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate leitura;
+    private TransactionTemplate escrita;
+    private volatile String origemNaTarefa;
+
+    @BeforeEach
+    void configurar() {
+        DataSource primario = banco("primario");
+        DataSource replica = banco("replica");
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, List.of(replica)));
+        DataSourceTransactionManager transacoes = new DataSourceTransactionManager(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        escrita = new TransactionTemplate(transacoes);
+        leitura = new TransactionTemplate(transacoes);
+        leitura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void limpar() {
+        RoteamentoDataSource.liberarPrimario();
+    }
+
+    @Test
+    void transacaoReadOnlyVaiParaAReplica() {
+        assertEquals("replica", leitura.execute(status -> origem()));
+        assertEquals("primario", escrita.execute(status -> origem()));
+        assertEquals("primario", origem());
+    }
+
+    @Test
+    void primarioFixadoAtendeTambemAsLeituras() {
+        RoteamentoDataSource.fixarPrimario();
+
+        assertEquals("primario", leitura.execute(status -> origem()));
+    }
+
+    @Test
+    void fixacaoSegueParaATarefaAssincrona() throws Exception {
+        RoteamentoDataSource.fixarPrimario();
+        Runnable tarefa = RoteamentoDataSource.propagarPrimario(() -> origemNaTarefa = leitura.execute(status -> origem()));
+        RoteamentoDataSource.liberarPrimario();
+
+        Thread thread = new Thread(tarefa);
+        thread.start();
+        thread.join();
+
+        assertEquals("primario", origemNaTarefa);
+        assertEquals("replica", leitura.execute(status -> origem()));
+    }
+
+    private String origem() {
+        return jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class);
+    }
+
+    private DataSource banco(String nome) {
+        DataSource banco = new DriverManagerDataSource("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate jdbc = new JdbcTemplate(banco);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS origem (nome VARCHAR(20))");
+        jdbc.execute("DELETE FROM origem");
+        jdbc.update("INSERT INTO origem (nome) VALUES (?)", nome);
+
+        return banco;
+    }
+}
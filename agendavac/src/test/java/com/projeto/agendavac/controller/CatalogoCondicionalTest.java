@@ -0,0 +1,145 @@
+package com.projeto.agendavac.controller;
+
+import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.repository.AlergiaRepository;
+import com.projeto.agendavac.service.CatalogosEmCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * GET condicional dos catálogos: 304 com o ETag atual e invalidação pela versão gravada no banco,
+ * inclusive quando a alteração vem de outra instância (simulada gravando direto nas tabelas).
+ * */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CatalogoCondicionalTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AlergiaRepository alergiaRepository;
+
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void etagAtualRecebe304() throws Exception {
+        criarAlergia("Amendoim");
+
+        String etag = etagAtual();
+
+        mockMvc.perform(get("/alergias").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/alergias").header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void alteracaoPelaApiMudaOEtag() throws Exception {
+        criarAlergia("Penicilina");
+        String anterior = etagAtual();
+
+        criarAlergia("Dipirona");
+
+        mockMvc.perform(get("/alergias").header(HttpHeaders.IF_NONE_MATCH, anterior))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Dipirona")));
+
+        assertNotEquals(anterior, etagAtual());
+    }
+
+    // outra instância grava o catálogo e a versão; o JSON em cache desta instância é descartado
+    @Test
+    void alteracaoDeOutraInstanciaDescartaOJsonEmCache() throws Exception {
+        criarAlergia("Sulfa");
+        String anterior = etagAtual();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Alergia alergia = new Alergia();
+            alergia.setNome("Iodo");
+            alergiaRepository.save(alergia);
+            catalogosEmCache.alterado(Catalogo.ALERGIAS);
+        });
+
+        mockMvc.perform(get("/alergias").header(HttpHeaders.IF_NONE_MATCH, anterior))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Iodo")));
+    }
+
+    // a alergia no cache de segundo nível desta instância é descartada na primeira leitura da versão nova
+    @Test
+    void alteracaoDeOutraInstanciaDescartaOCacheDeSegundoNivel() throws Exception {
+        criarAlergia("Corante");
+        Long id = idDaAlergia("Corante");
+        assertEquals("Corante", alergiaRepository.findById(id).orElseThrow().getNome());
+        etagAtual();
+
+        // direto no banco, como a transação de outra instância: nenhum comando passa pelo Hibernate desta
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE alergias SET nome = 'Corante amarelo' WHERE id = ?", id);
+            jdbcTemplate.update("UPDATE versoes_catalogos SET versao = versao + 1 WHERE catalogo = 'ALERGIAS'");
+        });
+
+        catalogosEmCache.etag(Catalogo.ALERGIAS);
+
+        assertEquals("Corante amarelo", alergiaRepository.findById(id).orElseThrow().getNome());
+    }
+
+    @Test
+    void alteracaoDesfeitaNaoMudaOEtag() throws Exception {
+        criarAlergia("Lactose");
+        String anterior = etagAtual();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogosEmCache.alterado(Catalogo.ALERGIAS);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(anterior, etagAtual());
+    }
+
+    private void criarAlergia(String nome) throws Exception {
+        mockMvc.perform(post("/alergias").contentType(MediaType.APPLICATION_JSON).content("{\"nome\": \"" + nome + "\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private Long idDaAlergia(String nome) {
+        return jdbcTemplate.queryForObject("SELECT id FROM alergias WHERE nome = ?", Long.class, nome);
+    }
+
+    private String etagAtual() throws Exception {
+        return mockMvc.perform(get("/alergias"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,272 @@
+package com.projeto.agendavac.controller;
+
+import com.projeto.agendavac.entity.Agenda;
+import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.entity.Componente;
+import com.projeto.agendavac.entity.Reacao;
+import com.projeto.agendavac.entity.Usuario;
+import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.repository.AgendaRepository;
+import com.projeto.agendavac.repository.AlergiaRepository;
+import com.projeto.agendavac.repository.ComponenteRepository;
+import com.projeto.agendavac.repository.ReacaoRepository;
+import com.projeto.agendavac.repository.UsuarioRepository;
+import com.projeto.agendavac.repository.VacinaRepository;
+import com.projeto.agendavac.service.CatalogosEmCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Orçamento de consultas SQL por endpoint, medido com as estatísticas do Hibernate.
+ * O número de consultas não pode depender da quantidade de linhas retornadas: se alguém
+ * reintroduzir um N+1, o endpoint estoura o orçamento e o build falha.
+ * Cada endpoint é medido com USUARIOS e de novo com USUARIOS_MAIS_LINHAS, e as duas contagens devem ser
+ * iguais ao orçamento: um N+1 aparece como diferença entre as duas medições mesmo que o orçamento seja alto.
+ * O orçamento é o número exato de consultas: um endpoint que passa a consultar menos também
+ * falha, para que o orçamento seja atualizado junto com ele e não fique folgado.
+ * */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasPorEndpointTest {
+
+    private static final int USUARIOS = 20;
+    private static final int USUARIOS_MAIS_LINHAS = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AlergiaRepository alergiaRepository;
+
+    @Autowired
+    private ComponenteRepository componenteRepository;
+
+    @Autowired
+    private VacinaRepository vacinaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AgendaRepository agendaRepository;
+
+    @Autowired
+    private ReacaoRepository reacaoRepository;
+
+    @Autowired
+    private CatalogosEmCache catalogosEmCache;
+
+    private Long usuarioId;
+    private List<Long> alergiaIds;
+    private Long gripeId;
+    private Long hepatiteId;
+
+    // consultas de cada endpoint com USUARIOS, medidas antes de o banco crescer
+    private final Map<String, Long> consultasComMenosLinhas = new HashMap<>();
+
+    @BeforeAll
+    void popularBanco() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            popularCatalogos();
+            popularUsuarios(0, USUARIOS);
+        });
+
+        for (Consulta consulta : consultas()) {
+            consultasComMenosLinhas.put(consulta.url(), medir(consulta.url(), consulta.assincrono()));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> popularUsuarios(USUARIOS, USUARIOS_MAIS_LINHAS));
+    }
+
+    // os mesmos endpoints dos testes, medidos uma vez com menos linhas
+    private List<Consulta> consultas() {
+        return List.of(
+                new Consulta("/agendas", true),
+                new Consulta("/agendas/pagina?tamanho=100", false),
+                new Consulta("/agendas/situacao/REALIZADO", false),
+                new Consulta("/agendas/situacao/AGENDADO", false),
+                new Consulta("/agendas/usuario/" + usuarioId, false),
+                new Consulta("/usuarios", false),
+                new Consulta("/reacoes", false),
+                new Consulta("/reacoes/usuario/" + usuarioId, false),
+                new Consulta("/vacinas", false));
+    }
+
+    private void popularCatalogos() {
+        alergiaIds = List.of(novaAlergia("Ovo").getId(), novaAlergia("Látex").getId());
+
+        gripeId = novaVacina("Gripe", novoComponente("Gelatina")).getId();
+        hepatiteId = novaVacina("Hepatite B", novoComponente("Alumínio")).getId();
+    }
+
+    // uma única transação por chamada, com as referências do catálogo gerenciadas ao serem associadas
+    private void popularUsuarios(int inicio, int fim) {
+        Vacina gripe = vacinaRepository.getReferenceById(gripeId);
+        Vacina hepatite = vacinaRepository.getReferenceById(hepatiteId);
+
+        for (int i = inicio; i < fim; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setNome("Usuário " + i);
+            usuario.setDataNascimento(LocalDate.of(1990, 1, 1));
+            usuario.setSexo(i % 2 == 0 ? "F" : "M");
+            usuario.setLogradouro("Rua " + i);
+            usuario.setSetor("Centro");
+            usuario.setCidade("Goiânia");
+            usuario.setUf("GO");
+            usuario.setAlergias(new ArrayList<>(List.of(alergiaRepository.getReferenceById(alergiaIds.get(i % 2)))));
+            usuario = usuarioRepository.save(usuario);
+            // as agendas e reações deste usuário não mudam com o crescimento do banco
+            if (usuarioId == null) usuarioId = usuario.getId();
+
+            for (Vacina vacina : List.of(gripe, hepatite)) {
+                Agenda agenda = new Agenda();
+                agenda.setUsuario(usuario);
+                agenda.setVacina(vacina);
+                agenda.setData(LocalDate.of(2024, 3, 1).plusDays(i));
+                agenda.setHora(LocalTime.of(8, 0));
+                agenda.setSituacao(vacina == gripe ? Situacao.REALIZADO : Situacao.AGENDADO);
+                agenda = agendaRepository.save(agenda);
+
+                if (vacina == gripe) {
+                    Reacao reacao = new Reacao();
+                    reacao.setAgenda(agenda);
+                    reacao.setDescricao("Dor no local da aplicação");
+                    reacao.setDataReacao(agenda.getData().plusDays(1));
+                    reacaoRepository.save(reacao);
+                }
+            }
+        }
+    }
+
+    // as listagens de agendas devolvem AgendaResumo: agenda, usuário e vacina em uma única consulta
+    @Test
+    void listaCompletaDeAgendas() throws Exception {
+        // verificação de existência + leitura em fluxo
+        assertOrcamento("/agendas", 2, true);
+    }
+
+    @Test
+    void paginaDeAgendas() throws Exception {
+        assertOrcamento("/agendas/pagina?tamanho=100", 1, false);
+    }
+
+    @Test
+    void agendasPorSituacao() throws Exception {
+        assertOrcamento("/agendas/situacao/REALIZADO", 1, false);
+        assertOrcamento("/agendas/situacao/AGENDADO", 1, false);
+    }
+
+    @Test
+    void agendasPorUsuario() throws Exception {
+        // verificação do usuário + resumos
+        assertOrcamento("/agendas/usuario/" + usuarioId, 2, false);
+    }
+
+    @Test
+    void usuarios() throws Exception {
+        assertOrcamento("/usuarios", 1, false);
+    }
+
+    @Test
+    void reacoes() throws Exception {
+        assertOrcamento("/reacoes", 1, false);
+        assertOrcamento("/reacoes/usuario/" + usuarioId, 1, false);
+    }
+
+    @Test
+    void vacinas() throws Exception {
+        // versão do catálogo + vacinas + componentes em lote
+        assertOrcamento("/vacinas", 3, false);
+    }
+
+    private void assertOrcamento(String url, long orcamento, boolean assincrono) throws Exception {
+
+        long comMenosLinhas = consultasComMenosLinhas.get(url);
+        long consultas = medir(url, assincrono);
+
+        assertEquals(comMenosLinhas, consultas, "GET " + url + " executou " + comMenosLinhas + " consultas com "
+                + USUARIOS + " usuários e " + consultas + " com " + USUARIOS_MAIS_LINHAS + ".");
+        assertEquals(orcamento, consultas,
+                "GET " + url + " executou " + consultas + " consultas; o orçamento é " + orcamento + ".");
+    }
+
+    private long medir(String url, boolean assincrono) throws Exception {
+
+        // sem cache, para medir o pior caso de forma determinística: a nova versão do catálogo de vacinas também
+        // descarta o corpo de GET /vacinas guardado em memória
+        transactionTemplate.executeWithoutResult(status -> catalogosEmCache.alterado(Catalogo.VACINAS));
+        entityManagerFactory.getCache().evictAll();
+
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        if (assincrono) {
+            MvcResult resultado = mockMvc.perform(get(url)).andExpect(request().asyncStarted()).andReturn();
+            mockMvc.perform(asyncDispatch(resultado)).andExpect(status().isOk()).andExpect(jsonPath("$").isArray());
+        } else {
+            mockMvc.perform(get(url)).andExpect(status().isOk());
+        }
+
+        return estatisticas.getPrepareStatementCount();
+    }
+
+    private Alergia novaAlergia(String nome) {
+        Alergia alergia = new Alergia();
+        alergia.setNome(nome);
+        return alergiaRepository.save(alergia);
+    }
+
+    private Componente novoComponente(String nome) {
+        Componente componente = new Componente();
+        componente.setNome(nome);
+        return componenteRepository.save(componente);
+    }
+
+    private Vacina novaVacina(String titulo, Componente componente) {
+        Vacina vacina = new Vacina();
+        vacina.setTitulo(titulo);
+        vacina.setDescricao("Vacina " + titulo);
+        vacina.setDoses(1);
+        vacina.setComponentes(new ArrayList<>(List.of(componente)));
+        return vacinaRepository.save(vacina);
+    }
+
+    private record Consulta(String url, boolean assincrono) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.dto.NovaReacao;
+import com.projeto.agendavac.entity.Usuario;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Gravação em lote via JDBC em um PostgreSQL embarcado, com reWriteBatchedInserts como em produção: o driver
+ * junta as linhas do batch em um único INSERT, e cada objeto deve ficar com o id da sua própria linha.
+ * */
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({GravacaoEmLoteTest.BancoEmbarcado.class, UsuarioLoteRepository.class, ReacaoLoteRepository.class})
+class GravacaoEmLoteTest {
+
+    @Autowired
+    private UsuarioLoteRepository usuarioLoteRepository;
+
+    @Autowired
+    private ReacaoLoteRepository reacaoLoteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // mais de um batch (500 linhas), para que os ids de blocos diferentes também sejam conferidos
+    @Test
+    void cadaUsuarioFicaComOIdDaSuaLinha() {
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            usuarios.add(usuario("Usuário " + i));
+        }
+
+        usuarioLoteRepository.inserirUsuarios(usuarios);
+
+        Map<Long, String> nomesPorId = new HashMap<>();
+        jdbcTemplate.query("SELECT id, nome FROM usuarios",
+                rs -> { nomesPorId.put(rs.getLong("id"), rs.getString("nome")); });
+
+        assertEquals(usuarios.size(), nomesPorId.size());
+        for (Usuario usuario : usuarios) {
+            assertEquals(usuario.getNome(), nomesPorId.get(usuario.getId()));
+        }
+    }
+
+    @Test
+    void cadaReacaoFicaComOIdDaSuaLinha() {
+        Usuario usuario = usuario("Ana");
+        usuarioLoteRepository.inserirUsuarios(List.of(usuario));
+        Long vacinaId = jdbcTemplate.queryForObject(
+                "INSERT INTO vacinas (titulo, descricao, doses) VALUES ('Gripe', 'Influenza', 1) RETURNING id", Long.class);
+        Long agendaId = jdbcTemplate.queryForObject("""
+                INSERT INTO agendas (data, hora, situacao, usuario_id, vacina_id)
+                VALUES ('2024-03-01', '10:00', 'REALIZADO', ?, ?) RETURNING id
+                """, Long.class, usuario.getId(), vacinaId);
+
+        List<NovaReacao> reacoes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            reacoes.add(new NovaReacao(agendaId, "Reação " + i, LocalDate.of(2024, 3, 2)));
+        }
+
+        List<Long> ids = reacaoLoteRepository.inserir(reacoes);
+
+        Map<Long, String> descricoesPorId = new HashMap<>();
+        jdbcTemplate.query("SELECT id, descricao FROM reacoes",
+                rs -> { descricoesPorId.put(rs.getLong("id"), rs.getString("descricao")); });
+
+        assertEquals(reacoes.size(), descricoesPorId.size());
+        for (int i = 0; i < reacoes.size(); i++) {
+            assertEquals(reacoes.get(i).descricao(), descricoesPorId.get(ids.get(i)));
+        }
+    }
+
+    private static Usuario usuario(String nome) {
+        Usuario usuario = new Usuario();
+        usuario.setNome(nome);
+        usuario.setDataNascimento(LocalDate.of(1990, 1, 1));
+        usuario.setSexo("F");
+        usuario.setLogradouro("Rua 1");
+        usuario.setSetor("Centro");
+        usuario.setCidade("Goiânia");
+        usuario.setUf("GO");
+        return usuario;
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class BancoEmbarcado {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres postgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres postgres) {
+            return new DriverManagerDataSource(postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.dto.FiltroExportacao;
+import com.projeto.agendavac.enums.Situacao;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/*
+ * Aplica as migrações em um PostgreSQL embarcado e confere, com EXPLAIN, que as consultas mais frequentes
+ * usam índice. Com enable_seqscan desligado o planejador só escolhe varredura sequencial quando não existe
+ * índice utilizável, então o teste falha se um índice for removido ou se a consulta deixar de usá-lo.
+ * Cada caso chama o método do repositório: o DataSource registra os comandos enviados ao banco, com os
+ * parâmetros, e é esse SQL (gerado pelo Hibernate ou escrito no repositório JDBC) que passa pelo EXPLAIN.
+ * O contexto também valida as entidades contra o esquema das migrações (ddl-auto=validate).
+ * */
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PlanoConsultasTest.BancoEmbarcado.class, ExportacaoRepository.class, LembreteRepository.class,
+        AgendaLoteRepository.class, ChaveIdempotenciaRepository.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PlanoConsultasTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 3, 1);
+    private static final LocalDate FIM = LocalDate.of(2024, 3, 31);
+    private static final LocalDateTime AGORA = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    // comandos da thread do teste, registrados só durante capturar
+    private static final ThreadLocal<List<Comando>> capturados = new ThreadLocal<>();
+
+    @Autowired
+    private EmbeddedPostgres postgres;
+
+    @Autowired
+    private AgendaRepository agendaRepository;
+
+    @Autowired
+    private ReacaoRepository reacaoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private VacinaRepository vacinaRepository;
+
+    @Autowired
+    private ComponenteRepository componenteRepository;
+
+    @Autowired
+    private AlergiaRepository alergiaRepository;
+
+    @Autowired
+    private VagaHorarioRepository vagaHorarioRepository;
+
+    @Autowired
+    private EstatisticaAgendaRepository estatisticaAgendaRepository;
+
+    @Autowired
+    private ResumoReacaoRepository resumoReacaoRepository;
+
+    @Autowired
+    private ExportacaoRepository exportacaoRepository;
+
+    @Autowired
+    private LembreteRepository lembreteRepository;
+
+    @Autowired
+    private AgendaLoteRepository agendaLoteRepository;
+
+    @Autowired
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    Stream<Arguments> consultas() {
+        return Stream.of(
+                consulta("AgendaRepository.buscarResumosPorUsuario", "agendas",
+                        () -> agendaRepository.buscarResumosPorUsuario(1L)),
+                consulta("AgendaRepository.buscarResumosPorSituacao", "agendas",
+                        () -> agendaRepository.buscarResumosPorSituacao(Situacao.AGENDADO)),
+                consulta("AgendaRepository.buscarPrimeiraPagina", "agendas",
+                        () -> agendaRepository.buscarPrimeiraPagina(PageRequest.ofSize(100))),
+                consulta("AgendaRepository.buscarPaginaApos", "agendas",
+                        () -> agendaRepository.buscarPaginaApos(INICIO, 10L, PageRequest.ofSize(100))),
+                consulta("ExportacaoRepository.percorrerAgendas", "agendas",
+                        () -> exportacaoRepository.percorrerAgendas(new FiltroExportacao(INICIO, FIM, null), rs -> {
+                        })),
+                consulta("ReacaoRepository.buscarResumosPorAgenda", "reacoes",
+                        () -> reacaoRepository.buscarResumosPorAgenda(1L)),
+                consulta("ReacaoRepository.buscarResumosPorUsuario", "agendas",
+                        () -> reacaoRepository.buscarResumosPorUsuario(1L)),
+                consulta("UsuarioRepository.buscarNomesAlergias", "usuario_alergia",
+                        () -> usuarioRepository.buscarNomesAlergias(1L)),
+                consulta("VacinaRepository.buscarNomesComponentes", "vacina_componente",
+                        () -> vacinaRepository.buscarNomesComponentes(1L)),
+                consulta("UsuarioRepository.buscarPorNome", "usuarios",
+                        () -> usuarioRepository.buscarPorNome("joão", 20, 0)),
+                consulta("VacinaRepository.findByTituloIgnoreCase", "vacinas",
+                        () -> vacinaRepository.findByTituloIgnoreCase("Influenza")),
+                consulta("ComponenteRepository.findByNomeIgnoreCase", "componentes",
+                        () -> componenteRepository.findByNomeIgnoreCase("Gelatina")),
+                consulta("AlergiaRepository.findByNomeIgnoreCase", "alergias",
+                        () -> alergiaRepository.findByNomeIgnoreCase("Ovo")),
+                consulta("VagaHorarioRepository.findByDataOrderByHora", "vagas_horario",
+                        () -> vagaHorarioRepository.findByDataOrderByHora(INICIO)),
+                consulta("EstatisticaAgendaRepository.buscarPorPeriodo", "estatisticas_agenda",
+                        () -> estatisticaAgendaRepository.buscarPorPeriodo(INICIO, FIM, null)),
+                consulta("EstatisticaAgendaRepository.apagarPeriodo", "estatisticas_agenda",
+                        () -> estatisticaAgendaRepository.apagarPeriodo(INICIO, FIM)),
+                consulta("EstatisticaAgendaRepository.recalcularPeriodo", "agendas",
+                        () -> estatisticaAgendaRepository.recalcularPeriodo(INICIO, FIM)),
+                consulta("ResumoReacaoRepository.recalcular", "agendas",
+                        () -> resumoReacaoRepository.recalcular(List.of(1L))),
+                consulta("ResumoReacaoRepository.somarPorVacina", "resumo_reacoes",
+                        () -> resumoReacaoRepository.somarPorVacina(INICIO, FIM, "month", false)),
+                consulta("LembreteRepository.reservarNovos", "agendas",
+                        () -> lembreteRepository.reservarNovos(AGORA, AGORA.plusDays(1), AGORA.plusMinutes(10), 200)),
+                consulta("LembreteRepository.reservarPendentes", "lembretes",
+                        () -> lembreteRepository.reservarPendentes(AGORA, AGORA.plusMinutes(10), 5, 200)),
+                consulta("AgendaLoteRepository.expirar", "agendas",
+                        () -> agendaLoteRepository.expirar(INICIO, LocalDate.of(2024, 1, 10), 500L, 1000, INICIO)),
+                consulta("ChaveIdempotenciaRepository.excluirVencidas", "chaves_idempotencia",
+                        () -> chaveIdempotenciaRepository.excluirVencidas(AGORA, 1000))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void consultaNaoFazVarreduraSequencial(String metodo, String tabela, Runnable chamada) {
+
+        List<Comando> comandos = capturar(chamada);
+
+        assertFalse(comandos.isEmpty(), metodo + " não enviou nenhum comando ao banco.");
+
+        for (Comando comando : comandos) {
+            String plano = explicar(comando.sqlComParametros());
+
+            assertFalse(plano.contains("Seq Scan on " + tabela),
+                    metodo + " faz varredura sequencial em " + tabela + ":\n" + comando.sql() + "\n" + plano);
+        }
+    }
+
+    private static Arguments consulta(String metodo, String tabela, Runnable chamada) {
+        return Arguments.of(metodo, tabela, chamada);
+    }
+
+    private static List<Comando> capturar(Runnable chamada) {
+        List<Comando> comandos = new ArrayList<>();
+        capturados.set(comandos);
+        try {
+            chamada.run();
+        } finally {
+            capturados.remove();
+        }
+        return comandos;
+    }
+
+    // em outra conexão, fora da transação do teste; o SET vale para a conexão, por isso o EXPLAIN roda nela
+    private String explicar(String sql) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+
+        List<String> plano = jdbcTemplate.execute((ConnectionCallback<List<String>>) conexao -> {
+            try (Statement comando = conexao.createStatement()) {
+                comando.execute("SET enable_seqscan = off");
+
+                List<String> linhas = new ArrayList<>();
+                try (ResultSet rs = comando.executeQuery("EXPLAIN " + sql)) {
+                    while (rs.next()) {
+                        linhas.add(rs.getString(1));
+                    }
+                }
+                return linhas;
+            }
+        });
+
+        return String.join("\n", plano);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class BancoEmbarcado {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres postgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        // as migrações (Flyway) e os repositórios usam este DataSource
+        @Bean
+        DataSource dataSource(EmbeddedPostgres postgres) {
+            DataSource destino = postgres.getPostgresDatabase();
+
+            return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                    (proxy, metodo, args) -> {
+                        Object resultado = invocar(destino, metodo, args);
+                        return resultado instanceof Connection conexao ? conexaoRegistrada(conexao) : resultado;
+                    });
+        }
+
+        private static Connection conexaoRegistrada(Connection conexao) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, metodo, args) -> {
+                        Object resultado = invocar(conexao, metodo, args);
+
+                        if (resultado instanceof PreparedStatement ps && metodo.getName().startsWith("prepare"))
+                            return comandoRegistrado(ps, (String) args[0]);
+                        if (resultado instanceof Statement comando && metodo.getName().equals("createStatement"))
+                            return comandoRegistrado(comando, null);
+                        return resultado;
+                    });
+        }
+
+        // guarda os parâmetros de cada set e registra o comando quando ele é executado
+        private static Statement comandoRegistrado(Statement comando, String sqlPreparado) {
+            Map<Integer, Object> parametros = new TreeMap<>();
+
+            InvocationHandler registrar = (proxy, metodo, args) -> {
+                String nome = metodo.getName();
+
+                if (nome.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice)
+                    parametros.put(indice, nome.equals("setNull") ? null : args[1]);
+                else if (nome.equals("clearParameters"))
+                    parametros.clear();
+                else if (nome.startsWith("execute") || nome.equals("addBatch"))
+                    registrarComando(sqlPreparado != null ? sqlPreparado : (String) args[0], parametros);
+
+                return invocar(comando, metodo, args);
+            };
+
+            Class<?> tipo = sqlPreparado != null ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, registrar);
+        }
+
+        private static void registrarComando(String sql, Map<Integer, Object> parametros) {
+            List<Comando> comandos = capturados.get();
+            if (comandos != null && sql != null)
+                comandos.add(new Comando(sql, new ArrayList<>(parametros.values())));
+        }
+
+        private static Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable {
+            try {
+                return metodo.invoke(alvo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // SQL com os parâmetros no lugar dos ?, como literais tipados, para o EXPLAIN
+    private record Comando(String sql, List<Object> parametros) {
+
+        String sqlComParametros() {
+            StringBuilder resultado = new StringBuilder();
+            boolean entreAspas = false;
+            int proximo = 0;
+
+            for (char c : sql.toCharArray()) {
+                if (c == '\'') entreAspas = !entreAspas;
+
+                if (c == '?' && !entreAspas && proximo < parametros.size()) {
+                    resultado.append(literal(parametros.get(proximo++)));
+                } else {
+                    resultado.append(c);
+                }
+            }
+            return resultado.toString();
+        }
+
+        private static String literal(Object valor) {
+            if (valor == null) return "NULL";
+            if (valor instanceof Number || valor instanceof Boolean) return valor.toString();
+            if (valor instanceof LocalDate || valor instanceof java.sql.Date) return "DATE '" + valor + "'";
+            if (valor instanceof LocalTime || valor instanceof java.sql.Time) return "TIME '" + valor + "'";
+            if (valor instanceof LocalDateTime || valor instanceof java.sql.Timestamp) return "TIMESTAMP '" + valor + "'";
+            return "'" + valor.toString().replace("'", "''") + "'";
+        }
+    }
+}
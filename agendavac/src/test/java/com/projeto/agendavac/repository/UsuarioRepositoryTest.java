@@ -0,0 +1,131 @@
+package com.projeto.agendavac.repository;
+
+import com.projeto.agendavac.entity.Usuario;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Busca por nome (consulta nativa com pg_trgm) em um PostgreSQL embarcado com as migrações aplicadas.
+ * */
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UsuarioRepositoryTest.BancoEmbarcado.class)
+class UsuarioRepositoryTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void popular() {
+        for (int i = 0; i < 2000; i++) {
+            salvar("Pessoa " + i + (i % 2 == 0 ? " Souza" : " Lima"));
+        }
+        salvar("Maria João da Silva");
+        salvar("JOÃO PEDRO");
+        salvar("Joana Prado");
+        salvar("Carlos Silva");
+        salvar("Ana Silvana");
+
+        usuarioRepository.flush();
+        jdbcTemplate.execute("ANALYZE usuarios");
+    }
+
+    @Test
+    void encontraParteDoNomeSemDiferenciarMaiusculasNemAcentos() {
+        assertEquals(Set.of("JOÃO PEDRO", "Maria João da Silva"), Set.copyOf(nomes(usuarioRepository.buscarPorNome("joao", 20, 0))));
+    }
+
+    @Test
+    void palavraIgualAoTermoVemAntesDaParecida() {
+        List<String> nomes = nomes(usuarioRepository.buscarPorNome("silva", 20, 0));
+
+        // mesma distância: desempate pelo id (ordem de cadastro)
+        assertEquals(List.of("Maria João da Silva", "Carlos Silva", "Ana Silvana"), nomes);
+    }
+
+    @Test
+    void paginasNaoRepetemNemPulamUsuarios() {
+        Set<Object> ids = new HashSet<>();
+
+        for (int pagina = 0; pagina < 5; pagina++) {
+            List<Object[]> linhas = usuarioRepository.buscarPorNome("souza", 100, pagina * 100L);
+            assertEquals(100, linhas.size());
+            linhas.forEach(linha -> ids.add(linha[0]));
+        }
+
+        assertEquals(500, ids.size());
+    }
+
+    // o índice GiST filtra o LIKE, e a ordenação por distância e id é top-N: guarda só as linhas até o fim da página
+    @Test
+    void ordenacaoGuardaSoAteOFimDaPagina() throws Exception {
+        String sql = UsuarioRepository.class
+                .getMethod("buscarPorNome", String.class, int.class, long.class)
+                .getAnnotation(Query.class).value();
+
+        List<String> plano = new NamedParameterJdbcTemplate(jdbcTemplate).queryForList("EXPLAIN ANALYZE " + sql,
+                Map.of("termo", "souza", "limite", 20, "deslocamento", 100L), String.class);
+        String texto = String.join("\n", plano);
+
+        assertTrue(texto.contains("idx_usuarios_nome_trgm_gist"), texto);
+        assertTrue(texto.contains("Sort Key:") && texto.contains("), id"), texto);
+        assertTrue(texto.contains("Sort Method: top-N heapsort"), texto);
+    }
+
+    private void salvar(String nome) {
+        Usuario usuario = new Usuario();
+        usuario.setNome(nome);
+        usuario.setDataNascimento(LocalDate.of(1990, 1, 1));
+        usuario.setSexo("F");
+        usuario.setLogradouro("Rua 1");
+        usuario.setSetor("Centro");
+        usuario.setCidade("Goiânia");
+        usuario.setUf("GO");
+        usuario.setAlergias(new ArrayList<>());
+        usuarioRepository.save(usuario);
+    }
+
+    private static List<String> nomes(List<Object[]> linhas) {
+        return linhas.stream().map(linha -> (String) linha[1]).toList();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class BancoEmbarcado {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres postgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres postgres) {
+            return postgres.getPostgresDatabase();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.AgendamentoLoteItem;
+import com.projeto.agendavac.dto.FalhaLote;
+import com.projeto.agendavac.dto.ResultadoLote;
+import com.projeto.agendavac.entity.Usuario;
+import com.projeto.agendavac.entity.Vacina;
+import com.projeto.agendavac.repository.UsuarioRepository;
+import com.projeto.agendavac.repository.VacinaRepository;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Agendamento em lote no banco H2, passando por AgendaLoteRepository.inserirDoses, vagas e estatísticas.
+ * Um bloco por item: o segundo bloco é recusado pelo banco (gatilho no INSERT de agendas) e só ele é desfeito.
+ * */
+
+// mesmo contexto (e mesmo banco H2) dos testes de controller
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AgendamentoLoteIntegracaoTest {
+
+    private static final LocalDate DATA = LocalDate.of(2031, 5, 12);
+    private static final LocalTime HORA_CONFIRMADA = LocalTime.of(8, 0);
+    private static final LocalTime HORA_DESFEITA = LocalTime.of(9, 0);
+
+    @Autowired
+    private AgendamentoLoteService agendamentoLoteService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private VacinaRepository vacinaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int itensPorTransacao;
+
+    @BeforeEach
+    void configurar() {
+        AgendamentoLoteService alvo = AopTestUtils.getUltimateTargetObject(agendamentoLoteService);
+        itensPorTransacao = (int) ReflectionTestUtils.getField(alvo, "itensPorTransacao");
+        ReflectionTestUtils.setField(alvo, "itensPorTransacao", 1);
+
+        jdbcTemplate.execute("CREATE TRIGGER recusar_observacao BEFORE INSERT ON agendas FOR EACH ROW CALL \""
+                + RecusarObservacao.class.getName() + "\"");
+    }
+
+    @AfterEach
+    void restaurar() {
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS recusar_observacao");
+
+        AgendamentoLoteService alvo = AopTestUtils.getUltimateTargetObject(agendamentoLoteService);
+        ReflectionTestUtils.setField(alvo, "itensPorTransacao", itensPorTransacao);
+    }
+
+    @Test
+    void blocoRecusadoPeloBancoNaoDesfazOBlocoAnterior() {
+        Vacina vacina = transactionTemplate.execute(status -> novaVacina());
+        Long confirmado = transactionTemplate.execute(status -> novoUsuario("Lote Confirmado"));
+        Long desfeito = transactionTemplate.execute(status -> novoUsuario("Lote Desfeito"));
+
+        ResultadoLote resultado = agendamentoLoteService.agendar(List.of(
+                new AgendamentoLoteItem(confirmado, vacina.getId(), DATA, HORA_CONFIRMADA, null),
+                new AgendamentoLoteItem(desfeito, vacina.getId(), DATA, HORA_DESFEITA, RecusarObservacao.VALOR)));
+
+        assertEquals(2, resultado.recebidos());
+        assertEquals(1, resultado.agendados());
+        assertEquals(1, resultado.dosesCriadas());
+        assertEquals(1, resultado.falhas().size());
+
+        FalhaLote falha = resultado.falhas().get(0);
+        assertEquals(1, falha.indice());
+        assertEquals(desfeito, falha.usuarioId());
+        assertTrue(falha.motivo().startsWith("Falha ao gravar o bloco de agendamentos"), falha.motivo());
+
+        // primeiro bloco: agenda, vaga ocupada e contador gravados
+        assertEquals(1, contar("SELECT COUNT(*) FROM agendas WHERE usuario_id = ?", confirmado));
+        assertEquals(1, contar("SELECT ocupadas FROM vagas_horario WHERE data = ? AND hora = ?", DATA, HORA_CONFIRMADA));
+        assertEquals(1, contar("SELECT total FROM estatisticas_agenda WHERE data = ? AND vacina_id = ? AND situacao = 'AGENDADO'",
+                DATA, vacina.getId()));
+
+        // segundo bloco: nada ficou, nem o horário criado para ele
+        assertEquals(0, contar("SELECT COUNT(*) FROM agendas WHERE usuario_id = ?", desfeito));
+        assertEquals(0, contar("SELECT COUNT(*) FROM vagas_horario WHERE data = ? AND hora = ?", DATA, HORA_DESFEITA));
+    }
+
+    private int contar(String sql, Object... parametros) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, parametros);
+    }
+
+    private Vacina novaVacina() {
+        Vacina vacina = new Vacina();
+        vacina.setTitulo("Febre Amarela (lote)");
+        vacina.setDescricao("Vacina de dose única usada no teste do agendamento em lote");
+        vacina.setDoses(1);
+        vacina.setComponentes(new ArrayList<>());
+        return vacinaRepository.save(vacina);
+    }
+
+    private Long novoUsuario(String nome) {
+        Usuario usuario = new Usuario();
+        usuario.setNome(nome);
+        usuario.setDataNascimento(LocalDate.of(1985, 6, 1));
+        usuario.setSexo("M");
+        usuario.setLogradouro("Rua 10");
+        usuario.setSetor("Centro");
+        usuario.setCidade("Goiânia");
+        usuario.setUf("GO");
+        usuario.setAlergias(new ArrayList<>());
+        return usuarioRepository.save(usuario).getId();
+    }
+
+    // recusa a agenda com as observações VALOR, como faria uma restrição do banco
+    public static class RecusarObservacao implements Trigger {
+
+        static final String VALOR = "recusar no banco";
+
+        @Override
+        public void fire(Connection conexao, Object[] anterior, Object[] nova) throws SQLException {
+            if (Arrays.asList(nova).contains(VALOR))
+                throw new SQLException("Agenda recusada pelo gatilho de teste.", "23000");
+        }
+    }
+}
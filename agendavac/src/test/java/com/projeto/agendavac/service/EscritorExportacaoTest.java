@@ -0,0 +1,171 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.dto.FiltroExportacao;
+import com.projeto.agendavac.enums.FormatoArquivo;
+import com.projeto.agendavac.repository.ExportacaoRepository;
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/*
+ * Formato dos arquivos de exportação: aspas do CSV (RFC 4180), um objeto JSON por linha e saída compactada.
+ * As linhas vêm de um ResultSet em memória com os tipos de coluna de um cursor real.
+ * */
+
+@ExtendWith(MockitoExtension.class)
+class EscritorExportacaoTest {
+
+    private static final List<String> COLUNAS = List.of("id", "nome", "observacoes");
+
+    @Mock
+    private ExportacaoRepository exportacaoRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ExportacaoService exportacaoService;
+
+    @Test
+    void csvComCabecalhoEAspasDuplicadas() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        try (EscritorExportacao escritor = new EscritorExportacao.Csv(COLUNAS, saida)) {
+            percorrer(linhas(), escritor);
+            assertEquals(3, escritor.getLinhas());
+        }
+
+        assertEquals("""
+                id,nome,observacoes\r
+                1,"Silva, Ana","levar ""cartão"" de vacina"\r
+                2,"a,""b",\r
+                3,"José
+                Souza",sem aspas\r
+                """, saida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjsonComUmObjetoPorLinhaENumerosSemAspas() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        try (EscritorExportacao escritor = new EscritorExportacao.Ndjson(COLUNAS, saida, objectMapper.getFactory())) {
+            percorrer(linhas(), escritor);
+            assertEquals(3, escritor.getLinhas());
+        }
+
+        assertEquals("""
+                {"id":1,"nome":"Silva, Ana","observacoes":"levar \\"cartão\\" de vacina"}
+                {"id":2,"nome":"a,\\"b","observacoes":null}
+                {"id":3,"nome":"José\\nSouza","observacoes":"sem aspas"}
+                """, saida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjsonComIdNulo() throws Exception {
+        SimpleResultSet rs = resultSet(COLUNAS.size());
+        rs.addRow(null, "Sem id", null);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        try (EscritorExportacao escritor = new EscritorExportacao.Ndjson(COLUNAS, saida, objectMapper.getFactory())) {
+            percorrer(rs, escritor);
+        }
+
+        assertEquals("{\"id\":null,\"nome\":\"Sem id\",\"observacoes\":null}\n", saida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportacaoCompactadaDescompactaParaOMesmoCsv() throws Exception {
+        doAnswer(invocacao -> {
+            percorrer(linhas(ExportacaoRepository.COLUNAS_AGENDAS.size()), invocacao.getArgument(1));
+            return null;
+        }).when(exportacaoRepository).percorrerAgendas(any(), any());
+
+        ByteArrayOutputStream semCompactar = new ByteArrayOutputStream();
+        ByteArrayOutputStream compactada = new ByteArrayOutputStream();
+        FiltroExportacao filtro = new FiltroExportacao(null, null, null);
+
+        assertEquals(3, exportacaoService.exportarAgendas(filtro, FormatoArquivo.CSV, false, semCompactar));
+        assertEquals(3, exportacaoService.exportarAgendas(filtro, FormatoArquivo.CSV, true, compactada));
+
+        assertEquals(semCompactar.toString(StandardCharsets.UTF_8), descompactar(compactada.toByteArray()));
+    }
+
+    @Test
+    void exportacaoCompactadaEmNdjson() throws Exception {
+        doAnswer(invocacao -> {
+            percorrer(linhas(ExportacaoRepository.COLUNAS_REACOES.size()), invocacao.getArgument(1));
+            return null;
+        }).when(exportacaoRepository).percorrerReacoes(any(), any());
+
+        ByteArrayOutputStream compactada = new ByteArrayOutputStream();
+
+        exportacaoService.exportarReacoes(new FiltroExportacao(null, null, null), FormatoArquivo.NDJSON, true, compactada);
+
+        List<String> linhas = descompactar(compactada.toByteArray()).lines().toList();
+        assertEquals(3, linhas.size());
+        assertEquals(2L, objectMapper.readTree(linhas.get(1)).get("id").asLong());
+        // o JSON usa os nomes das colunas de reações: a segunda é descricao
+        assertEquals("a,\"b", objectMapper.readTree(linhas.get(1)).get("descricao").asText());
+    }
+
+    private static void percorrer(ResultSet rs, RowCallbackHandler escritor) throws SQLException {
+        while (rs.next()) {
+            escritor.processRow(rs);
+        }
+    }
+
+    private static SimpleResultSet linhas() {
+        return linhas(COLUNAS.size());
+    }
+
+    // as colunas além das três do teste ficam nulas, para o tamanho das colunas de agendas e reações
+    private static SimpleResultSet linhas(int totalColunas) {
+        SimpleResultSet rs = resultSet(totalColunas);
+        rs.addRow(linha(totalColunas, 1L, "Silva, Ana", "levar \"cartão\" de vacina"));
+        rs.addRow(linha(totalColunas, 2L, "a,\"b", null));
+        rs.addRow(linha(totalColunas, 3L, "José\nSouza", "sem aspas"));
+        return rs;
+    }
+
+    private static Object[] linha(int totalColunas, Object... valores) {
+        return Arrays.copyOf(valores, totalColunas);
+    }
+
+    private static SimpleResultSet resultSet(int totalColunas) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("id", Types.BIGINT, 19, 0);
+        rs.addColumn("nome", Types.VARCHAR, 255, 0);
+        rs.addColumn("observacoes", Types.VARCHAR, 255, 0);
+        for (int i = COLUNAS.size(); i < totalColunas; i++) {
+            rs.addColumn("coluna" + i, Types.VARCHAR, 255, 0);
+        }
+        return rs;
+    }
+
+    private static String descompactar(byte[] dados) throws IOException {
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(dados))) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
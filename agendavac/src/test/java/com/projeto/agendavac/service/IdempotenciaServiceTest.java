@@ -0,0 +1,128 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.exception.ChaveIdempotenciaException;
+import com.projeto.agendavac.repository.ChaveIdempotenciaRepository;
+import com.projeto.agendavac.repository.ChaveIdempotenciaRepository.RespostaGravada;
+import com.projeto.agendavac.service.IdempotenciaService.RespostaIdempotente;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceTest {
+
+    @Mock
+    private ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private IdempotenciaService service;
+
+    private final AtomicInteger execucoes = new AtomicInteger();
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(service, "validadeHoras", 24L);
+        ReflectionTestUtils.setField(service, "maximoChavesEmCache", 100);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "registry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void repeticaoDevolveAPrimeiraRespostaSemExecutarDeNovo() {
+        executarTransacoes();
+        when(chaveIdempotenciaRepository.reservar(eq("agendas"), eq("chave-1"), anyString(), any())).thenReturn(true);
+
+        RespostaIdempotente primeira = service.executar("agendas", "chave-1", List.of(1L, 2L), 200, this::agendar);
+        RespostaIdempotente repetida = service.executar("agendas", "chave-1", List.of(1L, 2L), 200, this::agendar);
+
+        assertFalse(primeira.repetida());
+        assertTrue(repetida.repetida());
+        assertEquals(200, repetida.status());
+        assertEquals(json(primeira), json(repetida));
+        assertEquals(1, execucoes.get());
+
+        // a repetição foi respondida pelo cache
+        verify(chaveIdempotenciaRepository, times(1)).reservar(any(), any(), any(), any());
+        verify(chaveIdempotenciaRepository).gravarResposta("agendas", "chave-1", 200, "{\"agendas\":1}");
+    }
+
+    @Test
+    void chaveGravadaPorOutraInstanciaEhLidaDaTabela() {
+        executarTransacoes();
+        AtomicReference<String> requisicao = new AtomicReference<>();
+        when(chaveIdempotenciaRepository.reservar(eq("reacoes"), eq("chave-2"), anyString(), any())).thenAnswer(invocacao -> {
+            requisicao.set(invocacao.getArgument(2));
+            return false;
+        });
+        when(chaveIdempotenciaRepository.buscar("reacoes", "chave-2")).thenAnswer(invocacao ->
+                Optional.of(new RespostaGravada(requisicao.get(), 201, "{\"id\":50}", LocalDateTime.now())));
+
+        RespostaIdempotente resposta = service.executar("reacoes", "chave-2", List.of(7L, "Febre"), 201, this::agendar);
+
+        assertTrue(resposta.repetida());
+        assertEquals(201, resposta.status());
+        assertEquals("{\"id\":50}", json(resposta));
+        assertEquals(0, execucoes.get());
+    }
+
+    @Test
+    void mesmaChaveComOutrosParametrosEhRecusada() {
+        executarTransacoes();
+        when(chaveIdempotenciaRepository.reservar(eq("agendas"), eq("chave-3"), anyString(), any())).thenReturn(true);
+
+        service.executar("agendas", "chave-3", List.of(1L, 2L), 200, this::agendar);
+
+        assertThrows(ChaveIdempotenciaException.class,
+                () -> service.executar("agendas", "chave-3", List.of(1L, 3L), 200, this::agendar));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void chaveVaziaOuLongaDemaisEhRecusada() {
+        assertThrows(IllegalArgumentException.class, () -> service.executar("agendas", " ", List.of(), 200, this::agendar));
+        assertThrows(IllegalArgumentException.class, () -> service.executar("agendas", "x".repeat(101), List.of(), 200, this::agendar));
+    }
+
+    private void executarTransacoes() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocacao ->
+                invocacao.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+    }
+
+    private Object agendar() {
+        return Map.of("agendas", execucoes.incrementAndGet());
+    }
+
+    private String json(RespostaIdempotente resposta) {
+        return new String(resposta.json(), StandardCharsets.UTF_8);
+    }
+}
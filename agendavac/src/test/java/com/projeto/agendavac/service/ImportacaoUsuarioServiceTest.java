@@ -0,0 +1,135 @@
+package com.projeto.agendavac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.agendavac.dto.RejeicaoImportacao;
+import com.projeto.agendavac.dto.ResultadoImportacao;
+import com.projeto.agendavac.entity.Alergia;
+import com.projeto.agendavac.entity.Usuario;
+import com.projeto.agendavac.enums.FormatoArquivo;
+import com.projeto.agendavac.repository.AlergiaRepository;
+import com.projeto.agendavac.repository.UsuarioLoteRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacaoUsuarioServiceTest {
+
+    @Mock
+    private AlergiaRepository alergiaRepository;
+
+    @Mock
+    private UsuarioLoteRepository usuarioLoteRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ImportacaoUsuarioService service;
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(service, "linhasPorTransacao", 2);
+        ReflectionTestUtils.setField(service, "maxRejeicoesDetalhadas", 100);
+        ReflectionTestUtils.setField(service, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void importaLinhasValidasERelataAsRejeitadas() throws Exception {
+        when(alergiaRepository.findAll()).thenReturn(List.of(alergia(1L, "Ovo"), alergia(2L, "Látex")));
+        doAnswer(invocacao -> {
+            invocacao.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        doAnswer(invocacao -> {
+            List<Usuario> usuarios = invocacao.getArgument(0);
+            usuarios.forEach(usuario -> usuario.setId(100L));
+            return null;
+        }).when(usuarioLoteRepository).inserirUsuarios(any());
+
+        String csv = """
+                nome,dataNascimento,sexo,logradouro,setor,cidade,uf,alergias
+                "Silva, Ana",1990-05-10,F,Rua 1,Centro,Goiânia,GO,ovo|2
+                João,1985-01-01,X,Rua 2,Centro,Goiânia,GO,
+                Maria,1970-12-31,F,Rua 3,Centro,Goiânia,GO,Amendoim
+                """;
+
+        ResultadoImportacao resultado = service.importar(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoArquivo.CSV);
+
+        assertEquals(3, resultado.linhasLidas());
+        assertEquals(1, resultado.importados());
+        assertEquals(2, resultado.rejeitados());
+        assertEquals(List.of(3L, 4L), resultado.rejeicoes().stream().map(RejeicaoImportacao::linha).toList());
+        assertEquals("Alergia não encontrada: Amendoim", resultado.rejeicoes().get(1).motivo());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<long[]>> pares = ArgumentCaptor.forClass(List.class);
+        verify(usuarioLoteRepository).inserirAlergias(pares.capture());
+        assertEquals(List.of(1L, 2L), pares.getValue().stream().map(par -> par[1]).toList());
+    }
+
+    // falha de gravação de um bloco: as linhas dele são rejeitadas e a importação segue com os próximos
+    @Test
+    void falhaAoGravarRejeitaSoOBloco() throws Exception {
+        when(alergiaRepository.findAll()).thenReturn(List.of());
+        doAnswer(invocacao -> {
+            invocacao.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        doThrow(new IncorrectResultSizeDataAccessException(2, 1))
+                .doNothing()
+                .when(usuarioLoteRepository).inserirUsuarios(any());
+
+        String csv = """
+                nome,dataNascimento,sexo,logradouro,setor,cidade,uf
+                Ana,1990-05-10,F,Rua 1,Centro,Goiânia,GO
+                Bia,1991-05-10,F,Rua 1,Centro,Goiânia,GO
+                Caio,1992-05-10,M,Rua 1,Centro,Goiânia,GO
+                """;
+
+        ResultadoImportacao resultado = service.importar(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoArquivo.CSV);
+
+        assertEquals(1, resultado.importados());
+        assertEquals(List.of(2L, 3L), resultado.rejeicoes().stream().map(RejeicaoImportacao::linha).toList());
+        assertTrue(resultado.rejeicoes().get(0).motivo().startsWith("Falha ao gravar o bloco de usuários"));
+    }
+
+    @Test
+    void separaCamposCsvComAspas() {
+        assertEquals(List.of("a", "b, c", "d \"e\"", ""),
+                ImportacaoUsuarioService.dividirCsv("a,\"b, c\",\"d \"\"e\"\"\","));
+    }
+
+    private static Alergia alergia(Long id, String nome) {
+        Alergia alergia = new Alergia();
+        ReflectionTestUtils.setField(alergia, "id", id);
+        alergia.setNome(nome);
+        return alergia;
+    }
+}
@@ -0,0 +1,148 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.enums.Catalogo;
+import com.projeto.agendavac.repository.UsuarioRepository;
+import com.projeto.agendavac.repository.VacinaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IndiceConflitoAlergiaTest {
+
+    @Mock
+    private VacinaRepository vacinaRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private CatalogosEmCache catalogosEmCache;
+
+    @InjectMocks
+    private IndiceConflitoAlergia indice;
+
+    @Test
+    void detectaConflitoIgnorandoMaiusculasEEspacos() {
+        when(catalogosEmCache.versoes()).thenReturn(versoes(0, 0));
+        when(vacinaRepository.buscarNomesComponentes(1L)).thenReturn(List.of("Gelatina", "Látex"));
+        when(usuarioRepository.buscarNomesAlergias(10L)).thenReturn(List.of(" látex "));
+
+        assertTrue(indice.possuiConflito(10L, 1L));
+    }
+
+    @Test
+    void semConflitoQuandoNaoHaNomesEmComum() {
+        when(catalogosEmCache.versoes()).thenReturn(versoes(0, 0));
+        when(vacinaRepository.buscarNomesComponentes(1L)).thenReturn(List.of("Gelatina"));
+        when(usuarioRepository.buscarNomesAlergias(10L)).thenReturn(List.of("Ovo"));
+        when(usuarioRepository.buscarNomesAlergias(11L)).thenReturn(List.of());
+
+        assertFalse(indice.possuiConflito(10L, 1L));
+        assertFalse(indice.possuiConflito(11L, 1L));
+    }
+
+    // a versão vem do banco: a alteração pode ter sido feita em outra instância, sem invalidação local
+    @Test
+    void recarregaVacinaQuandoAVersaoDoBancoMuda() {
+        when(catalogosEmCache.versoes())
+                .thenReturn(versoes(0, 0))
+                .thenReturn(versoes(0, 0))
+                .thenReturn(versoes(1, 0));
+        when(vacinaRepository.buscarNomesComponentes(1L))
+                .thenReturn(List.of("Gelatina"))
+                .thenReturn(List.of("Ovo"));
+        when(usuarioRepository.buscarNomesAlergias(10L)).thenReturn(List.of("Ovo"));
+
+        assertFalse(indice.possuiConflito(10L, 1L));
+        assertFalse(indice.possuiConflito(10L, 1L));
+        verify(vacinaRepository, times(1)).buscarNomesComponentes(1L);
+
+        assertTrue(indice.possuiConflito(10L, 1L));
+        verify(vacinaRepository, times(2)).buscarNomesComponentes(1L);
+        verify(usuarioRepository, times(1)).buscarNomesAlergias(10L);
+    }
+
+    @Test
+    void recarregaUsuarioQuandoOCatalogoDeAlergiasMuda() {
+        when(catalogosEmCache.versoes())
+                .thenReturn(versoes(0, 0))
+                .thenReturn(versoes(0, 1));
+        when(vacinaRepository.buscarNomesComponentes(1L)).thenReturn(List.of("Ovo"));
+        when(usuarioRepository.buscarNomesAlergias(10L))
+                .thenReturn(List.of("Látex"))
+                .thenReturn(List.of("Ovo"));
+
+        assertFalse(indice.possuiConflito(10L, 1L));
+        assertTrue(indice.possuiConflito(10L, 1L));
+    }
+
+    // a troca das alergias de um usuário em outra instância não muda versão; a entrada vence
+    @Test
+    void usuarioVencidoERecarregado() {
+        ReflectionTestUtils.setField(indice, "validadeUsuarioMs", 0L);
+        when(catalogosEmCache.versoes()).thenReturn(versoes(0, 0));
+        when(vacinaRepository.buscarNomesComponentes(1L)).thenReturn(List.of("Ovo"));
+        when(usuarioRepository.buscarNomesAlergias(10L))
+                .thenReturn(List.of())
+                .thenReturn(List.of("Ovo"));
+
+        assertFalse(indice.possuiConflito(10L, 1L));
+        assertTrue(indice.possuiConflito(10L, 1L));
+    }
+
+    @Test
+    void invalidacaoDoUsuarioValeNaHoraForaDeTransacao() {
+        when(catalogosEmCache.versoes()).thenReturn(versoes(0, 0));
+        when(vacinaRepository.buscarNomesComponentes(1L)).thenReturn(List.of("Ovo"));
+        when(usuarioRepository.buscarNomesAlergias(10L))
+                .thenReturn(List.of())
+                .thenReturn(List.of("Ovo"));
+
+        assertFalse(indice.possuiConflito(10L, 1L));
+        assertFalse(indice.possuiConflito(10L, 1L));
+
+        indice.invalidarUsuario(10L);
+
+        assertTrue(indice.possuiConflito(10L, 1L));
+        verify(usuarioRepository, times(2)).buscarNomesAlergias(10L);
+    }
+
+    // no limite, só o usuário usado há mais tempo sai do índice
+    @Test
+    void limiteDescartaOUsuarioMenosUsado() {
+        ReflectionTestUtils.setField(indice, "maxUsuarios", 2);
+        when(catalogosEmCache.versoes()).thenReturn(versoes(0, 0));
+        when(vacinaRepository.buscarNomesComponentes(1L)).thenReturn(List.of("Ovo"));
+        when(usuarioRepository.buscarNomesAlergias(10L)).thenReturn(List.of());
+        when(usuarioRepository.buscarNomesAlergias(11L)).thenReturn(List.of());
+        when(usuarioRepository.buscarNomesAlergias(12L)).thenReturn(List.of());
+
+        indice.possuiConflito(10L, 1L);
+        indice.possuiConflito(11L, 1L);
+        indice.possuiConflito(10L, 1L);
+        indice.possuiConflito(12L, 1L);
+
+        indice.possuiConflito(10L, 1L);
+        indice.possuiConflito(11L, 1L);
+
+        verify(usuarioRepository, times(1)).buscarNomesAlergias(10L);
+        verify(usuarioRepository, times(2)).buscarNomesAlergias(11L);
+    }
+
+    private static Map<Catalogo, Long> versoes(long vacinas, long alergias) {
+        return Map.of(Catalogo.VACINAS, vacinas, Catalogo.COMPONENTES, 0L, Catalogo.ALERGIAS, alergias);
+    }
+}
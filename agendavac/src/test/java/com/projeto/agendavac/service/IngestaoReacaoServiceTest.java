@@ -0,0 +1,101 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.NovaReacao;
+import com.projeto.agendavac.dto.ProtocoloReacao;
+import com.projeto.agendavac.enums.Situacao;
+import com.projeto.agendavac.enums.SituacaoProtocolo;
+import com.projeto.agendavac.repository.ReacaoLoteRepository;
+import com.projeto.agendavac.repository.ReacaoLoteRepository.AgendaDaReacao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngestaoReacaoServiceTest {
+
+    private static final LocalDate DATA = LocalDate.of(2024, 3, 10);
+
+    @Mock
+    private ReacaoLoteRepository reacaoLoteRepository;
+
+    @Mock
+    private EstatisticaReacaoService estatisticaReacaoService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private IngestaoReacaoService service;
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(service, "capacidadeFila", 10);
+        ReflectionTestUtils.setField(service, "esperaFilaMs", 10L);
+        ReflectionTestUtils.setField(service, "itensPorGravacao", 10);
+        ReflectionTestUtils.setField(service, "tamanhoMaximoLote", 10);
+        ReflectionTestUtils.setField(service, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "registry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reacaoInvalidaEhRecusadaNaChegada() {
+        assertThrows(IllegalArgumentException.class, () -> service.enviar(new NovaReacao(1L, " ", DATA)));
+        assertThrows(IllegalArgumentException.class, () -> service.enviar(new NovaReacao(null, "Febre", DATA)));
+
+        verifyNoInteractions(reacaoLoteRepository);
+    }
+
+    @Test
+    void gravaAsValidasERejeitaAgendasNaoRealizadas() throws Exception {
+        when(transactionTemplate.execute(any())).thenAnswer(invocacao ->
+                invocacao.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        when(reacaoLoteRepository.buscarAgendas(any())).thenReturn(Map.of(
+                1L, new AgendaDaReacao(Situacao.REALIZADO, DATA, 7L),
+                2L, new AgendaDaReacao(Situacao.AGENDADO, DATA, 7L)));
+        when(reacaoLoteRepository.inserir(any())).thenReturn(List.of(50L));
+
+        service.iniciar();
+        List<ProtocoloReacao> enviados;
+        try {
+            enviados = service.enviar(List.of(
+                    new NovaReacao(1L, "Febre", DATA),
+                    new NovaReacao(2L, "Dor no local", DATA),
+                    new NovaReacao(3L, "Náusea", DATA),
+                    new NovaReacao(1L, "", DATA)));
+        } finally {
+            service.encerrar();
+        }
+
+        ProtocoloReacao gravada = service.consultar(enviados.get(0).protocolo());
+        assertEquals(SituacaoProtocolo.GRAVADA, gravada.situacao());
+        assertEquals(50L, gravada.reacaoId());
+
+        assertEquals("Não é possível inserir reação em uma agenda não realizada!",
+                service.consultar(enviados.get(1).protocolo()).motivo());
+        assertEquals("Agenda com ID 3 não encontrada.", service.consultar(enviados.get(2).protocolo()).motivo());
+
+        verify(estatisticaReacaoService).marcarAlteracao(DATA, 7L);
+
+        // a descrição vazia nem chega à fila
+        assertEquals(SituacaoProtocolo.REJEITADA, enviados.get(3).situacao());
+    }
+}
@@ -0,0 +1,85 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.dto.LembreteDose;
+import com.projeto.agendavac.enums.SituacaoLembrete;
+import com.projeto.agendavac.repository.LembreteRepository;
+import com.projeto.agendavac.repository.LembreteRepository.EnvioLembrete;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LembreteServiceTest {
+
+    @Mock
+    private LembreteRepository lembreteRepository;
+
+    @Mock
+    private CanalLembrete canalLembrete;
+
+    @InjectMocks
+    private LembreteService service;
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(service, "lembretesPorReserva", 10);
+        ReflectionTestUtils.setField(service, "maximoTentativas", 3);
+        ReflectionTestUtils.setField(service, "reservaMinutos", 10L);
+        ReflectionTestUtils.setField(service, "esperaFalhaMinutos", 15L);
+        ReflectionTestUtils.setField(service, "registry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void registraEnviadosFalhasEDescartados() throws Exception {
+        LembreteDose enviado = lembrete(1L, 1);
+        LembreteDose falha = lembrete(2L, 1);
+        LembreteDose ultimaTentativa = lembrete(3L, 3);
+
+        when(lembreteRepository.reservarPendentes(any(), any(), anyInt(), anyInt())).thenReturn(List.of(ultimaTentativa));
+        when(lembreteRepository.reservarNovos(any(), any(), any(), anyInt())).thenReturn(List.of(enviado, falha));
+        doNothing().when(canalLembrete).enviar(enviado);
+        doThrow(new IllegalStateException("canal fora do ar")).when(canalLembrete).enviar(falha);
+        doThrow(new IllegalStateException("canal fora do ar")).when(canalLembrete).enviar(ultimaTentativa);
+
+        assertEquals(3, service.enviarLembretes());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EnvioLembrete>> envios = ArgumentCaptor.forClass(List.class);
+        verify(lembreteRepository, times(2)).registrar(envios.capture());
+
+        EnvioLembrete descartado = envios.getAllValues().get(0).get(0);
+        assertEquals(SituacaoLembrete.DESCARTADO, descartado.situacao());
+
+        List<EnvioLembrete> novos = envios.getAllValues().get(1);
+        assertEquals(SituacaoLembrete.ENVIADO, novos.get(0).situacao());
+        assertNotNull(novos.get(0).enviadoEm());
+        assertEquals(SituacaoLembrete.FALHA, novos.get(1).situacao());
+        assertNull(novos.get(1).enviadoEm());
+        assertEquals("IllegalStateException: canal fora do ar", novos.get(1).erro());
+    }
+
+    private LembreteDose lembrete(Long id, int tentativa) {
+        return new LembreteDose(id, tentativa, id * 10, LocalDate.of(2024, 3, 11), LocalTime.of(9, 0), 5L, "Maria", "Influenza");
+    }
+}
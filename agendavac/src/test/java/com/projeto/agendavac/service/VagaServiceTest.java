@@ -0,0 +1,170 @@
+package com.projeto.agendavac.service;
+
+import com.projeto.agendavac.exception.VagaIndisponivelException;
+import com.projeto.agendavac.repository.VagaHorarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VagaServiceTest {
+
+    private static final LocalDate DATA = LocalDate.of(2024, 3, 1);
+    private static final LocalTime HORA = LocalTime.of(8, 0);
+
+    @Mock
+    private VagaHorarioRepository vagaHorarioRepository;
+
+    @InjectMocks
+    private VagaService vagaService;
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(vagaService, "capacidadePadrao", 2);
+        ReflectionTestUtils.setField(vagaService, "cacheLotadoMs", 60_000L);
+        ReflectionTestUtils.setField(vagaService, "inicioGrade", "08:00");
+        ReflectionTestUtils.setField(vagaService, "fimGrade", "09:00");
+        ReflectionTestUtils.setField(vagaService, "intervaloGradeMinutos", 30);
+    }
+
+    @Test
+    void criaOHorarioNaPrimeiraReserva() {
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(0).thenReturn(1);
+
+        assertTrue(vagaService.tentarReservar(DATA, HORA));
+        verify(vagaHorarioRepository).criarSeAusente(DATA, HORA, 2);
+    }
+
+    @Test
+    void horarioLotadoEhRecusadoSemNovaConsulta() {
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(0);
+
+        assertThrows(VagaIndisponivelException.class, () -> vagaService.reservar(DATA, HORA));
+        assertThrows(VagaIndisponivelException.class, () -> vagaService.reservar(DATA, HORA));
+
+        verify(vagaHorarioRepository, times(2)).ocupar(DATA, HORA);
+        verify(vagaHorarioRepository, times(1)).criarSeAusente(DATA, HORA, 2);
+    }
+
+    @Test
+    void liberarPermiteNovaTentativaImediata() {
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(0).thenReturn(0).thenReturn(1);
+
+        assertThrows(VagaIndisponivelException.class, () -> vagaService.reservar(DATA, HORA));
+        vagaService.liberar(DATA, HORA);
+
+        assertTrue(vagaService.tentarReservar(DATA, HORA));
+    }
+
+    @Test
+    void horarioCriadoEmTransacaoDesfeitaEhCriadoDeNovo() {
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(0, 1, 0, 1);
+
+        // agendamento que cria o horário e depois sofre rollback (por exemplo, a segunda dose sem vaga)
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(vagaService.tentarReservar(DATA, HORA));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(vagaService.tentarReservar(DATA, HORA));
+        verify(vagaHorarioRepository, times(2)).criarSeAusente(DATA, HORA, 2);
+    }
+
+    @Test
+    void horarioCriadoEmTransacaoConfirmadaNaoEhCriadoDeNovo() {
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(0, 1, 0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(vagaService.tentarReservar(DATA, HORA));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThrows(VagaIndisponivelException.class, () -> vagaService.reservar(DATA, HORA));
+        verify(vagaHorarioRepository, times(1)).criarSeAusente(DATA, HORA, 2);
+    }
+
+    // agendamento individual recusado: o rollback não desfaz a lotação, que não veio de vagas da própria transação
+    @Test
+    void horarioLotadoEmTransacaoDesfeitaSemVagaOcupadaFicaMarcado() {
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(VagaIndisponivelException.class, () -> vagaService.reservar(DATA, HORA));
+            concluir(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThrows(VagaIndisponivelException.class, () -> vagaService.reservar(DATA, HORA));
+        verify(vagaHorarioRepository, times(2)).ocupar(DATA, HORA);
+    }
+
+    // lote desfeito que ocupou a última vaga do horário: depois do rollback a vaga existe de novo
+    @Test
+    void horarioLotadoPelaPropriaTransacaoDesfeitaNaoFicaMarcado() {
+        // ocupa a vaga; depois lotado (duas tentativas: antes e depois de criar o horário); livre após o rollback
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(1, 0, 0, 1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(vagaService.tentarReservar(DATA, HORA));
+            assertFalse(vagaService.tentarReservar(DATA, HORA));
+            concluir(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(vagaService.tentarReservar(DATA, HORA));
+    }
+
+    @Test
+    void horarioLotadoEmTransacaoConfirmadaFicaMarcado() {
+        when(vagaHorarioRepository.ocupar(DATA, HORA)).thenReturn(1, 0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(vagaService.tentarReservar(DATA, HORA));
+            assertFalse(vagaService.tentarReservar(DATA, HORA));
+            concluir(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(vagaService.tentarReservar(DATA, HORA));
+        verify(vagaHorarioRepository, times(3)).ocupar(DATA, HORA);
+    }
+
+    @Test
+    void gradeVaiDoInicioAoFimNoIntervalo() {
+        assertEquals(3, vagaService.horariosDaGrade().size());
+    }
+
+    private static void concluir(int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED)
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.getSynchronizations().forEach(sincronizacao -> sincronizacao.afterCompletion(status));
+    }
+}